@@ -0,0 +1,62 @@
+package com.github.togrul2.booklet.collections;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures catalog-wide availability search over 100k books with 1M reservations, i.e. finding books reserved within
+ * a date range before the book query is paged. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DayBitmapIndexBenchmark {
+    private static final int BOOKS = 100_000;
+    private static final int RESERVATIONS_PER_BOOK = 10;
+
+    @Param({"1", "7", "30"})
+    private int rangeDays;
+
+    private DayBitmapIndex index;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final LocalDateTime start = LocalDate.of(2030, 1, 1).atStartOfDay();
+        index = new DayBitmapIndex();
+        long id = 0;
+        for (long book = 1; book <= BOOKS; book++) {
+            List<IntervalIndex.Interval> intervals = new ArrayList<>(RESERVATIONS_PER_BOOK);
+            LocalDateTime cursor = start.plusHours(random.nextInt(24 * 7));
+            for (int i = 0; i < RESERVATIONS_PER_BOOK; i++) {
+                LocalDateTime end = cursor.plusHours(24 + random.nextInt(24 * 6));
+                intervals.add(new IntervalIndex.Interval(++id, book, cursor, end));
+                cursor = end.plusHours(random.nextInt(24 * 30));
+            }
+            index.set(book, intervals);
+        }
+        from = start.toLocalDate().plusDays(90);
+        to = from.plusDays(rangeDays - 1);
+    }
+
+    @Benchmark
+    public List<Long> reservedBooks() {
+        return index.reservedKeys(from, to);
+    }
+
+    @Benchmark
+    public boolean singleBook() {
+        return index.isReserved(BOOKS / 2, from, to);
+    }
+}
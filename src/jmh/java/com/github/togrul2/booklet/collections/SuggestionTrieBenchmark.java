@@ -0,0 +1,70 @@
+package com.github.togrul2.booklet.collections;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures search box suggestions over 100k titles, sampled so the report includes p99 latency. Prefixes are one to
+ * four letters of random words, i.e. the most expensive keystrokes. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SuggestionTrieBenchmark {
+    private static final int TITLES = 100_000;
+    private static final int WORDS = 5_000;
+    private static final int PREFIXES = 1024;
+    private static final int LIMIT = 10;
+
+    private SuggestionTrie trie;
+    private String[] prefixes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final String[] words = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 3 + random.nextInt(8); word.length() < length; ) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words[i] = word.toString();
+        }
+
+        List<SuggestionTrie.Entry> entries = new ArrayList<>(TITLES);
+        for (int i = 0; i < TITLES; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int count = 1 + random.nextInt(5); count > 0; count--) {
+                title.append(words[random.nextInt(WORDS)]).append(' ');
+            }
+            entries.add(new SuggestionTrie.Entry(i, title.toString().strip(), random.nextInt(1000)));
+        }
+        trie = SuggestionTrie.of(entries, LIMIT);
+
+        prefixes = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            String word = words[random.nextInt(WORDS)];
+            prefixes[i] = word.substring(0, 1 + random.nextInt(Math.min(4, word.length())));
+        }
+    }
+
+    @Benchmark
+    public List<SuggestionTrie.Entry> suggest() {
+        next = (next + 1) & (PREFIXES - 1);
+        return trie.suggest(prefixes[next], LIMIT);
+    }
+
+    @Benchmark
+    public void addWeight() {
+        next = (next + 1) & (PREFIXES - 1);
+        trie.addWeight(next, 1);
+    }
+}
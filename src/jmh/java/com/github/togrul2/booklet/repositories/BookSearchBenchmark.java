@@ -0,0 +1,111 @@
+package com.github.togrul2.booklet.repositories;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares title searches against a catalog of a million books with and without the search indexes.
+ * <p>
+ * Needs a disposable Postgres with {@code pg_trgm} available, passed as {@code -Dbooklet.jdbc.url},
+ * {@code -Dbooklet.jdbc.username} and {@code -Dbooklet.jdbc.password}. Queries mirror the SQL rendered by
+ * {@link com.github.togrul2.booklet.specifications.SpecificationAssembler}. Run with {@code ./gradlew jmh}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookSearchBenchmark {
+    private static final int BOOKS = 1_000_000;
+
+    @Param({"search_book_indexed", "search_book_plain"})
+    private String table;
+
+    private Connection connection;
+    private PreparedStatement substring;
+    private PreparedStatement words;
+    private PreparedStatement fuzzy;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("booklet.jdbc.url", "jdbc:postgresql://localhost:5432/booklet"),
+                System.getProperty("booklet.jdbc.username", "postgres"),
+                System.getProperty("booklet.jdbc.password", "postgres")
+        );
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " (id bigint PRIMARY KEY, title varchar(100) NOT NULL)");
+            // Titles are made of words picked from a small vocabulary, so words repeat like in a real catalog.
+            statement.execute("""
+                    INSERT INTO %s
+                    SELECT i, (ARRAY['The', 'Great', 'Silent', 'Lost', 'Winter', 'River', 'Garden', 'House'])[i %% 8 + 1]
+                        || ' ' || (ARRAY['Empire', 'Shadow', 'Letters', 'Journey', 'Kingdom', 'Memory'])[i %% 6 + 1]
+                        || ' ' || md5(i::text)
+                    FROM generate_series(1, %d) AS i
+                    """.formatted(table, BOOKS));
+            if (table.endsWith("_indexed")) {
+                statement.execute("CREATE INDEX ON " + table + " USING gin (lower(title) gin_trgm_ops)");
+                statement.execute("CREATE INDEX ON " + table + " USING gin (to_tsvector('simple', title))");
+                statement.execute("CREATE INDEX ON " + table + " USING gin (title gin_trgm_ops)");
+            }
+            statement.execute("ANALYZE " + table);
+        }
+
+        substring = connection.prepareStatement(
+                "SELECT id FROM " + table + " WHERE lower(title) LIKE ? ESCAPE '\\' LIMIT 20"
+        );
+        substring.setString(1, "%" + "c4ca42" + "%");
+        words = connection.prepareStatement("""
+                SELECT id FROM %s
+                WHERE to_tsvector('simple', title) @@ websearch_to_tsquery('simple', ?)
+                ORDER BY ts_rank(to_tsvector('simple', title), websearch_to_tsquery('simple', ?)) DESC, id
+                LIMIT 20
+                """.formatted(table));
+        words.setString(1, "silent kingdom");
+        words.setString(2, "silent kingdom");
+        fuzzy = connection.prepareStatement("""
+                SELECT id FROM %s WHERE ? <%% title ORDER BY word_similarity(?, title) DESC, id LIMIT 20
+                """.formatted(table));
+        fuzzy.setString(1, "kingdon");
+        fuzzy.setString(2, "kingdon");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public int substring() throws SQLException {
+        return count(substring);
+    }
+
+    @Benchmark
+    public int words() throws SQLException {
+        return count(words);
+    }
+
+    @Benchmark
+    public int fuzzy() throws SQLException {
+        return count(fuzzy);
+    }
+
+    private static int count(PreparedStatement statement) throws SQLException {
+        int rows = 0;
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
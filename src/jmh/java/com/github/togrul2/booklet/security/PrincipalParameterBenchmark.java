@@ -0,0 +1,72 @@
+package com.github.togrul2.booklet.security;
+
+import com.github.togrul2.booklet.entities.Role;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.spel.ExtensionAwareEvaluationContextProvider;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.data.repository.query.SecurityEvaluationContextExtension;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares preparing parameters of a query restricted to the authenticated user or admins. Previously every execution
+ * built an evaluation context through {@link SecurityEvaluationContextExtension} and evaluated principal expressions,
+ * now id and admin flag are read from the {@link AuthenticatedUser} built by the authentication filter.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrincipalParameterBenchmark {
+    private ExtensionAwareEvaluationContextProvider contextProvider;
+    private Expression usernameExpression;
+    private Expression adminExpression;
+    private AuthenticatedUser currentUser;
+
+    @Setup
+    public void setUp() {
+        // Benchmark threads are not the one running setup.
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        currentUser = new AuthenticatedUser(1L, "johndoe@example.com", Role.ADMIN.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(currentUser, null, currentUser.getAuthorities())
+        );
+
+        contextProvider = new ExtensionAwareEvaluationContextProvider(List.of(new SecurityEvaluationContextExtension()));
+        // Expressions are parsed once per query method, only evaluation happens on every execution.
+        SpelExpressionParser parser = new SpelExpressionParser();
+        usernameExpression = parser.parseExpression("principal?.username");
+        adminExpression = parser.parseExpression("principal?.authorities.contains('ROLE_ADMIN')");
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public void spelParameters(Blackhole blackhole) {
+        EvaluationContext context = contextProvider.getEvaluationContext(new Object[0]);
+        blackhole.consume(usernameExpression.getValue(context));
+        blackhole.consume(adminExpression.getValue(context));
+    }
+
+    @Benchmark
+    public void boundParameters(Blackhole blackhole) {
+        AuthenticatedUser principal = (AuthenticatedUser) SecurityContextHolder
+                .getContext()
+                .getAuthentication()
+                .getPrincipal();
+        blackhole.consume(principal.getId());
+        blackhole.consume(principal.isAdmin());
+    }
+}
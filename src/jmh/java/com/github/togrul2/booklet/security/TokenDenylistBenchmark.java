@@ -0,0 +1,46 @@
+package com.github.togrul2.booklet.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures per-request overhead of the denylist check done by the authentication filter.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenDenylistBenchmark {
+    @Param({"0", "10000", "100000"})
+    private int revokedTokens;
+
+    private TokenDenylist denylist;
+    private String activeTokenId;
+    private String revokedTokenId;
+
+    @Setup
+    public void setUp() {
+        denylist = new TokenDenylist(100_000);
+        for (int i = 0; i < revokedTokens; i++) {
+            denylist.add(UUID.randomUUID().toString(), Long.MAX_VALUE);
+        }
+        revokedTokenId = UUID.randomUUID().toString();
+        denylist.add(revokedTokenId, Long.MAX_VALUE);
+        activeTokenId = UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    public boolean activeToken() {
+        return denylist.contains(activeTokenId);
+    }
+
+    @Benchmark
+    public boolean revokedToken() {
+        return denylist.contains(revokedTokenId);
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.dtos.imports.ImportResultDto;
+import com.github.togrul2.booklet.imports.ImportFormat;
+import jakarta.validation.Validation;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures bulk import of books through {@link ImportService}, from parsing the input to committed {@code COPY}
+ * chunks. Scores are per book, so 20 microseconds are 50k books per second.
+ * <p>
+ * Needs a disposable Postgres, passed as {@code -Dbooklet.jdbc.url}, {@code -Dbooklet.jdbc.username} and
+ * {@code -Dbooklet.jdbc.password}, which is migrated to the current schema. Run with {@code ./gradlew jmh}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BookImportBenchmark {
+    private static final int BOOKS = 100_000;
+    private static final String GENRE = "import-benchmark";
+
+    @Param({"CSV", "NDJSON"})
+    private ImportFormat format;
+
+    private JdbcTemplate jdbcTemplate;
+    private ImportService importService;
+    private byte[] input;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getProperty("booklet.jdbc.url", "jdbc:postgresql://localhost:5432/booklet"),
+                System.getProperty("booklet.jdbc.username", "postgres"),
+                System.getProperty("booklet.jdbc.password", "postgres")
+        );
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("""
+                INSERT INTO genre (name, slug) VALUES ('Import benchmark', ?) ON CONFLICT DO NOTHING
+                """, GENRE);
+        jdbcTemplate.update("""
+                INSERT INTO author (name, surname, birth_date, biography)
+                SELECT 'Import', 'Benchmark', DATE '1900-01-01', ''
+                WHERE NOT EXISTS (SELECT FROM author WHERE name = 'Import' AND surname = 'Benchmark')
+                """);
+
+        importService = new ImportService(
+                jdbcTemplate,
+                Jackson2ObjectMapperBuilder.json().build(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                _ -> {
+                }
+        );
+        DirectFieldAccessor fields = new DirectFieldAccessor(importService);
+        fields.setPropertyValue("chunkSize", 10_000);
+        fields.setPropertyValue("maxErrors", 1_000);
+
+        StringBuilder rows = new StringBuilder();
+        if (format == ImportFormat.CSV) {
+            rows.append("title,isbn,year,authorName,authorSurname,genre\n");
+        }
+        for (int i = 0; i < BOOKS; i++) {
+            final String title = "Imported book " + i;
+            final String isbn = "9%012d".formatted(i);
+            rows.append(switch (format) {
+                case CSV -> "%s,%s,%d,Import,Benchmark,%s\n".formatted(title, isbn, 1900 + i % 120, GENRE);
+                case NDJSON -> """
+                        {"title": "%s", "isbn": "%s", "year": %d, "authorName": "Import", \
+                        "authorSurname": "Benchmark", "genre": "%s"}
+                        """.formatted(title, isbn, 1900 + i % 120, GENRE);
+            });
+        }
+        input = rows.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Setup(Level.Iteration)
+    public void deleteImportedBooks() {
+        jdbcTemplate.update("DELETE FROM book WHERE genre_id = (SELECT id FROM genre WHERE slug = ?)", GENRE);
+        jdbcTemplate.execute("VACUUM ANALYZE book");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        deleteImportedBooks();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOOKS)
+    public ImportResultDto importBooks() throws IOException {
+        return importService.importBooks(new ByteArrayInputStream(input), format);
+    }
+}
@@ -1,10 +1,15 @@
 package com.github.togrul2.booklet;
 
+import com.github.togrul2.booklet.repositories.BaseRepository;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableCaching
+@EnableScheduling
+@EnableJpaRepositories(repositoryBaseClass = BaseRepository.class)
 @SpringBootApplication
 public class BookletApplication {
     public static void main(String[] args) {
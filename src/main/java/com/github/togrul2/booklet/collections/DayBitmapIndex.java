@@ -0,0 +1,83 @@
+package com.github.togrul2.booklet.collections;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Thread-safe index of reserved days by key, e.g. by book, kept as compressed Roaring bitmaps of epoch days.
+ * <p>
+ * A day is reserved if any interval covers part of it, so answers are conservative at day granularity. Bitmaps are
+ * never modified after they are published, a key is updated by replacing its whole bitmap, which keeps reads
+ * lock-free. Consecutive reserved days are stored as runs, so a key costs a few bytes per reservation.
+ * </p>
+ */
+public class DayBitmapIndex {
+    private final Map<Long, RoaringBitmap> daysByKey = new ConcurrentHashMap<>();
+
+    public static DayBitmapIndex of(IntervalIndex intervalIndex) {
+        DayBitmapIndex index = new DayBitmapIndex();
+        intervalIndex
+                .snapshot()
+                .values()
+                .stream()
+                .collect(Collectors.groupingBy(IntervalIndex.Interval::key))
+                .forEach(index::set);
+        return index;
+    }
+
+    /**
+     * Replaces reserved days of the key with days covered by the given intervals.
+     */
+    public void set(long key, Collection<IntervalIndex.Interval> intervals) {
+        RoaringBitmap days = new RoaringBitmap();
+        for (IntervalIndex.Interval interval : intervals) {
+            // End is exclusive, an interval ending at midnight does not reserve the following day.
+            days.add(dayOf(interval.start().toLocalDate()), dayOf(interval.end().minusNanos(1).toLocalDate()) + 1L);
+        }
+        days.runOptimize();
+
+        if (days.isEmpty()) {
+            daysByKey.remove(key);
+        } else {
+            daysByKey.put(key, days);
+        }
+    }
+
+    /**
+     * Checks whether any day from {@code from} to {@code to}, both inclusive, is reserved for the key.
+     */
+    public boolean isReserved(long key, LocalDate from, LocalDate to) {
+        RoaringBitmap days = daysByKey.get(key);
+        return days != null && days.intersects(dayOf(from), dayOf(to) + 1L);
+    }
+
+    /**
+     * Returns keys having any day from {@code from} to {@code to}, both inclusive, reserved. Keys without reserved
+     * days are not indexed at all, so the result only contains keys which are not free.
+     */
+    public List<Long> reservedKeys(LocalDate from, LocalDate to) {
+        final long minimum = dayOf(from);
+        final long supremum = dayOf(to) + 1L;
+        return daysByKey
+                .entrySet()
+                .stream()
+                .filter(entry -> entry.getValue().intersects(minimum, supremum))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int size() {
+        return daysByKey.size();
+    }
+
+    private static long dayOf(LocalDate date) {
+        // Days before the epoch are never reserved, clamp them to the first day so ranges stay unsigned.
+        return Math.max(0L, date.toEpochDay());
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.togrul2.booklet.collections;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe index of half-open time intervals grouped by key, e.g. reservations grouped by book.
+ * <p>
+ * Intervals of a key are expected not to overlap, so they are kept in a map sorted by start and an overlap check is a
+ * single {@code O(log n)} lookup of the last interval starting before the end of the queried one. Every interval has
+ * a unique id, so it can be moved or removed without knowing its previous key and bounds.
+ * </p>
+ */
+public class IntervalIndex {
+    /**
+     * Half-open interval {@code [start, end)}.
+     *
+     * @param id    unique id of the interval.
+     * @param key   key the interval belongs to.
+     * @param start start of the interval, inclusive.
+     * @param end   end of the interval, exclusive.
+     */
+    public record Interval(long id, long key, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private final Map<Long, NavigableMap<LocalDateTime, Interval>> intervalsByKey = new ConcurrentHashMap<>();
+    private final Map<Long, Interval> intervalsById = new ConcurrentHashMap<>();
+
+    public static IntervalIndex of(Collection<Interval> intervals) {
+        IntervalIndex index = new IntervalIndex();
+        intervals.forEach(index::put);
+        return index;
+    }
+
+    /**
+     * Adds the interval, replacing the previous version of an interval with the same id.
+     */
+    public void put(Interval interval) {
+        remove(interval.id());
+        NavigableMap<LocalDateTime, Interval> intervals = intervalsByKey.computeIfAbsent(
+                interval.key(), _ -> new TreeMap<>()
+        );
+        synchronized (intervals) {
+            intervals.put(interval.start(), interval);
+        }
+        intervalsById.put(interval.id(), interval);
+    }
+
+    public void remove(long id) {
+        Interval interval = intervalsById.remove(id);
+        if (interval == null) {
+            return;
+        }
+        NavigableMap<LocalDateTime, Interval> intervals = intervalsByKey.get(interval.key());
+        if (intervals != null) {
+            synchronized (intervals) {
+                intervals.remove(interval.start(), interval);
+            }
+        }
+    }
+
+    /**
+     * Checks whether any interval of the key overlaps {@code [start, end)}.
+     */
+    public boolean overlaps(long key, LocalDateTime start, LocalDateTime end) {
+        NavigableMap<LocalDateTime, Interval> intervals = intervalsByKey.get(key);
+        if (intervals == null) {
+            return false;
+        }
+        synchronized (intervals) {
+            Map.Entry<LocalDateTime, Interval> previous = intervals.lowerEntry(end);
+            return previous != null && previous.getValue().end().isAfter(start);
+        }
+    }
+
+    /**
+     * Returns all intervals of the key ordered by start.
+     */
+    public List<Interval> intervals(long key) {
+        NavigableMap<LocalDateTime, Interval> intervals = intervalsByKey.get(key);
+        if (intervals == null) {
+            return List.of();
+        }
+        synchronized (intervals) {
+            return List.copyOf(intervals.values());
+        }
+    }
+
+    /**
+     * Returns intervals of the key overlapping {@code [from, to)} ordered by start.
+     */
+    public List<Interval> intervals(long key, LocalDateTime from, LocalDateTime to) {
+        NavigableMap<LocalDateTime, Interval> intervals = intervalsByKey.get(key);
+        if (intervals == null) {
+            return List.of();
+        }
+        synchronized (intervals) {
+            // The interval starting before the range may still reach into it.
+            LocalDateTime first = Optional.ofNullable(intervals.lowerKey(from)).orElse(from);
+            return intervals
+                    .subMap(first, true, to, false)
+                    .values()
+                    .stream()
+                    .filter(interval -> interval.end().isAfter(from))
+                    .toList();
+        }
+    }
+
+    public Map<Long, Interval> snapshot() {
+        return Map.copyOf(intervalsById);
+    }
+
+    public int size() {
+        return intervalsById.size();
+    }
+}
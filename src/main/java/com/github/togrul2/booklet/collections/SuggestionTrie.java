@@ -0,0 +1,295 @@
+package com.github.togrul2.booklet.collections;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Thread-safe prefix index of texts ranked by weight, e.g. book titles ranked by popularity.
+ * <p>
+ * Texts are normalized to lower-case words without diacritics and indexed from the start of every word, so a prefix
+ * matches any word of the text. Keys are kept in a radix tree, where chains of single-child nodes are collapsed into
+ * one edge. Every node keeps the best entries of its subtree up to the capacity of the trie, so a lookup walks the
+ * prefix once and returns the precomputed list without visiting the subtree. Writes recompute these lists on the paths
+ * of the changed keys only.
+ * </p>
+ */
+public class SuggestionTrie {
+    /**
+     * Indexed text.
+     *
+     * @param id     unique id of the entry.
+     * @param text   text as shown to the user.
+     * @param weight rank of the entry, heavier entries are suggested first.
+     */
+    public record Entry(long id, String text, long weight) {
+    }
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong(Entry::weight)
+            .reversed()
+            .thenComparing(Entry::text)
+            .thenComparingLong(Entry::id);
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final int capacity;
+    private final Node root = new Node("");
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param capacity maximum number of suggestions returned by a lookup.
+     */
+    public SuggestionTrie(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public static SuggestionTrie of(Collection<Entry> entries, int capacity) {
+        SuggestionTrie trie = new SuggestionTrie(capacity);
+        entries.forEach(trie::put);
+        return trie;
+    }
+
+    /**
+     * Adds the entry, replacing the previous version of an entry with the same id.
+     */
+    public void put(Entry entry) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(entry.id());
+            entries.put(entry.id(), entry);
+            for (String key : keys(entry.text())) {
+                rank(insert(key, entry.id()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds delta to the weight of the entry if it is indexed.
+     */
+    public void addWeight(long id, long delta) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                put(new Entry(id, entry.text(), entry.weight() + delta));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the heaviest entries having a word starting with the words of the prefix.
+     *
+     * @param prefix typed text, normalized the same way as indexed texts.
+     * @param limit  maximum number of entries, capped by the capacity of the trie.
+     * @return matching entries ordered by weight.
+     */
+    public List<Entry> suggest(String prefix, int limit) {
+        final String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int position = 0;
+            while (position < key.length()) {
+                Node child = node.children.get(key.charAt(position));
+                if (child == null) {
+                    return List.of();
+                }
+                final int common = commonPrefixLength(child.label, key, position);
+                // Prefix ends within the edge, so every key below the child matches it.
+                if (position + common == key.length()) {
+                    node = child;
+                    break;
+                }
+                if (common < child.label.length()) {
+                    return List.of();
+                }
+                position += common;
+                node = child;
+            }
+            return node.top.size() <= limit ? node.top : node.top.subList(0, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<Entry> get(long id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(entries.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeEntry(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String key : keys(entry.text())) {
+            List<Node> path = find(key);
+            if (path != null) {
+                path.getLast().ids.remove(id);
+                prune(path);
+                rank(path);
+            }
+        }
+    }
+
+    /**
+     * Inserts the key, splitting the edge where the key diverges from it.
+     *
+     * @return nodes from the root to the node of the key.
+     */
+    private List<Node> insert(String key, long id) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            final char first = key.charAt(position);
+            Node child = node.children.get(first);
+            if (child == null) {
+                child = new Node(key.substring(position));
+                node.children.put(first, child);
+                position = key.length();
+            } else {
+                final int common = commonPrefixLength(child.label, key, position);
+                if (common < child.label.length()) {
+                    Node split = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    split.children.put(child.label.charAt(0), child);
+                    split.top = child.top;
+                    node.children.put(first, split);
+                    child = split;
+                }
+                position += common;
+            }
+            node = child;
+            path.add(node);
+        }
+        node.ids.add(id);
+        return path;
+    }
+
+    /**
+     * @return nodes from the root to the node of the key or null if the key is not indexed.
+     */
+    private List<Node> find(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int position = 0;
+        while (position < key.length()) {
+            node = node.children.get(key.charAt(position));
+            if (node == null || !key.startsWith(node.label, position)) {
+                return null;
+            }
+            position += node.label.length();
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * Detaches empty leaves at the end of the path. Edges are not merged back, a later insert reuses them.
+     */
+    private void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            if (!node.ids.isEmpty() || !node.children.isEmpty()) {
+                return;
+            }
+            path.get(i - 1).children.remove(node.label.charAt(0));
+            path.remove(i);
+        }
+    }
+
+    /**
+     * Recomputes the best entries of every node on the path, starting from the deepest one.
+     */
+    private void rank(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            // Texts are indexed from every word, so the same entry may be reached through several children.
+            Map<Long, Entry> candidates = new HashMap<>();
+            node.ids.forEach(id -> candidates.put(id, entries.get(id)));
+            node.children.values().forEach(child -> child.top.forEach(entry -> candidates.put(entry.id(), entry)));
+            node.top = candidates.values().stream().sorted(RANKING).limit(capacity).toList();
+        }
+    }
+
+    private static int commonPrefixLength(String label, String key, int offset) {
+        final int length = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns keys of the text, one per word, each running from the word to the end of the text.
+     */
+    static Set<String> keys(String text) {
+        final String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            keys.add(normalized.substring(i + 1));
+        }
+        return keys;
+    }
+
+    static String normalize(String text) {
+        final String withoutDiacritics = DIACRITICS
+                .matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("");
+        return SEPARATORS.matcher(withoutDiacritics.toLowerCase(Locale.ROOT)).replaceAll(" ").strip();
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private final Set<Long> ids = new HashSet<>(2);
+        // Label of the edge leading to this node.
+        private String label;
+        private List<Entry> top = List.of();
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+}
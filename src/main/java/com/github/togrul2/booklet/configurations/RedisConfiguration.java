@@ -0,0 +1,32 @@
+package com.github.togrul2.booklet.configurations;
+
+import com.github.togrul2.booklet.services.TokenDenylistService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis configuration class.
+ * Contains pub/sub listeners used to keep node local state in sync. Can be disabled together with token denylist
+ * sync, e.g. when Redis is not available.
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.security.jwt.denylist.sync-enabled", matchIfMissing = true)
+public class RedisConfiguration {
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            TokenDenylistService tokenDenylistService
+    ) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(tokenDenylistService, new ChannelTopic(TokenDenylistService.CHANNEL));
+        return container;
+    }
+}
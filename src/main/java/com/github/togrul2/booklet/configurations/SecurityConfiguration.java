@@ -7,14 +7,15 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.config.authentication.CachingUserDetailsService;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.data.repository.query.SecurityEvaluationContextExtension;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -56,12 +57,21 @@ public class SecurityConfiguration {
     private List<String> corsAllowedHeaders;
     @Value("${spring.security.cors.allowed-origin-patterns:*}")
     private List<String> corsAllowedOriginPatterns;
+    // Bcrypt cost, stored hashes with a different cost are rehashed on next login.
+    @Value("${spring.security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
 
+    /**
+     * Loads users by email. Loaded users are cached, so login and refresh of the same user do not query database
+     * every time. Services changing users remove them from the cache.
+     */
     @Bean
-    UserDetailsService userDetailsService(UserRepository userRepository) {
-        return email -> userRepository
+    UserDetailsService userDetailsService(UserRepository userRepository, UserCache userCache) {
+        CachingUserDetailsService userDetailsService = new CachingUserDetailsService(email -> userRepository
                 .findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+                .orElseThrow(() -> new UsernameNotFoundException("User not found")));
+        userDetailsService.setUserCache(userCache);
+        return userDetailsService;
     }
 
     @Bean
@@ -94,12 +104,7 @@ public class SecurityConfiguration {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
-
-    @Bean
-    public SecurityEvaluationContextExtension securityEvaluationContextExtension() {
-        return new SecurityEvaluationContextExtension();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 }
 
@@ -3,6 +3,7 @@ package com.github.togrul2.booklet.controllers;
 import com.github.togrul2.booklet.annotations.ApiErrorResponses;
 import com.github.togrul2.booklet.dtos.auth.LoginDto;
 import com.github.togrul2.booklet.dtos.auth.RefreshRequestDto;
+import com.github.togrul2.booklet.dtos.auth.RevokeRequestDto;
 import com.github.togrul2.booklet.dtos.auth.TokenPairDto;
 import com.github.togrul2.booklet.services.AuthService;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,6 +13,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -66,4 +68,28 @@ public class AuthController {
     public void logout(@RequestBody @Valid RefreshRequestDto refreshRequestDto) {
         authService.logout(refreshRequestDto);
     }
+
+    @PostMapping("/revoke")
+    @ApiResponse(
+            responseCode = "200", description = "Ok", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+    )
+    public void revoke(@RequestBody @Valid RevokeRequestDto revokeRequestDto) {
+        authService.revoke(revokeRequestDto);
+    }
+
+    @PostMapping("/logout-all")
+    @ApiResponse(
+            responseCode = "200", description = "Ok", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+    )
+    public void logoutAll(@RequestBody @Valid RefreshRequestDto refreshRequestDto) {
+        authService.logoutAll(refreshRequestDto);
+    }
+
+    @PostMapping("/logout-all/{userId}")
+    @ApiResponse(
+            responseCode = "200", description = "Ok", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+    )
+    public void logoutAll(@PathVariable long userId) {
+        authService.logoutAll(userId);
+    }
 }
@@ -1,8 +1,13 @@
 package com.github.togrul2.booklet.controllers;
 
 import com.github.togrul2.booklet.annotations.ApiErrorResponses;
+import com.github.togrul2.booklet.dtos.CountMode;
+import com.github.togrul2.booklet.dtos.CursorPageDto;
 import com.github.togrul2.booklet.dtos.author.*;
+import com.github.togrul2.booklet.dtos.imports.ImportResultDto;
+import com.github.togrul2.booklet.imports.ImportFormat;
 import com.github.togrul2.booklet.services.AuthorService;
+import com.github.togrul2.booklet.services.ImportService;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -14,14 +19,17 @@ import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 
 @RestController
@@ -31,12 +39,28 @@ import java.net.URI;
 @RequestMapping("/api/v1/authors")
 public class AuthorController {
     private final AuthorService authorService;
+    private final ImportService importService;
 
     @GetMapping
     @ApiResponse(responseCode = "200", description = "Ok")
-    @Cacheable(cacheNames = "authors", key = "#pageable + ';' + #filterDto")
-    public Page<AuthorDto> findAll(@ParameterObject Pageable pageable, @ParameterObject AuthorFilterDto filterDto) {
-        return authorService.findAll(pageable, filterDto);
+    @Cacheable(cacheNames = "authors", key = "#pageable + ';' + #filterDto + ';' + #count")
+    public Slice<AuthorDto> findAll(
+            @ParameterObject Pageable pageable,
+            @ParameterObject AuthorFilterDto filterDto,
+            @RequestParam(defaultValue = "EXACT") CountMode count
+    ) {
+        return authorService.findAll(pageable, filterDto, count);
+    }
+
+    @GetMapping(params = "cursor")
+    // Deep pages are rarely requested twice, so cursor pages are not cached.
+    @ApiResponse(responseCode = "200", description = "Ok")
+    public CursorPageDto<AuthorDto> findAllByCursor(
+            @RequestParam String cursor,
+            @ParameterObject Pageable pageable,
+            @ParameterObject AuthorFilterDto filterDto
+    ) {
+        return authorService.findAllByCursor(cursor, pageable, filterDto);
     }
 
     @GetMapping("/{id}")
@@ -63,6 +87,26 @@ public class AuthorController {
         return ResponseEntity.created(uri).build();
     }
 
+    /**
+     * Imports authors in bulk, see {@link ImportService}. Body is streamed, rows are not kept in memory.
+     */
+    @PostMapping(value = "/import", consumes = {ImportFormat.CSV_MEDIA_TYPE, MediaType.APPLICATION_NDJSON_VALUE})
+    @CacheEvict(cacheNames = "authors", allEntries = true)
+    @ApiResponse(
+            responseCode = "200",
+            description = "Ok",
+            content = @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = ImportResultDto.class)
+            )
+    )
+    public ImportResultDto importAuthors(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body
+    ) throws IOException {
+        return importService.importAuthors(body, ImportFormat.of(contentType));
+    }
+
     @PutMapping("/{id}")
     @ApiResponse(
             responseCode = "200",
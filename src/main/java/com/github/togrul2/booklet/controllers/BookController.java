@@ -1,8 +1,17 @@
 package com.github.togrul2.booklet.controllers;
 
 import com.github.togrul2.booklet.annotations.ApiErrorResponses;
+import com.github.togrul2.booklet.dtos.CountMode;
+import com.github.togrul2.booklet.dtos.CursorPageDto;
 import com.github.togrul2.booklet.dtos.book.*;
+import com.github.togrul2.booklet.dtos.imports.ImportResultDto;
+import com.github.togrul2.booklet.dtos.waitlist.WaitlistEntryDto;
+import com.github.togrul2.booklet.dtos.waitlist.WaitlistRequestDto;
+import com.github.togrul2.booklet.imports.ImportFormat;
+import com.github.togrul2.booklet.security.AuthenticatedUser;
 import com.github.togrul2.booklet.services.BookService;
+import com.github.togrul2.booklet.services.ImportService;
+import com.github.togrul2.booklet.services.WaitlistService;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -14,15 +23,22 @@ import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.time.LocalDateTime;
 
 @RestController
 @ApiErrorResponses
@@ -31,12 +47,34 @@ import java.net.URI;
 @RequestMapping("/api/v1/books")
 public class BookController {
     private final BookService bookService;
+    private final WaitlistService waitlistService;
+    private final ImportService importService;
 
     @GetMapping
-    @Cacheable(cacheNames = "books", key = "#pageable + ';' + #filterDto")
+    // Results filtered by availability change with every reservation, so they are not cached.
+    @Cacheable(
+            cacheNames = "books",
+            key = "#pageable + ';' + #filterDto + ';' + #count",
+            condition = "#filterDto.availableFrom() == null && #filterDto.availableTo() == null"
+    )
+    @ApiResponse(responseCode = "200", description = "Ok")
+    public Slice<BookDto> getBooks(
+            @ParameterObject Pageable pageable,
+            @ParameterObject @Valid BookFilterDto filterDto,
+            @RequestParam(defaultValue = "EXACT") CountMode count
+    ) {
+        return bookService.findAll(pageable, filterDto, count);
+    }
+
+    @GetMapping(params = "cursor")
+    // Deep pages are rarely requested twice, so cursor pages are not cached.
     @ApiResponse(responseCode = "200", description = "Ok")
-    public Page<BookDto> getBooks(@ParameterObject Pageable pageable, @ParameterObject @Valid BookFilterDto filterDto) {
-        return bookService.findAll(pageable, filterDto);
+    public CursorPageDto<BookDto> getBooksByCursor(
+            @RequestParam String cursor,
+            @ParameterObject Pageable pageable,
+            @ParameterObject @Valid BookFilterDto filterDto
+    ) {
+        return bookService.findAllByCursor(cursor, pageable, filterDto);
     }
 
     @GetMapping("/{id}")
@@ -46,6 +84,40 @@ public class BookController {
         return bookService.findById(id);
     }
 
+    /**
+     * Returns free windows of the book. Responses are built from upcoming reservations cached per book in
+     * {@value BookService#AVAILABILITY_CACHE}, which is evicted on every reservation write to the book.
+     */
+    @GetMapping("/{id}/availability")
+    @ApiResponse(responseCode = "200", description = "Ok")
+    public BookAvailabilityDto getAvailability(
+            @PathVariable long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        return bookService.findAvailability(id, from, to);
+    }
+
+    @PostMapping("/{id}/waitlist")
+    @ResponseStatus(HttpStatus.CREATED)
+    @ApiResponse(responseCode = "201", description = "Created")
+    public WaitlistEntryDto joinWaitlist(
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @PathVariable long id,
+            @RequestBody @Valid WaitlistRequestDto requestBody
+    ) {
+        return waitlistService.join(currentUser, id, requestBody);
+    }
+
+    @DeleteMapping("/{id}/waitlist")
+    @ApiResponse(responseCode = "204", description = "No content")
+    public ResponseEntity<Void> leaveWaitlist(
+            @AuthenticationPrincipal AuthenticatedUser currentUser, @PathVariable long id
+    ) {
+        waitlistService.leave(currentUser, id);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping
     @CacheEvict(cacheNames = "books", allEntries = true)
     @ApiResponse(
@@ -62,6 +134,26 @@ public class BookController {
         return ResponseEntity.created(uri).build();
     }
 
+    /**
+     * Imports books in bulk, see {@link ImportService}. Body is streamed, rows are not kept in memory.
+     */
+    @PostMapping(value = "/import", consumes = {ImportFormat.CSV_MEDIA_TYPE, MediaType.APPLICATION_NDJSON_VALUE})
+    @CacheEvict(cacheNames = "books", allEntries = true)
+    @ApiResponse(
+            responseCode = "200",
+            description = "Ok",
+            content = @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = ImportResultDto.class)
+            )
+    )
+    public ImportResultDto importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body
+    ) throws IOException {
+        return importService.importBooks(body, ImportFormat.of(contentType));
+    }
+
     @PutMapping("/{id}")
     @Caching(
             put = @CachePut(cacheNames = "book", key = "#id"),
@@ -0,0 +1,59 @@
+package com.github.togrul2.booklet.controllers;
+
+import com.github.togrul2.booklet.annotations.ApiErrorResponses;
+import com.github.togrul2.booklet.exports.ExportFormat;
+import com.github.togrul2.booklet.services.ExportService;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Streams whole tables for admins instead of paging through list endpoints. Rows are written to the response as they
+ * are read, responses are not cached.
+ */
+@RestController
+@ApiErrorResponses
+@AllArgsConstructor
+@Tag(name = "Export")
+@RequestMapping("/api/v1/export")
+public class ExportController {
+    private final ExportService exportService;
+
+    @GetMapping("/books")
+    @ApiResponse(responseCode = "200", description = "Ok")
+    public void exportBooks(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            HttpServletResponse response
+    ) throws IOException {
+        prepare(response, format, "books");
+        exportService.exportBooks(response.getOutputStream(), format);
+    }
+
+    @GetMapping("/reservations")
+    @ApiResponse(responseCode = "200", description = "Ok")
+    public void exportReservations(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            HttpServletResponse response
+    ) throws IOException {
+        prepare(response, format, "reservations");
+        exportService.exportReservations(response.getOutputStream(), format);
+    }
+
+    private static void prepare(HttpServletResponse response, ExportFormat format, String name) {
+        response.setContentType(format.getMediaType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(name + "." + format.getFileExtension()).build().toString()
+        );
+    }
+}
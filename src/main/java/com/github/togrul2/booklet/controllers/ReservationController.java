@@ -1,27 +1,27 @@
 package com.github.togrul2.booklet.controllers;
 
 import com.github.togrul2.booklet.annotations.ApiErrorResponses;
-import com.github.togrul2.booklet.dtos.reservation.CreateReservation;
-import com.github.togrul2.booklet.dtos.reservation.ReservationDto;
-import com.github.togrul2.booklet.dtos.reservation.ReservationRequestDto;
-import com.github.togrul2.booklet.dtos.reservation.UpdateReservation;
+import com.github.togrul2.booklet.dtos.CountMode;
+import com.github.togrul2.booklet.dtos.CursorPageDto;
+import com.github.togrul2.booklet.dtos.reservation.*;
+import com.github.togrul2.booklet.security.AuthenticatedUser;
 import com.github.togrul2.booklet.services.ReservationService;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -37,41 +37,68 @@ public class ReservationController {
     private final ReservationService reservationService;
 
     @GetMapping
-    @Cacheable(value = "reservations", key = "#pageable")
+    // Statuses move forward with time, see ReservationLifecycleService, so pages are not cached.
     @ApiResponse(responseCode = "200", description = "Ok")
-    public Page<ReservationDto> findAll(@ParameterObject Pageable pageable) {
-        return reservationService.findAll(pageable);
+    public Slice<ReservationDto> findAll(
+            @ParameterObject Pageable pageable,
+            @ParameterObject @Valid ReservationFilterDto filterDto,
+            @RequestParam(defaultValue = "EXACT") CountMode count
+    ) {
+        return reservationService.findAll(pageable, filterDto, count);
+    }
+
+    @GetMapping(params = "cursor")
+    // Deep pages are rarely requested twice, so cursor pages are not cached.
+    @ApiResponse(responseCode = "200", description = "Ok")
+    public CursorPageDto<ReservationDto> findAllByCursor(
+            @RequestParam String cursor,
+            @ParameterObject Pageable pageable,
+            @ParameterObject @Valid ReservationFilterDto filterDto
+    ) {
+        return reservationService.findAllByCursor(cursor, pageable, filterDto);
     }
 
     @PostMapping
-    @CacheEvict(value = {"reservations", "authUserReservations"}, allEntries = true)
     @ApiResponse(responseCode = "201", description = "Created")
     public ResponseEntity<Void> create(
             @RequestBody @Validated(CreateReservation.class) ReservationRequestDto requestBody,
-            @AuthenticationPrincipal UserDetails userDetails
+            @AuthenticationPrincipal AuthenticatedUser currentUser
     ) {
-        ReservationDto reservationDto = reservationService.reserveBook(userDetails, requestBody);
+        long reservationId = reservationService.reserveBook(currentUser, requestBody);
         URI uri = ServletUriComponentsBuilder.fromCurrentRequest()
                 .path("/reservations/{id}")
-                .buildAndExpand(reservationDto.id())
+                .buildAndExpand(reservationId)
                 .toUri();
         return ResponseEntity.created(uri).build();
     }
 
+    @PostMapping("/batch")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Ok",
+            content = @Content(
+                    mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(implementation = BatchReservationResultDto.class)
+            )
+    )
+    public BatchReservationResultDto createBatch(
+            @RequestBody @Validated(CreateReservation.class) BatchReservationRequestDto requestBody,
+            @AuthenticationPrincipal AuthenticatedUser currentUser
+    ) {
+        return reservationService.reserveBooks(currentUser, requestBody);
+    }
+
     @GetMapping("/{id}")
-    @Cacheable(value = "reservation", key = "#id")
+    @Cacheable(value = "reservation", key = "#id", condition = "#currentUser?.admin == true")
     @ApiResponse(responseCode = "200", description = "Ok")
-    public ReservationDto findById(@PathVariable long id) {
-        return reservationService.findById(id);
+    public ReservationDto findById(@AuthenticationPrincipal AuthenticatedUser currentUser, @PathVariable long id) {
+        return reservationService.findById(currentUser, id);
     }
 
     @PutMapping("/{id}")
     @Caching(
             put = @CachePut(value = "reservation", key = "#id"),
-            evict = @CacheEvict(
-                    value = {"reservations", "authUserReservations", "authUserReservation"},
-                    allEntries = true
-            )
+            evict = @CacheEvict(value = "authUserReservation", allEntries = true)
     )
     @ApiResponse(
             responseCode = "200",
@@ -92,10 +119,7 @@ public class ReservationController {
     )
     @Caching(
             put = @CachePut(value = "reservation", key = "#id"),
-            evict = @CacheEvict(
-                    value = {"reservations", "authUserReservations", "authUserReservation"},
-                    allEntries = true
-            )
+            evict = @CacheEvict(value = "authUserReservation", allEntries = true)
     )
     public ReservationDto update(
             @PathVariable long id, @RequestBody @Validated(UpdateReservation.class) ReservationRequestDto requestBody
@@ -108,10 +132,7 @@ public class ReservationController {
     @Caching(
             evict = {
                     @CacheEvict(value = "reservation", key = "#id"),
-                    @CacheEvict(
-                            value = {"reservations", "authUserReservations", "authUserReservation"},
-                            allEntries = true
-                    )
+                    @CacheEvict(value = "authUserReservation", allEntries = true)
             }
     )
     public ResponseEntity<Void> delete(@PathVariable long id) {
@@ -121,7 +142,7 @@ public class ReservationController {
 
     @PostMapping("/{id}/cancel")
     @ApiResponse(description = "Ok", responseCode = "200")
-    public void cancelReservation(@PathVariable long id) {
-        reservationService.cancelReservation(id);
+    public void cancelReservation(@AuthenticationPrincipal AuthenticatedUser currentUser, @PathVariable long id) {
+        reservationService.cancelReservation(currentUser, id);
     }
 }
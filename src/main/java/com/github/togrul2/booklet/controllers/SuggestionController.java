@@ -0,0 +1,30 @@
+package com.github.togrul2.booklet.controllers;
+
+import com.github.togrul2.booklet.annotations.ApiErrorResponses;
+import com.github.togrul2.booklet.dtos.suggestion.SuggestionDto;
+import com.github.togrul2.booklet.services.SuggestionService;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@ApiErrorResponses
+@AllArgsConstructor
+@Tag(name = "Suggestions")
+@RequestMapping("/api/v1/suggest")
+public class SuggestionController {
+    private final SuggestionService suggestionService;
+
+    @GetMapping
+    // Answered from memory, so it is not cached.
+    @ApiResponse(responseCode = "200", description = "Ok")
+    public List<SuggestionDto> suggest(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return suggestionService.suggest(q, limit);
+    }
+}
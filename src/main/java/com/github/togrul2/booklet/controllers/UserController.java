@@ -1,9 +1,12 @@
 package com.github.togrul2.booklet.controllers;
 
 import com.github.togrul2.booklet.annotations.ApiErrorResponses;
+import com.github.togrul2.booklet.dtos.CountMode;
+import com.github.togrul2.booklet.dtos.CursorPageDto;
 import com.github.togrul2.booklet.dtos.auth.TokenPairDto;
 import com.github.togrul2.booklet.dtos.reservation.ReservationDto;
 import com.github.togrul2.booklet.dtos.user.*;
+import com.github.togrul2.booklet.security.AuthenticatedUser;
 import com.github.togrul2.booklet.services.AuthService;
 import com.github.togrul2.booklet.services.ReservationService;
 import com.github.togrul2.booklet.services.UserService;
@@ -20,8 +23,10 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
@@ -40,9 +45,24 @@ public class UserController {
 
     @GetMapping
     @ApiResponse(responseCode = "200", description = "Ok")
-    @Cacheable(value = "users", key = "#pageable + ';' + #filterDto")
-    public Page<UserDto> getAll(@ParameterObject Pageable pageable, @ParameterObject UserFilterDto filterDto) {
-        return userService.findAll(pageable, filterDto);
+    @Cacheable(value = "users", key = "#pageable + ';' + #filterDto + ';' + #count")
+    public Slice<UserDto> getAll(
+            @ParameterObject Pageable pageable,
+            @ParameterObject UserFilterDto filterDto,
+            @RequestParam(defaultValue = "EXACT") CountMode count
+    ) {
+        return userService.findAll(pageable, filterDto, count);
+    }
+
+    @GetMapping(params = "cursor")
+    // Deep pages are rarely requested twice, so cursor pages are not cached.
+    @ApiResponse(responseCode = "200", description = "Ok")
+    public CursorPageDto<UserDto> getAllByCursor(
+            @RequestParam String cursor,
+            @ParameterObject Pageable pageable,
+            @ParameterObject UserFilterDto filterDto
+    ) {
+        return userService.findAllByCursor(cursor, pageable, filterDto);
     }
 
     @PostMapping
@@ -66,10 +86,10 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    @Cacheable(value = "user", key = "#id")
+    @Cacheable(value = "user", key = "#id", condition = "#currentUser?.admin == true")
     @ApiResponse(responseCode = "200", description = "Ok")
-    public UserDto getById(@PathVariable long id) {
-        return userService.findById(id);
+    public UserDto getById(@AuthenticationPrincipal AuthenticatedUser currentUser, @PathVariable long id) {
+        return userService.findById(currentUser, id);
     }
 
     @PatchMapping("/{id}")
@@ -85,9 +105,11 @@ public class UserController {
             evict = @CacheEvict(value = {"users", "authUser"}, allEntries = true)
     )
     public UserDto update(
-            @PathVariable long id, @RequestBody @Validated(UpdateUser.class) UpdateUserDto updateUserDto
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @PathVariable long id,
+            @RequestBody @Validated(UpdateUser.class) UpdateUserDto updateUserDto
     ) {
-        return userService.update(id, updateUserDto);
+        return userService.update(currentUser, id, updateUserDto);
     }
 
     @PutMapping("/{id}")
@@ -103,9 +125,11 @@ public class UserController {
             )
     )
     public UserDto replace(
-            @PathVariable long id, @RequestBody @Validated(CreateUser.class) UpdateUserDto updateUserDto
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @PathVariable long id,
+            @RequestBody @Validated(CreateUser.class) UpdateUserDto updateUserDto
     ) {
-        return userService.update(id, updateUserDto);
+        return userService.update(currentUser, id, updateUserDto);
     }
 
     @DeleteMapping("/{id}")
@@ -116,16 +140,16 @@ public class UserController {
             }
     )
     @ApiResponse(responseCode = "204", description = "User deleted")
-    public ResponseEntity<Void> delete(@PathVariable long id) {
-        userService.delete(id);
+    public ResponseEntity<Void> delete(@AuthenticationPrincipal AuthenticatedUser currentUser, @PathVariable long id) {
+        userService.delete(currentUser, id);
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/me")
     @ApiResponse(responseCode = "200", description = "Ok")
     @Cacheable(value = "authUser", key = "#principal?.username", condition = "#principal?.username != null")
-    public UserDto getAuthUser() {
-        return userService.findAuthUser();
+    public UserDto getAuthUser(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        return userService.findAuthUser(currentUser);
     }
 
     @PutMapping("/me")
@@ -142,8 +166,11 @@ public class UserController {
             ),
             evict = @CacheEvict(value = {"users", "user"}, allEntries = true)
     )
-    public UserDto replaceAuthUser(@RequestBody @Validated(CreateUser.class) UpdateUserDto updateUserDto) {
-        return userService.updateAuthUser(updateUserDto);
+    public UserDto replaceAuthUser(
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @RequestBody @Validated(CreateUser.class) UpdateUserDto updateUserDto
+    ) {
+        return userService.updateAuthUser(currentUser, updateUserDto);
     }
 
     @PatchMapping("/me")
@@ -160,8 +187,11 @@ public class UserController {
             ),
             evict = @CacheEvict(value = {"users", "user"}, allEntries = true)
     )
-    public UserDto updateAuthUser(@RequestBody @Validated(UpdateUser.class) UpdateUserDto updateUserDto) {
-        return userService.updateAuthUser(updateUserDto);
+    public UserDto updateAuthUser(
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @RequestBody @Validated(UpdateUser.class) UpdateUserDto updateUserDto
+    ) {
+        return userService.updateAuthUser(currentUser, updateUserDto);
     }
 
     @DeleteMapping("/me")
@@ -176,30 +206,40 @@ public class UserController {
                     )
             }
     )
-    public ResponseEntity<Void> deleteAuthUser() {
-        userService.deleteAuthUser();
+    public ResponseEntity<Void> deleteAuthUser(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        userService.deleteAuthUser(currentUser);
         return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/me/reservations")
+    // Statuses move forward with time, see ReservationLifecycleService, so pages are not cached.
     @ApiResponse(responseCode = "200", description = "Ok")
-    @Cacheable(
-            value = "authUserReservations",
-            key = "#principal?.username + ';' + #pageable",
-            condition = "#principal?.username != null"
-    )
-    public Page<ReservationDto> getAuthUserReservations(@ParameterObject Pageable pageable) {
-        return reservationService.findAllForAuthUser(pageable);
+    public Page<ReservationDto> getAuthUserReservations(
+            @AuthenticationPrincipal AuthenticatedUser currentUser, @ParameterObject Pageable pageable
+    ) {
+        return reservationService.findAllForAuthUser(currentUser, pageable);
+    }
+
+    @GetMapping(value = "/me/reservations", params = "cursor")
+    @ApiResponse(responseCode = "200", description = "Ok")
+    public CursorPageDto<ReservationDto> getAuthUserReservationsByCursor(
+            @AuthenticationPrincipal AuthenticatedUser currentUser,
+            @RequestParam String cursor,
+            @ParameterObject Pageable pageable
+    ) {
+        return reservationService.findAllForAuthUserByCursor(currentUser, cursor, pageable);
     }
 
     @GetMapping("/me/reservations/{id}")
     @ApiResponse(responseCode = "200", description = "Ok")
     @Cacheable(
             value = "authUserReservation",
-            key = "#principal?.username + ';' + #id",
-            condition = "#principal.username != null"
+            key = "#currentUser.id + ';' + #id",
+            condition = "#currentUser != null"
     )
-    public ReservationDto findReservationForAuthUserById(@PathVariable long id) {
-        return reservationService.findByIdForAuthUser(id);
+    public ReservationDto findReservationForAuthUserById(
+            @AuthenticationPrincipal AuthenticatedUser currentUser, @PathVariable long id
+    ) {
+        return reservationService.findByIdForAuthUser(currentUser, id);
     }
 }
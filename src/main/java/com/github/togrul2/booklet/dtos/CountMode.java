@@ -0,0 +1,19 @@
+package com.github.togrul2.booklet.dtos;
+
+/**
+ * How list endpoints in offset mode count the total number of elements.
+ */
+public enum CountMode {
+    /**
+     * Counts matching rows with a separate query on every request.
+     */
+    EXACT,
+    /**
+     * Uses planner statistics of the table if nothing is filtered, otherwise a recently cached exact count.
+     */
+    ESTIMATE,
+    /**
+     * Does not count, the response only tells whether there is a next page.
+     */
+    NONE
+}
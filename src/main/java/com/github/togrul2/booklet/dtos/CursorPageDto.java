@@ -0,0 +1,17 @@
+package com.github.togrul2.booklet.dtos;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page of a list endpoint in cursor mode.
+ *
+ * @param content    items of the page.
+ * @param nextCursor opaque cursor of the next page, null if this is the last page.
+ */
+public record CursorPageDto<T>(List<T> content, String nextCursor) implements Serializable {
+    public <R> CursorPageDto<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPageDto<>(content.stream().<R>map(mapper).toList(), nextCursor);
+    }
+}
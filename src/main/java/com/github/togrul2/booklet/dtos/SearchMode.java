@@ -0,0 +1,15 @@
+package com.github.togrul2.booklet.dtos;
+
+/**
+ * Mode of the free text search of list endpoints.
+ */
+public enum SearchMode {
+    /**
+     * Matches whole words with Postgres full-text search, results are ranked by {@code ts_rank}.
+     */
+    WORDS,
+    /**
+     * Matches similar words with {@code pg_trgm}, tolerating typos, results are ranked by word similarity.
+     */
+    FUZZY
+}
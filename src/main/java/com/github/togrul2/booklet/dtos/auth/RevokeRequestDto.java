@@ -0,0 +1,7 @@
+package com.github.togrul2.booklet.dtos.auth;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public record RevokeRequestDto(@NotNull @NotBlank String token) {
+}
@@ -1,5 +1,6 @@
 package com.github.togrul2.booklet.dtos.author;
 
+import com.github.togrul2.booklet.dtos.SearchMode;
 import lombok.Builder;
 
 import java.io.Serializable;
@@ -9,6 +10,9 @@ import java.time.LocalDate;
 public record AuthorFilterDto(
         String name,
         String surname,
+        // Free text search, ranked by relevance unless sorted otherwise.
+        String search,
+        SearchMode searchMode,
         LocalDate minBirthDate,
         LocalDate maxBirthDate,
         LocalDate minDeathDate,
@@ -0,0 +1,13 @@
+package com.github.togrul2.booklet.dtos.book;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record BookAvailabilityDto(
+        long bookId,
+        LocalDateTime from,
+        LocalDateTime to,
+        List<FreeWindowDto> freeWindows
+) implements Serializable {
+}
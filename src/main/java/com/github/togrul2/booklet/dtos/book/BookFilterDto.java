@@ -1,19 +1,29 @@
 package com.github.togrul2.booklet.dtos.book;
 
+import com.github.togrul2.booklet.dtos.SearchMode;
 import jakarta.validation.constraints.Positive;
 import lombok.Builder;
+import org.springframework.format.annotation.DateTimeFormat;
 
 import java.io.Serializable;
+import java.time.LocalDate;
 
 @Builder
 public record BookFilterDto(
         String title,
+        // Free text search, ranked by relevance unless sorted otherwise.
+        String search,
+        SearchMode searchMode,
         @Positive
         Long authorId,
         @Positive
         Long genreId,
         String isbn,
         Integer minYear,
-        Integer maxYear
+        Integer maxYear,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate availableFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate availableTo
 ) implements Serializable {
 }
@@ -0,0 +1,30 @@
+package com.github.togrul2.booklet.dtos.book;
+
+import com.github.togrul2.booklet.entities.Book;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+import org.hibernate.validator.constraints.Length;
+
+/**
+ * Book of a bulk import. Feeds do not know ids of this catalog, so the author is referenced by name and the genre by
+ * slug.
+ */
+@Builder
+public record BookImportRowDto(
+        @NotBlank
+        @Length(max = Book.TITLE_MAX_LENGTH)
+        String title,
+        @NotBlank
+        @Length(min = Book.ISBN_MIN_LENGTH, max = Book.ISBN_MAX_LENGTH)
+        String isbn,
+        @NotNull
+        Integer year,
+        @NotBlank
+        String authorName,
+        @NotBlank
+        String authorSurname,
+        @NotBlank
+        String genre
+) {
+}
@@ -0,0 +1,7 @@
+package com.github.togrul2.booklet.dtos.book;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+public record FreeWindowDto(LocalDateTime start, LocalDateTime end) implements Serializable {
+}
@@ -0,0 +1,10 @@
+package com.github.togrul2.booklet.dtos.imports;
+
+/**
+ * Row of a bulk import which was not imported.
+ *
+ * @param line  line of the input the row starts on, counting from 1.
+ * @param error reason the row was rejected.
+ */
+public record ImportErrorDto(long line, String error) {
+}
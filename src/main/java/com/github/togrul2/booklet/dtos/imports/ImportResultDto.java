@@ -0,0 +1,13 @@
+package com.github.togrul2.booklet.dtos.imports;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import.
+ *
+ * @param imported number of imported rows.
+ * @param rejected number of rejected rows.
+ * @param errors   rejected rows, up to {@code booklet.import.max-errors} of them.
+ */
+public record ImportResultDto(long imported, long rejected, List<ImportErrorDto> errors) {
+}
@@ -0,0 +1,11 @@
+package com.github.togrul2.booklet.dtos.reservation;
+
+/**
+ * Outcome of a single reservation of a batch, either the id of the created reservation or the error.
+ *
+ * @param index         position of the reservation in the request.
+ * @param reservationId id of the created reservation, null if it was not created.
+ * @param error         reason the reservation was rejected, null if it was created.
+ */
+public record BatchReservationItemDto(int index, Long reservationId, String error) {
+}
@@ -0,0 +1,15 @@
+package com.github.togrul2.booklet.dtos.reservation;
+
+/**
+ * How a batch of reservations is handled when some of them are invalid.
+ */
+public enum BatchReservationMode {
+    /**
+     * Nothing is reserved if any reservation of the batch is invalid.
+     */
+    ALL_OR_NOTHING,
+    /**
+     * Valid reservations are created, invalid ones are reported.
+     */
+    PARTIAL
+}
@@ -0,0 +1,15 @@
+package com.github.togrul2.booklet.dtos.reservation;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchReservationRequestDto(
+        @NotEmpty(groups = CreateReservation.class)
+        @Size(max = 100, groups = CreateReservation.class)
+        List<@Valid ReservationRequestDto> reservations,
+        BatchReservationMode mode
+) {
+}
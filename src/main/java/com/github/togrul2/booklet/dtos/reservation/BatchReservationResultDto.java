@@ -0,0 +1,6 @@
+package com.github.togrul2.booklet.dtos.reservation;
+
+import java.util.List;
+
+public record BatchReservationResultDto(int created, int rejected, List<BatchReservationItemDto> items) {
+}
@@ -2,6 +2,7 @@ package com.github.togrul2.booklet.dtos.reservation;
 
 import com.github.togrul2.booklet.dtos.book.BookDto;
 import com.github.togrul2.booklet.dtos.user.UserDto;
+import com.github.togrul2.booklet.entities.ReservationStatus;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -11,6 +12,7 @@ public record ReservationDto(
         UserDto user,
         BookDto book,
         LocalDateTime startDate,
-        LocalDateTime endDate
+        LocalDateTime endDate,
+        ReservationStatus status
 ) implements Serializable {
 }
@@ -0,0 +1,28 @@
+package com.github.togrul2.booklet.dtos.reservation;
+
+import com.github.togrul2.booklet.entities.ReservationStatus;
+import jakarta.validation.constraints.Positive;
+import lombok.Builder;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Filter of reservations. Reservations overlapping {@code [from, to)} are matched, either bound may be omitted.
+ */
+@Builder
+public record ReservationFilterDto(
+        ReservationStatus status,
+        @Positive
+        Long bookId,
+        @Positive
+        Long userId,
+        @Positive
+        Long genreId,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        LocalDateTime from,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        LocalDateTime to
+) implements Serializable {
+}
@@ -0,0 +1,12 @@
+package com.github.togrul2.booklet.dtos.reservation;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+public record ReservationIntervalDto(
+        long id,
+        long bookId,
+        LocalDateTime startDate,
+        LocalDateTime endDate
+) implements Serializable {
+}
@@ -0,0 +1,11 @@
+package com.github.togrul2.booklet.dtos.suggestion;
+
+/**
+ * Author as indexed for suggestions.
+ *
+ * @param id      id of the author.
+ * @param name    name of the author.
+ * @param surname surname of the author.
+ */
+public record AuthorSuggestionSourceDto(long id, String name, String surname) {
+}
@@ -0,0 +1,12 @@
+package com.github.togrul2.booklet.dtos.suggestion;
+
+/**
+ * Book as indexed for suggestions.
+ *
+ * @param id           id of the book.
+ * @param title        title of the book.
+ * @param authorId     id of the author, null if the book has none.
+ * @param reservations number of reservations of the book which were not cancelled.
+ */
+public record BookSuggestionSourceDto(long id, String title, Long authorId, long reservations) {
+}
@@ -0,0 +1,13 @@
+package com.github.togrul2.booklet.dtos.suggestion;
+
+import java.io.Serializable;
+
+/**
+ * Suggestion for the search box.
+ *
+ * @param type kind of the suggested resource.
+ * @param id   id of the suggested book or author.
+ * @param text title of the book or full name of the author.
+ */
+public record SuggestionDto(SuggestionType type, long id, String text) implements Serializable {
+}
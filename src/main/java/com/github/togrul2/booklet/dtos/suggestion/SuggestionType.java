@@ -0,0 +1,6 @@
+package com.github.togrul2.booklet.dtos.suggestion;
+
+public enum SuggestionType {
+    BOOK,
+    AUTHOR
+}
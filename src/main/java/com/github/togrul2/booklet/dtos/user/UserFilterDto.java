@@ -1,5 +1,6 @@
 package com.github.togrul2.booklet.dtos.user;
 
+import com.github.togrul2.booklet.dtos.SearchMode;
 import com.github.togrul2.booklet.entities.Role;
 import lombok.Builder;
 
@@ -11,6 +12,9 @@ public record UserFilterDto(
         String firstName,
         String lastName,
         String email,
+        // Free text search, ranked by relevance unless sorted otherwise.
+        String search,
+        SearchMode searchMode,
         Boolean active,
         LocalDateTime minCreationDatetime,
         LocalDateTime maxCreationDatetime,
@@ -0,0 +1,24 @@
+package com.github.togrul2.booklet.dtos.waitlist;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Waitlist entry of the authenticated user.
+ *
+ * @param id        id of the entry.
+ * @param bookId    id of the awaited book.
+ * @param startDate start of the requested period.
+ * @param endDate   end of the requested period.
+ * @param createdAt moment the user joined the waitlist.
+ * @param position  position in the waitlist of the book, starting from 1.
+ */
+public record WaitlistEntryDto(
+        long id,
+        long bookId,
+        LocalDateTime startDate,
+        LocalDateTime endDate,
+        LocalDateTime createdAt,
+        long position
+) implements Serializable {
+}
@@ -0,0 +1,13 @@
+package com.github.togrul2.booklet.dtos.waitlist;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+public record WaitlistRequestDto(
+        @NotNull
+        LocalDateTime startDate,
+        @NotNull
+        LocalDateTime endDate
+) {
+}
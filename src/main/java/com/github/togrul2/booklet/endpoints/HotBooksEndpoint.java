@@ -0,0 +1,26 @@
+package com.github.togrul2.booklet.endpoints;
+
+import com.github.togrul2.booklet.services.ReservationLockService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint listing books whose reservation locks are contended the most on this node.
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "hotbooks")
+public class HotBooksEndpoint {
+    private static final int LIMIT = 20;
+
+    private final ReservationLockService reservationLockService;
+
+    @ReadOperation
+    public Map<Long, Long> hotBooks() {
+        return reservationLockService.findHotBooks(LIMIT);
+    }
+}
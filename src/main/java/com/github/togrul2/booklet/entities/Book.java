@@ -5,12 +5,14 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @Entity
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
+@ToString(exclude = {"author", "genre"})
 public class Book {
     public static final int TITLE_MAX_LENGTH = 100;
     public static final int ISBN_MAX_LENGTH = 13;
@@ -21,10 +23,10 @@ public class Book {
     private Long id;
     @Column(nullable = false, length = TITLE_MAX_LENGTH)
     private String title;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id")
     private Author author;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "genre_id")
     private Genre genre;
     @Column(unique = true, length = ISBN_MAX_LENGTH)
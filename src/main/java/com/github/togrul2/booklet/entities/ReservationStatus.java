@@ -1,7 +1,18 @@
 package com.github.togrul2.booklet.entities;
 
+/**
+ * Status of a reservation. Stored by ordinal, so new statuses must be appended.
+ */
 public enum ReservationStatus {
     RESERVED,
     PAID,
-    CANCELLED
+    CANCELLED,
+    /**
+     * Reservation period has started, set by {@code ReservationLifecycleService}.
+     */
+    ACTIVE,
+    /**
+     * Reservation period has ended, set by {@code ReservationLifecycleService}.
+     */
+    EXPIRED
 }
@@ -3,19 +3,30 @@ package com.github.togrul2.booklet.entities;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Data
 @Builder
-@ToString(exclude = "user")
+@ToString(exclude = {"user", "token", "digest"})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Token {
+    public static final int DIGEST_LENGTH = 32;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
-    @Column(nullable = false, unique = true)
+    // SHA-256 of the refresh token. Raw token is never persisted.
+    @Column(nullable = false, unique = true, length = DIGEST_LENGTH)
+    private byte[] digest;
+    // Raw token, available only on tokens issued within the current request.
+    @Transient
     private String token;
     private boolean active;
+    // Expiration of the refresh token, expired tokens are purged in background.
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
     @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 }
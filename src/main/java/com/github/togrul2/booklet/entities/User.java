@@ -52,6 +52,10 @@ public class User implements UserDetails {
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private Role role;
+    // Tokens issued with an older generation are rejected.
+    @Column(nullable = false)
+    @Builder.Default
+    private int tokenGeneration = 0;
 
     @Override
     public Collection<GrantedAuthority> getAuthorities() {
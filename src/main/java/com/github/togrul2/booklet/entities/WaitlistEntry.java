@@ -0,0 +1,33 @@
+package com.github.togrul2.booklet.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Place of a user in the waitlist of a book, waiting for the book to be free for the given period. Entries of a book
+ * are served in the order they were created.
+ */
+@Entity
+@Data
+@Builder
+@ToString(exclude = {"user", "book"})
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uc_waitlist_entry_user_book", columnNames = {"user_id", "book_id"}))
+public class WaitlistEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    private User user;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    private Book book;
+    @Column(nullable = false)
+    private LocalDateTime startDate;
+    @Column(nullable = false)
+    private LocalDateTime endDate;
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
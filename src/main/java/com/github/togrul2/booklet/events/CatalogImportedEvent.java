@@ -0,0 +1,11 @@
+package com.github.togrul2.booklet.events;
+
+/**
+ * Application event published after books or authors are imported in bulk. Imports write with {@code COPY} outside
+ * of any transaction, so the event is published once all rows are committed.
+ *
+ * @param table    table the rows were imported to.
+ * @param imported number of imported rows.
+ */
+public record CatalogImportedEvent(String table, long imported) {
+}
@@ -0,0 +1,15 @@
+package com.github.togrul2.booklet.events;
+
+import java.util.List;
+
+/**
+ * Application event published after a batch of reservations is persisted in one transaction, published instead of
+ * one {@link ReservationCreatedEvent} per reservation so the user gets a single notification.
+ * Listeners should use {@link org.springframework.transaction.event.TransactionalEventListener}
+ * with {@code phase = AFTER_COMMIT}.
+ *
+ * @param userId       id of the user who made the reservations
+ * @param reservations created reservations
+ */
+public record ReservationBatchCreatedEvent(long userId, List<ReservationCreatedEvent> reservations) {
+}
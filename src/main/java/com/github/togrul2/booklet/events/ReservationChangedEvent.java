@@ -0,0 +1,29 @@
+package com.github.togrul2.booklet.events;
+
+import com.github.togrul2.booklet.entities.ReservationStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Application event published after an existing reservation is updated or its status is changed.
+ * Listeners should use {@link org.springframework.transaction.event.TransactionalEventListener}
+ * with {@code phase = AFTER_COMMIT}.
+ *
+ * @param reservationId  id of the changed reservation
+ * @param userId         id of the user the reservation belongs to, null if the user was deleted
+ * @param bookId         id of the reserved book after the change
+ * @param previousBookId id of the reserved book before the change
+ * @param startDate      start of the reservation after the change
+ * @param endDate        end of the reservation after the change
+ * @param status         status of the reservation after the change
+ */
+public record ReservationChangedEvent(
+        long reservationId,
+        Long userId,
+        long bookId,
+        long previousBookId,
+        LocalDateTime startDate,
+        LocalDateTime endDate,
+        ReservationStatus status
+) {
+}
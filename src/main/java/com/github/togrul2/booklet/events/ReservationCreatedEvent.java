@@ -1,15 +1,30 @@
 package com.github.togrul2.booklet.events;
 
-import com.github.togrul2.booklet.dtos.reservation.ReservationDto;
+import java.time.LocalDateTime;
 
 /**
  * Application event published after a book reservation is successfully persisted.
  * Listeners should use {@link org.springframework.transaction.event.TransactionalEventListener}
  * with {@code phase = AFTER_COMMIT} so the notification is only sent once the
  * transaction has been durably committed.
+ * <p>
+ * Carries only the data listeners need, so publishing it does not require loading the reserving user.
+ * </p>
  *
- * @param reservation the DTO of the newly created reservation
+ * @param reservationId id of the newly created reservation
+ * @param userId        id of the user who made the reservation
+ * @param bookId        id of the reserved book
+ * @param bookTitle     title of the reserved book
+ * @param startDate     start of the reservation
+ * @param endDate       end of the reservation
  */
-public record ReservationCreatedEvent(ReservationDto reservation) {
+public record ReservationCreatedEvent(
+        long reservationId,
+        long userId,
+        long bookId,
+        String bookTitle,
+        LocalDateTime startDate,
+        LocalDateTime endDate
+) {
 }
 
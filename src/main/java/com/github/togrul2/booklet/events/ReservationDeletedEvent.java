@@ -0,0 +1,12 @@
+package com.github.togrul2.booklet.events;
+
+/**
+ * Application event published after a reservation is deleted.
+ * Listeners should use {@link org.springframework.transaction.event.TransactionalEventListener}
+ * with {@code phase = AFTER_COMMIT}.
+ *
+ * @param reservationId id of the deleted reservation
+ * @param bookId        id of the book the reservation was made for
+ */
+public record ReservationDeletedEvent(long reservationId, long bookId) {
+}
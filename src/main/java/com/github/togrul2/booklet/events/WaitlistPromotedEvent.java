@@ -0,0 +1,10 @@
+package com.github.togrul2.booklet.events;
+
+/**
+ * Application event published after a waitlist entry is turned into a reservation. Listeners handle the created
+ * reservation like a regular one, the event is separate so the user is notified about the promotion instead.
+ *
+ * @param reservation the reservation created for the waiting user
+ */
+public record WaitlistPromotedEvent(ReservationCreatedEvent reservation) {
+}
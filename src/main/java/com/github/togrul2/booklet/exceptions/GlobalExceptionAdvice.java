@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -33,11 +34,14 @@ import java.util.stream.Collectors;
  * @see ExpiredJwtException
  * @see JwtException
  * @see EntityNotFoundException
+ * @see RejectedExecutionException
  * @since 1.0
  */
 @Slf4j
 @ControllerAdvice
 public class GlobalExceptionAdvice extends ResponseEntityExceptionHandler {
+    // Seconds a client should wait before retrying an overloaded endpoint.
+    private static final String RETRY_AFTER_SECONDS = "1";
 
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
@@ -90,4 +94,16 @@ public class GlobalExceptionAdvice extends ResponseEntityExceptionHandler {
         log.warn("JWT exception: {}", e.getMessage());
         response.sendError(HttpStatus.UNAUTHORIZED.value());
     }
+
+    /**
+     * Handle RejectedExecutionException.
+     * An exception is thrown when a bounded executor, such as the password hashing one, is saturated.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    private void handleRejectedExecutionException(RuntimeException e, HttpServletResponse response)
+            throws IOException {
+        log.warn("Rejected execution exception: {}", e.getMessage());
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
 }
@@ -0,0 +1,44 @@
+package com.github.togrul2.booklet.exports;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes comma separated values with a header row. Values are written in their string form, quoted only if they
+ * contain a separator, a quote or a line break. Null values are empty.
+ */
+class CsvExportWriter extends ExportWriter {
+    CsvExportWriter(Writer writer, List<String> columns) throws IOException {
+        super(writer, columns);
+        write(columns.toArray());
+    }
+
+    @Override
+    public void write(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writeValue(values[i].toString());
+            }
+        }
+        writer.write('\n');
+    }
+
+    private void writeValue(String value) throws IOException {
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            final char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
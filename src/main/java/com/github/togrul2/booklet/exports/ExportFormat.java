@@ -0,0 +1,26 @@
+package com.github.togrul2.booklet.exports;
+
+import com.github.togrul2.booklet.imports.ImportFormat;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+/**
+ * Format of exports, see {@link ExportWriter}. Exported books can be imported back in the same format, apart from
+ * books without an ISBN, author or genre.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    /**
+     * Comma separated values quoted as in RFC 4180, the first row names the columns.
+     */
+    CSV(ImportFormat.CSV_MEDIA_TYPE, "csv"),
+    /**
+     * One JSON object per line.
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON_VALUE, "ndjson");
+
+    private final String mediaType;
+    private final String fileExtension;
+}
@@ -0,0 +1,47 @@
+package com.github.togrul2.booklet.exports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes rows of an export one at a time, so memory does not depend on the number of rows. Rows are written to the
+ * underlying writer as they come, which blocks while a slow client has not read the previous ones.
+ */
+public abstract class ExportWriter implements Flushable {
+    protected final Writer writer;
+    protected final List<String> columns;
+
+    protected ExportWriter(Writer writer, List<String> columns) {
+        this.writer = writer;
+        this.columns = columns;
+    }
+
+    /**
+     * @param columns names of the columns, in the order of values of every row.
+     */
+    public static ExportWriter of(
+            ExportFormat format,
+            Writer writer,
+            ObjectMapper objectMapper,
+            List<String> columns
+    ) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvExportWriter(writer, columns);
+            case NDJSON -> new NdjsonExportWriter(writer, objectMapper, columns);
+        };
+    }
+
+    /**
+     * @param values values of the row in the order of the columns, null for missing values.
+     */
+    public abstract void write(Object[] values) throws IOException;
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+}
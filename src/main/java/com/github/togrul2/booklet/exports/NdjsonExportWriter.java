@@ -0,0 +1,39 @@
+package com.github.togrul2.booklet.exports;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes a JSON object per row, keyed by column names. Values are serialized with the application object mapper, so
+ * they look the same as in JSON responses.
+ */
+class NdjsonExportWriter extends ExportWriter {
+    private final JsonGenerator generator;
+
+    NdjsonExportWriter(Writer writer, ObjectMapper objectMapper, List<String> columns) throws IOException {
+        super(writer, columns);
+        this.generator = objectMapper.createGenerator(writer);
+        // Rows are separated by line breaks written after every row instead.
+        this.generator.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void write(Object[] values) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < values.length; i++) {
+            generator.writeFieldName(columns.get(i));
+            generator.writeObject(values[i]);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+}
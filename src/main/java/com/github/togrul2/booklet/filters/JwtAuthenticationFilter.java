@@ -1,7 +1,8 @@
 package com.github.togrul2.booklet.filters;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.togrul2.booklet.entities.Role;
+import com.github.togrul2.booklet.security.AuthenticatedUser;
+import com.github.togrul2.booklet.security.TokenClaims;
 import com.github.togrul2.booklet.services.JwtService;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
@@ -16,7 +17,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -26,11 +26,20 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.Set;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
-    private static final String AUTH_PATH = "/api/v1/auth/";
+    // Public auth endpoints take tokens in the body, a stale access token in the header must not break them.
+    private static final Set<String> PUBLIC_AUTH_PATHS = Set.of(
+            "/api/v1/auth/login",
+            "/api/v1/auth/refresh",
+            "/api/v1/auth/validate",
+            "/api/v1/auth/logout",
+            "/api/v1/auth/logout-all",
+            "/api/v1/auth/revoke"
+    );
     private final JwtService jwtService;
 
     @Override
@@ -41,7 +50,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
 
         if (
-                request.getServletPath().startsWith(AUTH_PATH) ||
+                PUBLIC_AUTH_PATHS.contains(request.getServletPath()) ||
                         authHeader == null ||
                         !authHeader.startsWith("Bearer ")
         ) {
@@ -50,30 +59,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         try {
-            final String jwtToken = authHeader.substring(7);
-            final String userEmail = jwtService.extractUsername(jwtToken);
-            final Role role = jwtService.extractRole(jwtToken);
+            // Token is parsed and its signature checked only once, all claims are read from the result.
+            final TokenClaims claims = jwtService.verify(authHeader.substring(7));
             final SecurityContext content = SecurityContextHolder.getContext();
             final Authentication authentication = content.getAuthentication();
 
-            if (userEmail == null || authentication != null) {
+            if (
+                    claims.subject() == null ||
+                            authentication != null ||
+                            !claims.isAccessToken()
+            ) {
                 filterChain.doFilter(request, response);
                 return;
             }
 
             // This way we avoid hitting the database each time we need to authenticate a user,
             // since all necessary user info is in jwt token.
-            UserDetails userDetails = User
-                    .builder()
-                    .username(userEmail)
-                    .password("")
-                    .authorities(role.getAuthorities())
-                    .build();
-
-            if (!jwtService.isAccessToken(jwtToken)) {
-                filterChain.doFilter(request, response);
-                return;
-            }
+            UserDetails userDetails = new AuthenticatedUser(
+                    claims.userId(), claims.subject(), claims.role().getAuthorities()
+            );
 
             UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                     userDetails, null, userDetails.getAuthorities()
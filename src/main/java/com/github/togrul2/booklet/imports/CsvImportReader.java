@@ -0,0 +1,161 @@
+package com.github.togrul2.booklet.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads comma separated values quoted as in RFC 4180. The first row names the columns, which are bound to the
+ * properties of the same name, unknown columns are ignored. Empty unquoted fields are null, quoted fields may span
+ * lines. Blank lines are skipped.
+ */
+class CsvImportReader<T> extends ImportReader<T> {
+    private static final int END = -1;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final Reader reader;
+    private final ObjectMapper objectMapper;
+    private final Class<T> type;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> header;
+    private int position;
+    private int limit;
+    // Line the next record starts on.
+    private long nextLine = 1;
+    private long line;
+
+    CsvImportReader(Reader reader, ObjectMapper objectMapper, Class<T> type) throws IOException {
+        super(reader);
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+        this.type = type;
+        // Spreadsheets tend to start UTF-8 exports with a byte order mark, which would end up in the first column name.
+        if (peek() == BYTE_ORDER_MARK) {
+            read();
+        }
+        final List<String> names = readRecord();
+        this.header = names == null
+                ? List.of()
+                : names.stream().map(name -> name == null ? "" : name.strip()).toList();
+    }
+
+    @Override
+    public T next() throws IOException {
+        List<String> values;
+        do {
+            line = nextLine;
+            values = readRecord();
+            if (values == null) {
+                return null;
+            }
+        } while (values.size() == 1 && values.getFirst() == null);
+
+        if (values.size() != header.size()) {
+            throw new IllegalArgumentException(
+                    "Expected %d fields, found %d.".formatted(header.size(), values.size())
+            );
+        }
+        final Map<String, String> fields = new HashMap<>(header.size() * 2);
+        for (int i = 0; i < header.size(); i++) {
+            fields.put(header.get(i), values.get(i));
+        }
+        try {
+            return objectMapper.convertValue(fields, type);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    e.getCause() instanceof JsonProcessingException cause ? describe(cause) : e.getMessage()
+            );
+        }
+    }
+
+    @Override
+    public long line() {
+        return line;
+    }
+
+    /**
+     * @return fields of the next record or null at the end of the input.
+     * @throws IllegalArgumentException If a quoted field is not closed until the end of the input.
+     */
+    private List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == END) {
+            return null;
+        }
+
+        final List<String> values = new ArrayList<>();
+        boolean quoted = false;
+        field.setLength(0);
+        while (true) {
+            if (c == '"' && !quoted && field.isEmpty()) {
+                quoted = true;
+                readQuoted();
+            } else if (c == ',') {
+                values.add(value(quoted));
+                quoted = false;
+                field.setLength(0);
+            } else if (c == '\n' || c == END) {
+                if (c == '\n') {
+                    nextLine++;
+                }
+                values.add(value(quoted));
+                return values;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Reads the rest of a quoted field up to the closing quote, doubled quotes stand for a quote.
+     */
+    private void readQuoted() throws IOException {
+        while (true) {
+            final int c = read();
+            if (c == END) {
+                throw new IllegalArgumentException("Quoted field is not closed.");
+            }
+            if (c == '"') {
+                if (peek() != '"') {
+                    return;
+                }
+                read();
+            } else if (c == '\n') {
+                nextLine++;
+            }
+            field.append((char) c);
+        }
+    }
+
+    private String value(boolean quoted) {
+        return quoted || !field.isEmpty() ? field.toString() : null;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return END;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return END;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        position = 0;
+        limit = Math.max(reader.read(buffer), 0);
+        return limit > 0;
+    }
+}
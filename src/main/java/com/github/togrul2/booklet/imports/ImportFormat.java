@@ -0,0 +1,32 @@
+package com.github.togrul2.booklet.imports;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Format of bulk import input, see {@link ImportReader}.
+ */
+public enum ImportFormat {
+    /**
+     * Comma separated values quoted as in RFC 4180, the first row names the columns.
+     */
+    CSV,
+    /**
+     * One JSON object per line.
+     */
+    NDJSON;
+
+    public static final String CSV_MEDIA_TYPE = "text/csv";
+
+    /**
+     * @throws IllegalArgumentException If the media type is neither CSV nor NDJSON.
+     */
+    public static ImportFormat of(MediaType mediaType) {
+        if (MediaType.valueOf(CSV_MEDIA_TYPE).isCompatibleWith(mediaType)) {
+            return CSV;
+        }
+        if (MediaType.APPLICATION_NDJSON.isCompatibleWith(mediaType)) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Unsupported import format.");
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.togrul2.booklet.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads rows of bulk import input one at a time, so memory does not depend on the size of the input.
+ * <p>
+ * A malformed row fails on its own, reading goes on with the next row. Rows are bound to the row type with Jackson,
+ * so fields are named and converted the same way as in JSON request bodies.
+ * </p>
+ *
+ * @param <T> type of rows.
+ */
+public abstract class ImportReader<T> implements Closeable {
+    private final Reader reader;
+
+    protected ImportReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    public static <T> ImportReader<T> of(
+            ImportFormat format,
+            Reader reader,
+            ObjectMapper objectMapper,
+            Class<T> type
+    ) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvImportReader<>(reader, objectMapper, type);
+            case NDJSON -> new NdjsonImportReader<>(reader, objectMapper, type);
+        };
+    }
+
+    /**
+     * Reads the next row.
+     *
+     * @return row or null at the end of the input.
+     * @throws IllegalArgumentException If the row is malformed. Reading can go on with the next row.
+     */
+    public abstract T next() throws IOException;
+
+    /**
+     * @return line of the input the last read row starts on, counting from 1.
+     */
+    public abstract long line();
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Message of the binding error without the location Jackson appends to it, which is meaningless for a single row.
+     */
+    static String describe(JsonProcessingException e) {
+        return e.getOriginalMessage();
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.togrul2.booklet.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads a JSON object per line. Every line is bound on its own, so a malformed line does not break the following
+ * ones. Blank lines are skipped.
+ */
+class NdjsonImportReader<T> extends ImportReader<T> {
+    private final BufferedReader reader;
+    private final ObjectReader objectReader;
+    private long line;
+
+    NdjsonImportReader(Reader reader, ObjectMapper objectMapper, Class<T> type) {
+        this(new BufferedReader(reader), objectMapper, type);
+    }
+
+    private NdjsonImportReader(BufferedReader reader, ObjectMapper objectMapper, Class<T> type) {
+        super(reader);
+        this.reader = reader;
+        this.objectReader = objectMapper.readerFor(type);
+    }
+
+    @Override
+    public T next() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+
+        final T row;
+        try {
+            row = objectReader.readValue(text);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(describe(e));
+        }
+        // Literal null would otherwise be taken for the end of the input.
+        if (row == null) {
+            throw new IllegalArgumentException("Expected a JSON object.");
+        }
+        return row;
+    }
+
+    @Override
+    public long line() {
+        return line;
+    }
+}
@@ -1,8 +1,21 @@
 package com.github.togrul2.booklet.repositories;
 
+import com.github.togrul2.booklet.dtos.suggestion.AuthorSuggestionSourceDto;
 import com.github.togrul2.booklet.entities.Author;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
-public interface AuthorRepository extends JpaRepository<Author, Long>, JpaSpecificationExecutor<Author> {
+import java.util.List;
+
+public interface AuthorRepository extends JpaRepository<Author, Long>, SliceSpecificationExecutor<Author> {
+    /**
+     * Returns names of all authors. Used to build the suggestion index.
+     *
+     * @return names of authors.
+     */
+    @Query("""
+                SELECT new com.github.togrul2.booklet.dtos.suggestion.AuthorSuggestionSourceDto(a.id, a.name, a.surname)
+                FROM Author a
+            """)
+    List<AuthorSuggestionSourceDto> findSuggestionSources();
 }
@@ -0,0 +1,36 @@
+package com.github.togrul2.booklet.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * Base class of all repositories, adds {@link SliceSpecificationExecutor} to the default implementation.
+ */
+public class BaseRepository<T, ID> extends SimpleJpaRepository<T, ID> implements SliceSpecificationExecutor<T> {
+    public BaseRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+    }
+
+    @Override
+    public Slice<T> findSlice(@Nullable Specification<T> spec, Pageable pageable) {
+        final TypedQuery<T> query = getQuery(spec, pageable);
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query.getResultList(), pageable, false);
+        }
+
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+        final List<T> rows = query.getResultList();
+        final boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+}
@@ -1,11 +1,57 @@
 package com.github.togrul2.booklet.repositories;
 
+import com.github.togrul2.booklet.dtos.suggestion.BookSuggestionSourceDto;
 import com.github.togrul2.booklet.entities.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
+/**
+ * Repository of books. Author and genre are lazy, methods returning books for the api fetch them in the same query.
+ * Page counts are run as separate queries without joins.
+ */
+public interface BookRepository extends JpaRepository<Book, Long>, SliceSpecificationExecutor<Book> {
     Optional<Book> findByIsbn(String isbn);
+
+    @Override
+    @EntityGraph(attributePaths = {"author", "genre"})
+    Optional<Book> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"author", "genre"})
+    Page<Book> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"author", "genre"})
+    Page<Book> findAll(Specification<Book> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"author", "genre"})
+    Slice<Book> findSlice(Specification<Book> spec, Pageable pageable);
+
+    /**
+     * Returns titles of all books with the number of their reservations which were not cancelled. Used to build the
+     * suggestion index.
+     *
+     * @return books with their popularity.
+     */
+    @Query("""
+                SELECT new com.github.togrul2.booklet.dtos.suggestion.BookSuggestionSourceDto(
+                    b.id, b.title, a.id, COUNT(r)
+                )
+                FROM Book b
+                LEFT JOIN b.author a
+                LEFT JOIN Reservation r
+                ON r.book = b
+                AND r.status <> com.github.togrul2.booklet.entities.ReservationStatus.CANCELLED
+                GROUP BY b.id, b.title, a.id
+            """)
+    List<BookSuggestionSourceDto> findSuggestionSources();
 }
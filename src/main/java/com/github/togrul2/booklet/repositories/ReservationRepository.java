@@ -1,28 +1,69 @@
 package com.github.togrul2.booklet.repositories;
 
+import com.github.togrul2.booklet.dtos.reservation.ReservationIntervalDto;
 import com.github.togrul2.booklet.entities.Book;
 import com.github.togrul2.booklet.entities.Reservation;
 import com.github.togrul2.booklet.entities.ReservationStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+/**
+ * Repository of reservations. User and book are lazy, methods returning reservations for the api fetch them together
+ * with author and genre of the book in the same query. Page counts are run as separate queries without joins.
+ */
+public interface ReservationRepository
+        extends JpaRepository<Reservation, Long>, SliceSpecificationExecutor<Reservation> {
+    @Override
+    @EntityGraph(attributePaths = {"user", "book", "book.author", "book.genre"})
+    Optional<Reservation> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "book", "book.author", "book.genre"})
+    Page<Reservation> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "book", "book.author", "book.genre"})
+    Page<Reservation> findAll(Specification<Reservation> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "book", "book.author", "book.genre"})
+    Slice<Reservation> findSlice(Specification<Reservation> spec, Pageable pageable);
+
     /**
-     * Returns a page of reservation belonging to the authenticated user.
+     * Returns a page of reservations belonging to the user.
      *
+     * @param userId   id of the user.
      * @param pageable the pageable to request a paged result, can be {@link Pageable#unpaged()}, must not be
      *                 {@literal null}.
      * @return a page of reservations.
      */
-    @Query("SELECT r FROM Reservation r WHERE r.user.email = ?#{principal?.username}")
-    Page<Reservation> findAllForAuthUser(Pageable pageable);
+    @EntityGraph(attributePaths = {"user", "book", "book.author", "book.genre"})
+    @Query(
+            value = "SELECT r FROM Reservation r WHERE r.user.id = :userId",
+            countQuery = "SELECT COUNT(r) FROM Reservation r WHERE r.user.id = :userId"
+    )
+    Page<Reservation> findAllForUser(long userId, Pageable pageable);
 
+    /**
+     * Checks whether an active reservation of the book overlaps the given half-open interval. Writes do not need
+     * this check, overlapping is prevented by the exclusion constraint on the reservation table.
+     *
+     * @param book  the book to check.
+     * @param start start of the interval, inclusive.
+     * @param end   end of the interval, exclusive.
+     * @return true if the book is reserved at some point of the interval.
+     */
     @Query("""
                 SELECT CASE
                 WHEN COUNT(r) > 0
@@ -31,33 +72,140 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
                 END
                 FROM Reservation r
                 WHERE r.book = :book
-                AND ((r.startDate <= :start AND r.endDate >= :start)
-                OR (r.startDate <= :end AND r.endDate >= :end))
+                AND r.status <> com.github.togrul2.booklet.entities.ReservationStatus.CANCELLED
+                AND r.startDate < :end
+                AND r.endDate > :start
             """)
     boolean hasOverlappingSession(Book book, LocalDateTime start, LocalDateTime end);
 
+    /**
+     * Returns intervals of active reservations ending after the given moment. Used to build the availability index.
+     *
+     * @param now moment after which reservations are still relevant.
+     * @return intervals of active reservations.
+     */
+    @Query("""
+                SELECT new com.github.togrul2.booklet.dtos.reservation.ReservationIntervalDto(
+                    r.id, r.book.id, r.startDate, r.endDate
+                )
+                FROM Reservation r
+                WHERE r.status <> com.github.togrul2.booklet.entities.ReservationStatus.CANCELLED
+                AND r.endDate > :now
+            """)
+    List<ReservationIntervalDto> findActiveIntervals(LocalDateTime now);
+
+    /**
+     * Returns intervals of active reservations of the book ending after the given moment ordered by start.
+     *
+     * @param bookId id of the book.
+     * @param now    moment after which reservations are still relevant.
+     * @return intervals of upcoming and ongoing reservations of the book.
+     */
+    @Query("""
+                SELECT new com.github.togrul2.booklet.dtos.reservation.ReservationIntervalDto(
+                    r.id, r.book.id, r.startDate, r.endDate
+                )
+                FROM Reservation r
+                WHERE r.book.id = :bookId
+                AND r.status <> com.github.togrul2.booklet.entities.ReservationStatus.CANCELLED
+                AND r.endDate > :now
+                ORDER BY r.startDate
+            """)
+    List<ReservationIntervalDto> findUpcomingIntervals(long bookId, LocalDateTime now);
+
+    /**
+     * Returns intervals of active reservations of the given books overlapping the half-open interval. Lets a batch
+     * of reservations be checked for overlaps with a single query.
+     *
+     * @param bookIds ids of the books.
+     * @param start   start of the interval, inclusive.
+     * @param end     end of the interval, exclusive.
+     * @return intervals of overlapping reservations.
+     */
+    @Query("""
+                SELECT new com.github.togrul2.booklet.dtos.reservation.ReservationIntervalDto(
+                    r.id, r.book.id, r.startDate, r.endDate
+                )
+                FROM Reservation r
+                WHERE r.book.id IN :bookIds
+                AND r.status <> com.github.togrul2.booklet.entities.ReservationStatus.CANCELLED
+                AND r.startDate < :end
+                AND r.endDate > :start
+            """)
+    List<ReservationIntervalDto> findOverlappingIntervals(
+            Collection<Long> bookIds,
+            LocalDateTime start,
+            LocalDateTime end
+    );
+
+    /**
+     * Tries to acquire a transaction scoped Postgres advisory lock without waiting.
+     *
+     * @param classId lock class, keeps reservation locks apart from other advisory locks.
+     * @param key     lock key within the class.
+     * @return true if the lock was acquired, false if it is held by another transaction.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:classId, :key)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(int classId, int key);
+
+    /**
+     * Acquires a transaction scoped Postgres advisory lock, waiting until it is released by other transactions.
+     * Lock is released on commit or rollback.
+     *
+     * @param classId lock class, keeps reservation locks apart from other advisory locks.
+     * @param key     lock key within the class.
+     * @return always 1.
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:classId, :key)", nativeQuery = true)
+    int advisoryXactLock(int classId, int key);
+
+    /**
+     * Finds reservation by id if it is accessible to the authenticated user, that is the reservation belongs to the
+     * authenticated user or the authenticated user is admin.
+     *
+     * @param id     id of the reservation.
+     * @param userId authenticated user's id.
+     * @param admin  whether the authenticated user is admin.
+     * @return Optional of reservation.
+     */
+    @EntityGraph(attributePaths = {"user", "book", "book.author", "book.genre"})
     @Query("""
                 SELECT r FROM Reservation r
                 WHERE r.id = :id
-                AND r.user.email = ?#{principal?.username}
-                OR ?#{principal?.authorities.contains('ROLE_ADMIN')} = true
+                AND (r.user.id = :userId OR :admin = true)
             """)
-    Optional<Reservation> findById(long id);
+    Optional<Reservation> findAccessibleById(long id, long userId, boolean admin);
 
+    /**
+     * Finds reservation by id if it belongs to the user.
+     *
+     * @param id     id of the reservation.
+     * @param userId id of the user.
+     * @return Optional of reservation.
+     */
+    @EntityGraph(attributePaths = {"user", "book", "book.author", "book.genre"})
     @Query("""
                 SELECT r FROM Reservation r
                 WHERE r.id = :id
-                AND r.user.email = ?#{principal?.username}
+                AND r.user.id = :userId
             """)
-    Optional<Reservation> findByIdForAuthUser(long id);
+    Optional<Reservation> findByIdForUser(long id, long userId);
 
+    /**
+     * Updates status of the reservation if it is accessible to the authenticated user.
+     *
+     * @param id     id of the reservation.
+     * @param status new status.
+     * @param userId authenticated user's id.
+     * @param admin  whether the authenticated user is admin.
+     * @return number of updated rows.
+     */
     @Modifying
     @Query("""
                         UPDATE Reservation r
                         SET r.status = :status
                         WHERE r.id = :id
-                        AND r.user.email = ?#{principal?.username}
-                        OR ?#{principal?.authorities.contains('ROLE_ADMIN')} = true
+                        AND (r.user.id = :userId OR :admin = true)
             """)
-    boolean updateReservationStatus(long id, ReservationStatus status);
+    int updateReservationStatus(long id, ReservationStatus status, long userId, boolean admin);
 }
@@ -0,0 +1,25 @@
+package com.github.togrul2.booklet.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.lang.Nullable;
+
+/**
+ * Specification executor which can also find a page without counting all matching rows. Implemented by
+ * {@link BaseRepository}, entity graphs declared on overrides of {@link #findSlice} are applied like on other finders.
+ */
+@NoRepositoryBean
+public interface SliceSpecificationExecutor<T> extends JpaSpecificationExecutor<T> {
+    /**
+     * Finds the page of entities matching the specification. One more row than the page size is fetched to tell
+     * whether there is a next page, so no count query is run.
+     *
+     * @param spec     filter of the entities, may be null.
+     * @param pageable page to find.
+     * @return page without total count.
+     */
+    Slice<T> findSlice(@Nullable Specification<T> spec, Pageable pageable);
+}
@@ -2,9 +2,47 @@ package com.github.togrul2.booklet.repositories;
 
 import com.github.togrul2.booklet.entities.Token;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface TokenRepository extends JpaRepository<Token, Long> {
-    Optional<Token> findByToken(String token);
+    /**
+     * Finds a refresh token by the SHA-256 digest of its value.
+     *
+     * @param digest 32 byte digest of the refresh token.
+     * @return Optional of the stored token.
+     */
+    Optional<Token> findByDigest(byte[] digest);
+
+    /**
+     * Tries to acquire a transaction scoped Postgres advisory lock. Lock is released on commit or rollback.
+     *
+     * @param key application wide lock key.
+     * @return true if the lock was acquired, false if it is held by another transaction.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(long key);
+
+    /**
+     * Deletes a batch of expired or deactivated tokens. Rows locked by other transactions are skipped,
+     * so the purge never waits on or blocks concurrent token updates.
+     *
+     * @param now       tokens expired before this moment are deleted.
+     * @param batchSize maximum number of rows to delete.
+     * @return number of deleted rows.
+     */
+    @Modifying
+    @Query(value = """
+                DELETE FROM token
+                WHERE id IN (
+                    SELECT id FROM token
+                    WHERE active = FALSE OR expires_at < :now
+                    LIMIT :batchSize
+                    FOR UPDATE SKIP LOCKED
+                )
+            """, nativeQuery = true)
+    int deleteExpiredOrInactive(LocalDateTime now, int batchSize);
 }
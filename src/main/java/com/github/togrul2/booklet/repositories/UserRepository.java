@@ -2,27 +2,50 @@ package com.github.togrul2.booklet.repositories;
 
 import com.github.togrul2.booklet.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
+public interface UserRepository extends JpaRepository<User, Long>, SliceSpecificationExecutor<User> {
     Optional<User> findByEmail(String email);
 
-    @Query("SELECT u FROM User u WHERE u.email = ?#{ principal?.username }")
-    Optional<User> findAuthUser();
+    @Query("SELECT u.tokenGeneration FROM User u WHERE u.id = ?1")
+    Optional<Integer> findTokenGenerationById(long id);
 
     /**
-     * Finds user by id. Authenticated user must be the target user or admin.
+     * Bumps token generation of the user, so all tokens issued before are rejected.
      *
      * @param id target user's id.
+     * @return number of updated rows.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.tokenGeneration = u.tokenGeneration + 1 WHERE u.id = ?1")
+    int incrementTokenGeneration(long id);
+
+    /**
+     * Replaces only the password hash of the user, leaving other columns as they are in the database.
+     *
+     * @param id       target user's id.
+     * @param password new password hash.
+     * @return number of updated rows.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(long id, String password);
+
+    /**
+     * Finds user by id if it is accessible to the authenticated user, that is the authenticated user is the target user
+     * or admin.
+     *
+     * @param id     target user's id.
+     * @param userId authenticated user's id.
+     * @param admin  whether the authenticated user is admin.
      * @return Optional of user entity.
      */
-    @Query(
-            "SELECT u FROM User u " +
-                    "WHERE u.id = ?1" +
-                    " AND ( u.email = ?#{ principal?.username } OR ?#{ hasRole('ADMIN') } = true)"
-    )
-    Optional<User> findById(long id);
+    @Query("SELECT u FROM User u WHERE u.id = :id AND (u.id = :userId OR :admin = true)")
+    Optional<User> findAccessibleById(long id, long userId, boolean admin);
 }
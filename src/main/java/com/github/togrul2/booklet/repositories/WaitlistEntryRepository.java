@@ -0,0 +1,62 @@
+package com.github.togrul2.booklet.repositories;
+
+import com.github.togrul2.booklet.entities.WaitlistEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+    boolean existsByUserIdAndBookId(long userId, long bookId);
+
+    /**
+     * Returns entries of the book waiting for a period overlapping the given half-open interval, in the order they
+     * are served. Entries whose period has already started are skipped.
+     *
+     * @param bookId id of the book.
+     * @param start  start of the interval, inclusive.
+     * @param end    end of the interval, exclusive.
+     * @param now    current moment.
+     * @return entries that may be promoted once the interval is free.
+     */
+    @Query("""
+                SELECT w FROM WaitlistEntry w
+                WHERE w.book.id = :bookId
+                AND w.startDate < :end
+                AND w.endDate > :start
+                AND w.startDate > :now
+                ORDER BY w.createdAt, w.id
+            """)
+    List<WaitlistEntry> findWaiting(long bookId, LocalDateTime start, LocalDateTime end, LocalDateTime now);
+
+    /**
+     * Counts entries of the book served before the given entry.
+     *
+     * @param bookId    id of the book.
+     * @param createdAt creation moment of the entry.
+     * @param id        id of the entry, orders entries created at the same moment.
+     * @return number of entries ahead of the given one.
+     */
+    @Query("""
+                SELECT COUNT(w) FROM WaitlistEntry w
+                WHERE w.book.id = :bookId
+                AND (w.createdAt < :createdAt OR (w.createdAt = :createdAt AND w.id < :id))
+            """)
+    long countAhead(long bookId, LocalDateTime createdAt, long id);
+
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.user.id = :userId AND w.book.id = :bookId")
+    int deleteByUserIdAndBookId(long userId, long bookId);
+
+    /**
+     * Deletes entries whose period has started, they can no longer be promoted.
+     *
+     * @param now current moment.
+     * @return number of deleted entries.
+     */
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.startDate <= :now")
+    int deleteStarted(LocalDateTime now);
+}
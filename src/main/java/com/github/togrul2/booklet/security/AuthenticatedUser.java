@@ -0,0 +1,29 @@
+package com.github.togrul2.booklet.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Principal of a request authenticated with an access token. Built from token claims only, so services can refer to
+ * the user by id without loading it from the database.
+ * <p>
+ * Built once per request by the authentication filter. Repository queries restricted to the user or admins take its id
+ * and admin flag as bound parameters instead of evaluating the security context on every execution.
+ * </p>
+ */
+@Getter
+public class AuthenticatedUser extends User {
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+
+    private final Long id;
+    private final boolean admin;
+
+    public AuthenticatedUser(Long id, String username, Collection<? extends GrantedAuthority> authorities) {
+        super(username, "", authorities);
+        this.id = id;
+        this.admin = authorities.stream().anyMatch(authority -> ADMIN_AUTHORITY.equals(authority.getAuthority()));
+    }
+}
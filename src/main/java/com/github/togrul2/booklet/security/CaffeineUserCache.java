@@ -0,0 +1,45 @@
+package com.github.togrul2.booklet.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Node local LRU cache of loaded users with a short ttl. Entries must be removed whenever a user is changed or
+ * deleted, the ttl only bounds staleness of changes made on other nodes.
+ */
+@Component
+public class CaffeineUserCache implements UserCache {
+    private final Cache<String, UserDetails> users;
+
+    public CaffeineUserCache(
+            @Value("${spring.security.user-cache.size:10000}") long size,
+            @Value("${spring.security.user-cache.ttl:PT1M}") Duration ttl
+    ) {
+        users = Caffeine
+                .newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        return users.getIfPresent(username);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        users.put(user.getUsername(), user);
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        users.invalidate(username);
+    }
+}
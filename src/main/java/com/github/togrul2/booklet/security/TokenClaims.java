@@ -0,0 +1,39 @@
+package com.github.togrul2.booklet.security;
+
+import com.github.togrul2.booklet.entities.Role;
+
+import java.time.Instant;
+
+/**
+ * Claims of a JWT whose signature and expiration have already been verified.
+ *
+ * @param tokenId    unique id (jti) of the token.
+ * @param userId     id of the user the token was issued for, absent in tokens issued before it was added, which
+ *                   are therefore rejected as revoked.
+ * @param subject    email of the user the token was issued for.
+ * @param role       role of the user at the time the token was issued.
+ * @param type       whether the token is an access or a refresh token.
+ * @param generation token generation of the user at the time the token was issued.
+ * @param expiration instant after which the token must no longer be accepted.
+ */
+public record TokenClaims(
+        String tokenId,
+        Long userId,
+        String subject,
+        Role role,
+        TokenType type,
+        int generation,
+        Instant expiration
+) {
+    public boolean isAccessToken() {
+        return type == TokenType.ACCESS;
+    }
+
+    public boolean isRefreshToken() {
+        return type == TokenType.REFRESH;
+    }
+
+    public boolean isExpired(Instant now) {
+        return !expiration.isAfter(now);
+    }
+}
@@ -0,0 +1,122 @@
+package com.github.togrul2.booklet.security;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory set of revoked token ids.
+ * <p>
+ * Lookups first consult a Bloom filter, so the common case of a token that was never revoked is answered without
+ * touching the exact set. Only possible hits are confirmed against the exact set, which also keeps expiration of every
+ * entry. Bloom filters cannot remove entries, so the filter is rebuilt from the exact set after expired entries are
+ * purged. Lookups are lock-free, writes are serialized since they are rare.
+ * </p>
+ */
+public class TokenDenylist {
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final int expectedSize;
+    // Token id to its expiration in epoch milliseconds.
+    private final Map<String, Long> entries = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    public TokenDenylist(int expectedSize) {
+        this.expectedSize = expectedSize;
+        this.filter = new BloomFilter(expectedSize, FALSE_POSITIVE_PROBABILITY);
+    }
+
+    /**
+     * Adds token id to the denylist.
+     *
+     * @param tokenId    id of the revoked token.
+     * @param expiration expiration of the token in epoch milliseconds, entry is purged after it.
+     */
+    public synchronized void add(String tokenId, long expiration) {
+        entries.put(tokenId, expiration);
+        filter.put(tokenId);
+    }
+
+    public boolean contains(String tokenId) {
+        return filter.mightContain(tokenId) && entries.containsKey(tokenId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes entries expired at the given moment and rebuilds the Bloom filter if anything was removed.
+     *
+     * @param now current time in epoch milliseconds.
+     * @return number of removed entries.
+     */
+    public synchronized int purgeExpired(long now) {
+        final int before = entries.size();
+        entries.values().removeIf(expiration -> expiration <= now);
+        final int removed = before - entries.size();
+
+        if (removed > 0) {
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedSize, entries.size() * 2), FALSE_POSITIVE_PROBABILITY);
+            entries.keySet().forEach(rebuilt::put);
+            filter = rebuilt;
+        }
+        return removed;
+    }
+
+    /**
+     * Fixed size Bloom filter over strings using double hashing of a 64-bit hash.
+     */
+    private static final class BloomFilter {
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedInsertions, double falsePositiveProbability) {
+            final double ln2 = Math.log(2);
+            final long optimalBits = (long) (-expectedInsertions * Math.log(falsePositiveProbability) / (ln2 * ln2));
+            bits = new AtomicLongArray((int) ((Math.max(64, optimalBits) + 63) >>> 6));
+            bitCount = (long) bits.length() << 6;
+            hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+        }
+
+        void put(String key) {
+            final long hash = hash(key);
+            final int h1 = (int) hash;
+            final int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                final long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+                final long mask = 1L << index;
+                bits.accumulateAndGet((int) (index >>> 6), mask, (current, bit) -> current | bit);
+            }
+        }
+
+        boolean mightContain(String key) {
+            final long hash = hash(key);
+            final int h1 = (int) hash;
+            final int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                final long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a over chars followed by the MurmurHash3 finalizer, so both halves are well mixed.
+        private static long hash(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash ^= key.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.github.togrul2.booklet.security;
+
+public enum TokenType {
+    ACCESS,
+    REFRESH
+}
@@ -1,14 +1,19 @@
 package com.github.togrul2.booklet.services;
 
+import com.github.togrul2.booklet.annotations.IsAdmin;
 import com.github.togrul2.booklet.dtos.auth.LoginDto;
 import com.github.togrul2.booklet.dtos.auth.RefreshRequestDto;
+import com.github.togrul2.booklet.dtos.auth.RevokeRequestDto;
 import com.github.togrul2.booklet.dtos.auth.TokenPairDto;
 import com.github.togrul2.booklet.entities.Token;
 import com.github.togrul2.booklet.entities.User;
+import com.github.togrul2.booklet.repositories.UserRepository;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -16,15 +21,34 @@ import org.springframework.stereotype.Service;
 public class AuthService {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final UserRepository userRepository;
+    private final TokenGenerationService tokenGenerationService;
+    private final TokenDenylistService tokenDenylistService;
+    private final UserCache userCache;
 
+    /**
+     * Checks user credentials and issues new token pair. If the stored password was hashed with a bcrypt cost
+     * other than the configured one, it is rehashed with the configured cost.
+     *
+     * @param loginDto Dto containing email and password.
+     * @return TokenPairDto containing access and refresh tokens.
+     * @throws UsernameNotFoundException If user is not found or password does not match.
+     */
     public TokenPairDto login(LoginDto loginDto) {
         User user = (User) userDetailsService.loadUserByUsername(loginDto.email());
 
-        if (!passwordEncoder.matches(loginDto.password(), user.getPassword())) {
+        if (!passwordHashingService.matches(loginDto.password(), user.getPassword())) {
             throw new UsernameNotFoundException("User not found");
         }
 
+        if (passwordHashingService.needsRehash(user.getPassword())) {
+            // User may come from the cache and be stale, e.g. miss a logout-all from another node, so it is neither
+            // changed nor merged. Only the password is updated and the user is loaded again next time.
+            userRepository.updatePassword(user.getId(), passwordHashingService.encode(loginDto.password()));
+            userCache.removeUserFromCache(user.getEmail());
+        }
+
         Token refreshToken = jwtService.createAndStoreRefreshToken(user, user.getRole());
         return TokenPairDto
                 .builder()
@@ -81,4 +105,46 @@ public class AuthService {
     public void validate(RefreshRequestDto refreshRequestDto) {
         jwtService.validateRefreshToken(refreshRequestDto.refreshToken());
     }
+
+    /**
+     * Revokes the token before it expires. Works for both access and refresh tokens, possession of the token is
+     * enough to revoke it.
+     *
+     * @param revokeRequestDto Dto containing the token to revoke.
+     * @throws io.jsonwebtoken.JwtException If the token is invalid, expired or already revoked.
+     */
+    public void revoke(RevokeRequestDto revokeRequestDto) {
+        tokenDenylistService.revoke(jwtService.verify(revokeRequestDto.token()));
+    }
+
+    /**
+     * Logs the owner of the refresh token out of all sessions. Every access and refresh token issued to the user
+     * so far, including the given one, cannot be used anymore.
+     *
+     * @param refreshRequestDto Dto containing active refresh token of the user.
+     * @throws JwtException If the token is not an active refresh token.
+     */
+    public void logoutAll(RefreshRequestDto refreshRequestDto) {
+        final String refreshToken = refreshRequestDto.refreshToken();
+        jwtService.validateRefreshToken(refreshToken);
+        // Looked up by id, the email in the token may have changed since it was issued.
+        User user = userRepository
+                .findById(jwtService.verify(refreshToken).userId())
+                .orElseThrow(() -> new JwtException("Bad refresh token"));
+        tokenGenerationService.revokeAll(user);
+    }
+
+    /**
+     * Logs the user out of all sessions. Authenticated user must be admin.
+     *
+     * @param userId target user's id.
+     * @throws ResourceNotFoundException If user is not found.
+     */
+    @IsAdmin
+    public void logoutAll(long userId) {
+        User user = userRepository
+                .findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        tokenGenerationService.revokeAll(user);
+    }
 }
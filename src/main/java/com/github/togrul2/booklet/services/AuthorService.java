@@ -1,6 +1,8 @@
 package com.github.togrul2.booklet.services;
 
 import com.github.togrul2.booklet.annotations.IsAdmin;
+import com.github.togrul2.booklet.dtos.CountMode;
+import com.github.togrul2.booklet.dtos.CursorPageDto;
 import com.github.togrul2.booklet.dtos.author.AuthorDto;
 import com.github.togrul2.booklet.dtos.author.AuthorFilterDto;
 import com.github.togrul2.booklet.dtos.author.AuthorRequestDto;
@@ -8,19 +10,28 @@ import com.github.togrul2.booklet.entities.Author;
 import com.github.togrul2.booklet.mappers.AuthorMapper;
 import com.github.togrul2.booklet.repositories.AuthorRepository;
 import com.github.togrul2.booklet.specifications.AuthorSpecificationAssembler;
+import com.github.togrul2.booklet.specifications.KeysetPagination;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @AllArgsConstructor
 public class AuthorService {
+    private static final KeysetPagination<Author> KEYSET_PAGINATION = new KeysetPagination<>(
+            Author.class, Set.of("name", "surname"), List.of()
+    );
     private final AuthorRepository authorRepository;
+    private final PageCountService pageCountService;
+    private final SuggestionService suggestionService;
 
     public Page<AuthorDto> findAll(Pageable pageable, AuthorFilterDto filterDto) {
         Optional<Specification<Author>> specification = AuthorSpecificationAssembler
@@ -36,6 +47,50 @@ public class AuthorService {
                 .map(AuthorMapper.INSTANCE::toAuthorDto);
     }
 
+    /**
+     * Finds authors counting total elements as requested, see {@link PageCountService}.
+     *
+     * @param pageable  page to find.
+     * @param filterDto filter of the authors.
+     * @param countMode how total elements are counted.
+     * @return page with total elements or a slice if they are not counted.
+     */
+    public Slice<AuthorDto> findAll(Pageable pageable, AuthorFilterDto filterDto, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return findAll(pageable, filterDto);
+        }
+        Specification<Author> specification = AuthorSpecificationAssembler
+                .builder()
+                .filterDto(filterDto)
+                .build()
+                .getSpecification()
+                .orElse(null);
+        return pageCountService
+                .findAll(authorRepository, "author", specification, filterDto, pageable, countMode)
+                .map(AuthorMapper.INSTANCE::toAuthorDto);
+    }
+
+    /**
+     * Finds authors in cursor mode, see {@link KeysetPagination}.
+     *
+     * @param cursor    cursor returned with the previous page, blank for the first page.
+     * @param pageable  size of the page and, for the first page, sorting by id, name or surname.
+     * @param filterDto filter of the authors.
+     * @return page with the cursor of the next one.
+     * @throws IllegalArgumentException If the cursor is malformed or sorting is not supported.
+     */
+    public CursorPageDto<AuthorDto> findAllByCursor(String cursor, Pageable pageable, AuthorFilterDto filterDto) {
+        Specification<Author> specification = AuthorSpecificationAssembler
+                .builder()
+                .filterDto(filterDto)
+                .build()
+                .getSpecification()
+                .orElse(null);
+        return KEYSET_PAGINATION
+                .find(authorRepository, specification, cursor, pageable)
+                .map(AuthorMapper.INSTANCE::toAuthorDto);
+    }
+
     public AuthorDto findById(long id) {
         return authorRepository
                 .findById(id)
@@ -45,8 +100,9 @@ public class AuthorService {
 
     @IsAdmin
     public AuthorDto create(AuthorRequestDto createAuthorDto) {
-        Author author = AuthorMapper.INSTANCE.toAuthor(createAuthorDto);
-        return AuthorMapper.INSTANCE.toAuthorDto(authorRepository.save(author));
+        Author author = authorRepository.save(AuthorMapper.INSTANCE.toAuthor(createAuthorDto));
+        suggestionService.putAuthor(author);
+        return AuthorMapper.INSTANCE.toAuthorDto(author);
     }
 
     @IsAdmin
@@ -62,11 +118,14 @@ public class AuthorService {
         Optional.ofNullable(authorRequestDto.deathDate()).ifPresent(author::setDeathDate);
         Optional.ofNullable(authorRequestDto.biography()).ifPresent(author::setBiography);
 
-        return AuthorMapper.INSTANCE.toAuthorDto(authorRepository.save(author));
+        Author savedAuthor = authorRepository.save(author);
+        suggestionService.putAuthor(savedAuthor);
+        return AuthorMapper.INSTANCE.toAuthorDto(savedAuthor);
     }
 
     @IsAdmin
     public void delete(long id) {
         authorRepository.deleteById(id);
+        suggestionService.removeAuthor(id);
     }
 }
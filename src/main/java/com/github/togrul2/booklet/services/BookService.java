@@ -1,38 +1,68 @@
 package com.github.togrul2.booklet.services;
 
 import com.github.togrul2.booklet.annotations.IsAdmin;
-import com.github.togrul2.booklet.dtos.book.BookDto;
-import com.github.togrul2.booklet.dtos.book.BookFilterDto;
-import com.github.togrul2.booklet.dtos.book.BookRequestDto;
+import com.github.togrul2.booklet.dtos.CountMode;
+import com.github.togrul2.booklet.dtos.CursorPageDto;
+import com.github.togrul2.booklet.dtos.book.*;
+import com.github.togrul2.booklet.dtos.reservation.ReservationIntervalDto;
 import com.github.togrul2.booklet.entities.Author;
 import com.github.togrul2.booklet.entities.Book;
 import com.github.togrul2.booklet.entities.Genre;
+import com.github.togrul2.booklet.events.ReservationBatchCreatedEvent;
+import com.github.togrul2.booklet.events.ReservationChangedEvent;
+import com.github.togrul2.booklet.events.ReservationCreatedEvent;
+import com.github.togrul2.booklet.events.ReservationDeletedEvent;
+import com.github.togrul2.booklet.events.WaitlistPromotedEvent;
 import com.github.togrul2.booklet.mappers.BookMapper;
 import com.github.togrul2.booklet.repositories.AuthorRepository;
 import com.github.togrul2.booklet.repositories.BookRepository;
 import com.github.togrul2.booklet.repositories.GenreRepository;
+import com.github.togrul2.booklet.repositories.ReservationRepository;
 import com.github.togrul2.booklet.specifications.BookSpecificationAssembler;
+import com.github.togrul2.booklet.specifications.KeysetPagination;
 import lombok.AllArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @AllArgsConstructor
 public class BookService {
+    public static final String AVAILABILITY_CACHE = "book-availability";
+    private static final Duration MAXIMUM_AVAILABILITY_RANGE = Duration.ofDays(366);
+    private static final KeysetPagination<Book> KEYSET_PAGINATION = new KeysetPagination<>(
+            Book.class, Set.of("title", "year"), List.of("author", "genre")
+    );
     private final BookRepository bookRepository;
+    private final PageCountService pageCountService;
     private final GenreRepository genreRepository;
     private final AuthorRepository authorRepository;
+    private final ReservationRepository reservationRepository;
+    private final ReservationIndexService reservationIndexService;
+    private final SuggestionService suggestionService;
+    private final CacheManager cacheManager;
 
     public Page<BookDto> findAll(Pageable pageable, BookFilterDto filterDto) {
         Optional<Specification<Book>> specification = BookSpecificationAssembler
                 .builder()
                 .filterDto(filterDto)
+                .reservedBookIds(findReservedBookIds(filterDto))
                 .build()
                 .getSpecification();
 
@@ -44,11 +74,181 @@ public class BookService {
                 .map(BookMapper.INSTANCE::toBookDto);
     }
 
+    /**
+     * Finds books counting total elements as requested, see {@link PageCountService}.
+     *
+     * @param pageable  page to find.
+     * @param filterDto filter of the books.
+     * @param countMode how total elements are counted.
+     * @return page with total elements or a slice if they are not counted.
+     */
+    public Slice<BookDto> findAll(Pageable pageable, BookFilterDto filterDto, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return findAll(pageable, filterDto);
+        }
+        Specification<Book> specification = BookSpecificationAssembler
+                .builder()
+                .filterDto(filterDto)
+                .reservedBookIds(findReservedBookIds(filterDto))
+                .build()
+                .getSpecification()
+                .orElse(null);
+        return pageCountService
+                .findAll(bookRepository, "book", specification, filterDto, pageable, countMode)
+                .map(BookMapper.INSTANCE::toBookDto);
+    }
+
+    /**
+     * Finds books in cursor mode, see {@link KeysetPagination}. Pages cost the same at any depth and are not counted.
+     *
+     * @param cursor    cursor returned with the previous page, blank for the first page.
+     * @param pageable  size of the page and, for the first page, sorting by id, title or year.
+     * @param filterDto filter of the books.
+     * @return page with the cursor of the next one.
+     * @throws IllegalArgumentException If the cursor is malformed or sorting is not supported.
+     */
+    public CursorPageDto<BookDto> findAllByCursor(String cursor, Pageable pageable, BookFilterDto filterDto) {
+        Specification<Book> specification = BookSpecificationAssembler
+                .builder()
+                .filterDto(filterDto)
+                .reservedBookIds(findReservedBookIds(filterDto))
+                .build()
+                .getSpecification()
+                .orElse(null);
+        return KEYSET_PAGINATION
+                .find(bookRepository, specification, cursor, pageable)
+                .map(BookMapper.INSTANCE::toBookDto);
+    }
+
+    /**
+     * Finds books reserved on any day of the availability range of the filter. Answered from day bitmaps of the
+     * reservation index, so books are filtered before paging without a query per book. If only one bound is given,
+     * the range is that single day.
+     *
+     * @param filterDto filter with optional availability range, both bounds inclusive.
+     * @return ids of reserved books or null if the filter has no availability range.
+     * @throws IllegalArgumentException If the range ends before it starts.
+     */
+    private List<Long> findReservedBookIds(BookFilterDto filterDto) {
+        if (filterDto.availableFrom() == null && filterDto.availableTo() == null) {
+            return null;
+        }
+        LocalDate from = Optional.ofNullable(filterDto.availableFrom()).orElse(filterDto.availableTo());
+        LocalDate to = Optional.ofNullable(filterDto.availableTo()).orElse(filterDto.availableFrom());
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Invalid availability range.");
+        }
+        return reservationIndexService.findReservedBooks(from, to);
+    }
+
     public BookDto findById(long id) {
         Book book = bookRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Book not found."));
         return BookMapper.INSTANCE.toBookDto(book);
     }
 
+    /**
+     * Finds free windows of the book within {@code [from, to)}. Windows in the past are never free, so the range is
+     * clamped to start now at the earliest.
+     * <p>
+     * Upcoming reservations of the book are loaded with one range query ordered by start and cached per book until
+     * a reservation of the book is written. Free windows are the gaps between them, found in a single pass.
+     * </p>
+     *
+     * @param id   id of the book.
+     * @param from start of the range, inclusive.
+     * @param to   end of the range, exclusive.
+     * @return free windows ordered by start.
+     * @throws ResourceNotFoundException If the book does not exist.
+     * @throws IllegalArgumentException  If the range is empty or longer than a year.
+     */
+    public BookAvailabilityDto findAvailability(long id, LocalDateTime from, LocalDateTime to) {
+        final LocalDateTime now = LocalDateTime.now();
+        final LocalDateTime start = from.isBefore(now) ? now : from;
+        if (!start.isBefore(to)) {
+            throw new IllegalArgumentException("Invalid availability range.");
+        }
+        if (Duration.between(start, to).compareTo(MAXIMUM_AVAILABILITY_RANGE) > 0) {
+            throw new IllegalArgumentException("Maximum availability range is 1 year.");
+        }
+
+        final List<ReservationIntervalDto> reservations;
+        try {
+            reservations = getAvailabilityCache().get(id, () -> {
+                if (!bookRepository.existsById(id)) {
+                    throw new ResourceNotFoundException("Book not found.");
+                }
+                return reservationRepository.findUpcomingIntervals(id, now);
+            });
+        } catch (Cache.ValueRetrievalException e) {
+            // Cache wraps exceptions of the loader.
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return new BookAvailabilityDto(id, start, to, findFreeWindows(reservations, start, to));
+    }
+
+    /**
+     * Collects gaps between reservations within {@code [from, to)}. Reservations must be ordered by start,
+     * overlapping and adjacent ones are merged on the way.
+     */
+    static List<FreeWindowDto> findFreeWindows(
+            List<ReservationIntervalDto> reservations,
+            LocalDateTime from,
+            LocalDateTime to
+    ) {
+        List<FreeWindowDto> windows = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (ReservationIntervalDto reservation : reservations) {
+            if (!reservation.startDate().isBefore(to)) {
+                break;
+            }
+            if (reservation.startDate().isAfter(cursor)) {
+                windows.add(new FreeWindowDto(cursor, reservation.startDate()));
+            }
+            if (reservation.endDate().isAfter(cursor)) {
+                cursor = reservation.endDate();
+            }
+        }
+        if (cursor.isBefore(to)) {
+            windows.add(new FreeWindowDto(cursor, to));
+        }
+        return windows;
+    }
+
+    private Cache getAvailabilityCache() {
+        return Objects.requireNonNull(cacheManager.getCache(AVAILABILITY_CACHE));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservationCreated(ReservationCreatedEvent event) {
+        getAvailabilityCache().evict(event.bookId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservationBatchCreated(ReservationBatchCreatedEvent event) {
+        event.reservations().forEach(reservation -> getAvailabilityCache().evict(reservation.bookId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onWaitlistPromoted(WaitlistPromotedEvent event) {
+        getAvailabilityCache().evict(event.reservation().bookId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        getAvailabilityCache().evict(event.bookId());
+        if (event.previousBookId() != event.bookId()) {
+            getAvailabilityCache().evict(event.previousBookId());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservationDeleted(ReservationDeletedEvent event) {
+        getAvailabilityCache().evict(event.bookId());
+    }
+
     /**
      * Validates if the book with the same ISBN already exists.
      *
@@ -75,7 +275,9 @@ public class BookService {
         book.setAuthor(author);
         book.setGenre(genre);
         validateBook(book);
-        return BookMapper.INSTANCE.toBookDto(bookRepository.save(book));
+        Book savedBook = bookRepository.save(book);
+        suggestionService.putBook(savedBook);
+        return BookMapper.INSTANCE.toBookDto(savedBook);
     }
 
     @IsAdmin
@@ -108,11 +310,14 @@ public class BookService {
                 );
 
         validateBook(book);
-        return BookMapper.INSTANCE.toBookDto(bookRepository.save(book));
+        Book savedBook = bookRepository.save(book);
+        suggestionService.putBook(savedBook);
+        return BookMapper.INSTANCE.toBookDto(savedBook);
     }
 
     @IsAdmin
     public void delete(long id) {
         bookRepository.deleteById(id);
+        suggestionService.removeBook(id);
     }
 }
@@ -0,0 +1,135 @@
+package com.github.togrul2.booklet.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.togrul2.booklet.annotations.IsAdmin;
+import com.github.togrul2.booklet.entities.ReservationStatus;
+import com.github.togrul2.booklet.exports.ExportFormat;
+import com.github.togrul2.booklet.exports.ExportWriter;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Full exports of the catalog and reservations, e.g. for reporting, streamed to the client as they are read.
+ * <p>
+ * Rows are read through a forward-only cursor fetching {@code booklet.export.fetch-size} rows at a time and written
+ * to the output right away, so memory stays flat regardless of the size of the table and no page is counted or
+ * skipped with an offset. Writes block while the client is behind, which holds back fetching further rows.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+    private static final List<String> BOOK_COLUMNS = List.of(
+            "id", "title", "isbn", "year", "authorId", "authorName", "authorSurname", "genre"
+    );
+    private static final String BOOKS = """
+            SELECT b.id, b.title, b.isbn, b.year, a.id, a.name, a.surname, g.slug
+            FROM book b
+            LEFT JOIN author a ON a.id = b.author_id
+            LEFT JOIN genre g ON g.id = b.genre_id
+            ORDER BY b.id
+            """;
+    private static final List<String> RESERVATION_COLUMNS = List.of(
+            "id", "userId", "userEmail", "bookId", "bookIsbn", "startDate", "endDate", "status"
+    );
+    private static final String RESERVATIONS = """
+            SELECT r.id, r.user_id, u.email, r.book_id, b.isbn, r.start_date, r.end_date, r.status
+            FROM reservation r
+            LEFT JOIN accounts u ON u.id = r.user_id
+            LEFT JOIN book b ON b.id = r.book_id
+            ORDER BY r.id
+            """;
+    private static final ReservationStatus[] STATUSES = ReservationStatus.values();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    @Value("${booklet.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Writes all books ordered by id, including ones without an ISBN, author or genre, whose columns are left empty.
+     * Columns match {@link ImportService#importBooks}, so the export can be imported into another instance, except for
+     * those books, which the import rejects as it requires all of them.
+     */
+    @IsAdmin
+    @Transactional
+    public void exportBooks(OutputStream output, ExportFormat format) throws IOException {
+        export(output, format, BOOKS, BOOK_COLUMNS, rs -> new Object[]{
+                rs.getLong(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getInt(4),
+                rs.getObject(5, Long.class),
+                rs.getString(6),
+                rs.getString(7),
+                rs.getString(8)
+        });
+    }
+
+    /**
+     * Writes all reservations ordered by id.
+     */
+    @IsAdmin
+    @Transactional
+    public void exportReservations(OutputStream output, ExportFormat format) throws IOException {
+        export(output, format, RESERVATIONS, RESERVATION_COLUMNS, rs -> new Object[]{
+                rs.getLong(1),
+                rs.getObject(2, Long.class),
+                rs.getString(3),
+                rs.getObject(4, Long.class),
+                rs.getString(5),
+                rs.getObject(6, LocalDateTime.class),
+                rs.getObject(7, LocalDateTime.class),
+                STATUSES[rs.getInt(8)]
+        });
+    }
+
+    /**
+     * Streams rows of the query. Postgres only fetches rows with a cursor within a transaction, otherwise the whole
+     * result is loaded at once, so callers must be transactional.
+     */
+    private void export(
+            OutputStream output,
+            ExportFormat format,
+            String query,
+            List<String> columns,
+            RowValues rowValues
+    ) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        final ExportWriter exportWriter = ExportWriter.of(format, writer, objectMapper, columns);
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY
+                    );
+                    statement.setFetchSize(fetchSize);
+                    return statement;
+                },
+                (RowCallbackHandler) rs -> {
+                    try {
+                        exportWriter.write(rowValues.of(rs));
+                    } catch (IOException e) {
+                        // Client went away, which ends the query.
+                        throw new UncheckedIOException(e);
+                    }
+                }
+        );
+        exportWriter.flush();
+    }
+
+    private interface RowValues {
+        Object[] of(ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,286 @@
+package com.github.togrul2.booklet.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.togrul2.booklet.annotations.IsAdmin;
+import com.github.togrul2.booklet.dtos.author.AuthorImportRowDto;
+import com.github.togrul2.booklet.dtos.book.BookImportRowDto;
+import com.github.togrul2.booklet.dtos.imports.ImportErrorDto;
+import com.github.togrul2.booklet.dtos.imports.ImportResultDto;
+import com.github.togrul2.booklet.events.CatalogImportedEvent;
+import com.github.togrul2.booklet.imports.ImportFormat;
+import com.github.togrul2.booklet.imports.ImportReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk imports of books and authors, e.g. publisher feeds, from CSV or NDJSON.
+ * <p>
+ * Input is read a row at a time and written with Postgres {@code COPY} in chunks of {@code booklet.import.chunk-size}
+ * rows, so memory does not grow with the input and rows bypass Hibernate. Authors and genres of books are resolved
+ * through maps and ISBNs are checked against a set, each loaded with one query per import instead of queries per row.
+ * </p>
+ * <p>
+ * Invalid rows are reported with their line and skipped. Every chunk is committed on its own, if Postgres rejects one,
+ * e.g. because a concurrent write took one of its ISBNs, all rows of the chunk are reported and the import goes on.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImportService {
+    private static final String COPY_BOOKS =
+            "COPY book (title, isbn, year, author_id, genre_id) FROM STDIN (FORMAT csv)";
+    private static final String COPY_AUTHORS =
+            "COPY author (name, surname, birth_date, death_date, biography) FROM STDIN (FORMAT csv)";
+    // Marks names shared by several authors, rows cannot tell which one they mean.
+    private static final long AMBIGUOUS = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    @Value("${booklet.import.chunk-size:10000}")
+    private int chunkSize;
+    @Value("${booklet.import.max-errors:1000}")
+    private int maxErrors;
+
+    /**
+     * Imports books. Books are rejected if the author or the genre does not exist or the ISBN is taken, including by
+     * an earlier row of the same input.
+     *
+     * @param input  rows of {@link BookImportRowDto}, UTF-8 encoded.
+     * @param format format of the input.
+     * @return number of imported books and errors of rejected ones.
+     */
+    @IsAdmin
+    public ImportResultDto importBooks(InputStream input, ImportFormat format) throws IOException {
+        final Map<String, Long> genres = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, slug FROM genre",
+                (RowCallbackHandler) rs -> genres.put(rs.getString("slug"), rs.getLong("id"))
+        );
+        final Map<String, Long> authors = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, name, surname FROM author",
+                (RowCallbackHandler) rs -> authors.merge(
+                        authorKey(rs.getString("name"), rs.getString("surname")),
+                        rs.getLong("id"),
+                        (_, _) -> AMBIGUOUS
+                )
+        );
+        final Set<String> isbns = new HashSet<>();
+        jdbcTemplate.query(
+                "SELECT isbn FROM book WHERE isbn IS NOT NULL",
+                (RowCallbackHandler) rs -> isbns.add(rs.getString("isbn"))
+        );
+
+        return new ImportJob<>("book", COPY_BOOKS, new RowWriter<BookImportRowDto>() {
+            @Override
+            public Object[] columns(BookImportRowDto row) {
+                final Long authorId = authors.get(authorKey(row.authorName(), row.authorSurname()));
+                if (authorId == null) {
+                    throw new IllegalArgumentException("Author not found.");
+                }
+                if (authorId == AMBIGUOUS) {
+                    throw new IllegalArgumentException("Several authors have this name.");
+                }
+                final Long genreId = genres.get(row.genre());
+                if (genreId == null) {
+                    throw new IllegalArgumentException("Genre not found.");
+                }
+                if (!isbns.add(row.isbn())) {
+                    throw new IllegalArgumentException("Book with this ISBN already exists.");
+                }
+                return new Object[]{row.title(), row.isbn(), row.year(), authorId, genreId};
+            }
+
+            @Override
+            public void rollback(BookImportRowDto row) {
+                isbns.remove(row.isbn());
+            }
+        }).run(input, format, BookImportRowDto.class);
+    }
+
+    /**
+     * Imports authors. Books of later imports find them by name and surname.
+     *
+     * @param input  rows of {@link AuthorImportRowDto}, UTF-8 encoded.
+     * @param format format of the input.
+     * @return number of imported authors and errors of rejected ones.
+     */
+    @IsAdmin
+    public ImportResultDto importAuthors(InputStream input, ImportFormat format) throws IOException {
+        return new ImportJob<AuthorImportRowDto>("author", COPY_AUTHORS, row -> new Object[]{
+                row.name(), row.surname(), row.birthDate(), row.deathDate(), row.biography()
+        }).run(input, format, AuthorImportRowDto.class);
+    }
+
+    private static String authorKey(String name, String surname) {
+        return name.strip().toLowerCase(Locale.ROOT) + '\n' + surname.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Appends the value to {@code COPY} data in CSV format. Strings are always quoted, so empty strings are not taken
+     * for null.
+     */
+    private static void appendValue(StringBuilder data, Object value) {
+        if (value instanceof String text) {
+            data.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                final char c = text.charAt(i);
+                if (c == '"') {
+                    data.append('"');
+                }
+                data.append(c);
+            }
+            data.append('"');
+        } else if (value != null) {
+            data.append(value);
+        }
+    }
+
+    private static long copy(Connection connection, String sql, CharSequence data) throws SQLException {
+        try {
+            return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, new StringReader(data.toString()));
+        } catch (IOException e) {
+            // Data is read from memory.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Turns valid rows into columns of the table.
+     */
+    private interface RowWriter<T> {
+        /**
+         * @return values of the columns of the {@code COPY} statement.
+         * @throws IllegalArgumentException If the row is rejected.
+         */
+        Object[] columns(T row);
+
+        /**
+         * Called for rows accepted by {@link #columns} which were not imported since Postgres rejected their chunk.
+         */
+        default void rollback(T row) {
+        }
+    }
+
+    /**
+     * State of a single import.
+     */
+    private final class ImportJob<T> {
+        private final String table;
+        private final String statement;
+        private final RowWriter<T> writer;
+        private final StringBuilder data = new StringBuilder();
+        private final List<T> rows = new ArrayList<>();
+        private final List<Long> lines = new ArrayList<>();
+        private final List<ImportErrorDto> errors = new ArrayList<>();
+        private long imported;
+        private long rejected;
+
+        private ImportJob(String table, String statement, RowWriter<T> writer) {
+            this.table = table;
+            this.statement = statement;
+            this.writer = writer;
+        }
+
+        private ImportResultDto run(InputStream input, ImportFormat format, Class<T> type) throws IOException {
+            final Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+            try (ImportReader<T> rowReader = ImportReader.of(format, reader, objectMapper, type)) {
+                while (true) {
+                    try {
+                        final T row = rowReader.next();
+                        if (row == null) {
+                            break;
+                        }
+                        validate(row);
+                        append(rowReader.line(), row, writer.columns(row));
+                    } catch (IllegalArgumentException e) {
+                        reject(rowReader.line(), e.getMessage());
+                    }
+                    if (rows.size() >= chunkSize) {
+                        flush();
+                    }
+                }
+            }
+            flush();
+
+            log.info("Imported {} rows to {}, rejected {}.", imported, table, rejected);
+            if (imported > 0) {
+                eventPublisher.publishEvent(new CatalogImportedEvent(table, imported));
+            }
+            return new ImportResultDto(imported, rejected, errors);
+        }
+
+        private void validate(T row) {
+            final Set<ConstraintViolation<T>> violations = validator.validate(row);
+            if (!violations.isEmpty()) {
+                throw new IllegalArgumentException(violations
+                        .stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+            }
+        }
+
+        private void append(long line, T row, Object[] columns) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    data.append(',');
+                }
+                appendValue(data, columns[i]);
+            }
+            data.append('\n');
+            rows.add(row);
+            lines.add(line);
+        }
+
+        private void reject(long line, String error) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportErrorDto(line, error));
+            }
+        }
+
+        /**
+         * Copies the pending chunk in a transaction of its own.
+         */
+        private void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            try {
+                jdbcTemplate.execute((ConnectionCallback<Long>) connection -> copy(connection, statement, data));
+                imported += rows.size();
+            } catch (DataAccessException e) {
+                final String cause = e.getMostSpecificCause().getMessage();
+                log.warn("Import chunk rejected: {}", cause);
+                for (int i = 0; i < rows.size(); i++) {
+                    writer.rollback(rows.get(i));
+                    reject(lines.get(i), "Chunk rejected by the database: " + cause);
+                }
+            }
+            data.setLength(0);
+            rows.clear();
+            lines.clear();
+        }
+    }
+}
@@ -1,144 +1,219 @@
 package com.github.togrul2.booklet.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.github.togrul2.booklet.entities.Role;
 import com.github.togrul2.booklet.entities.Token;
 import com.github.togrul2.booklet.entities.User;
 import com.github.togrul2.booklet.repositories.TokenRepository;
+import com.github.togrul2.booklet.security.TokenClaims;
+import com.github.togrul2.booklet.security.TokenType;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
 
 
 @Service
 @RequiredArgsConstructor
 public class JwtService {
     private final TokenRepository tokenRepository;
+    private final TokenGenerationService tokenGenerationService;
+    private final TokenDenylistService tokenDenylistService;
     @Value("${spring.security.jwt.secret-key}")
     private String secretKey;
     @Value("${spring.security.jwt.access-expiration:300000}")
     private long accessTokenExpiration;  // In milliseconds.
     @Value("${spring.security.jwt.refresh-expiration:86400000}")
     private long refreshTokenExpiration;  // In milliseconds.
+    @Value("${spring.security.jwt.verified-cache-size:10000}")
+    private long verifiedTokenCacheSize;
 
-    private SecretKey getSecretKey() {
-        byte[] decodedKey = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(decodedKey);
+    // Built once from the configured secret, both are immutable and thread-safe.
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    // Tokens whose signature was already checked, each entry expires together with its token.
+    private Cache<String, TokenClaims> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        jwtParser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedTokens = Caffeine
+                .newBuilder()
+                .maximumSize(verifiedTokenCacheSize)
+                .expireAfter(new VerifiedTokenExpiry())
+                .build();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getSecretKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private TokenClaims parseClaims(String token) {
+        Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+        // Tokens issued before generations were introduced belong to the initial generation.
+        final Integer generation = claims.get("gen", Integer.class);
+        return new TokenClaims(
+                claims.getId(),
+                claims.get("user_id", Long.class),
+                claims.getSubject(),
+                Role.valueOf(claims.get("role", String.class)),
+                TokenType.valueOf(claims.get("type", String.class)),
+                generation != null ? generation : 0,
+                claims.getExpiration().toInstant()
+        );
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Verifies the token and returns its claims. Signature is checked only the first time a token is seen,
+     * subsequent calls with the same token are answered from the cache until the token expires.
+     * Token generation and the denylist are checked on every call, since both can change while the token is cached.
+     *
+     * @param token compact JWT string.
+     * @return verified claims of the token.
+     * @throws JwtException If the token is malformed, has a bad signature, is expired or was revoked.
+     */
+    public TokenClaims verify(@NonNull String token) {
+        TokenClaims claims = verifiedTokens.getIfPresent(token);
+        if (claims == null) {
+            claims = parseClaims(token);
+            verifiedTokens.put(token, claims);
+        } else if (claims.isExpired(Instant.now())) {
+            // Cache expiration is not exact, so never trust an entry past its own expiration.
+            verifiedTokens.invalidate(token);
+            throw new JwtException("JWT expired at " + claims.expiration());
+        }
+        if (!tokenGenerationService.isCurrent(claims) || tokenDenylistService.isRevoked(claims)) {
+            throw new JwtException("JWT has been revoked");
+        }
+        return claims;
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
 
     public Role extractRole(String jwtToken) {
-        return extractClaim(jwtToken, claims -> Role.valueOf((String) claims.get("role")));
+        return verify(jwtToken).role();
     }
 
-    private TokenType extractTokenType(String token) {
-        return extractClaim(token, claims -> TokenType.valueOf((String) claims.get("type")));
+    /**
+     * Computes SHA-256 digest of the token. Refresh tokens are stored and looked up by this fixed-width digest
+     * instead of the full token string.
+     *
+     * @param token compact JWT string.
+     * @return 32 byte digest of the token.
+     */
+    static byte[] digest(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM.", e);
+        }
     }
 
     private String createToken(HashMap<String, Object> claims, UserDetails userDetails, long expiration) {
-        // To make the token unique, we use the current time in milliseconds.
-        // This is done to prevent storing token uniqueness constraint in database.
-        claims.put("uid", Instant.now().toEpochMilli());
         final Date expirationDate = new Date(System.currentTimeMillis() + expiration);
         return Jwts
                 .builder()
                 .header()
                 .type("JWT")
                 .and()
+                // Random token id makes every issued token unique.
+                .id(UUID.randomUUID().toString())
                 .subject(userDetails.getUsername())
                 .claims(claims)
                 .expiration(expirationDate)
-                .signWith(getSecretKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     public boolean isAccessToken(String token) {
-        return extractTokenType(token).equals(TokenType.ACCESS);
+        return verify(token).isAccessToken();
     }
 
     public boolean isRefreshToken(String token) {
-        return extractTokenType(token).equals(TokenType.REFRESH);
+        return verify(token).isRefreshToken();
     }
 
     /**
-     * Validates the refresh token. Fetches token from the database,
-     * then checks if the token is a refresh token and if it is active.
+     * Validates the refresh token. Checks if the token is a refresh token,
+     * then fetches token from the database by its digest and checks if it is active.
      *
      * @param refreshToken The refresh token to validate.
      * @throws JwtException If the token is not a refresh token or if it is not active.
      */
     public void validateRefreshToken(String refreshToken) {
-        final boolean isTokenActive = tokenRepository
-                .findByToken(refreshToken)
-                .map(Token::isActive)
-                .orElse(false);
-
-        if (!isRefreshToken(refreshToken) || !isTokenActive) {
-            throw new JwtException("Bad refresh token");
-        }
+        findActiveRefreshToken(refreshToken);
     }
 
     /**
-     * Validates the refresh token. Checks if the token is a refresh token and if it is active.
-     * This method should be used when the token entity is available to avoid repetitive database queries.
+     * Finds the stored entity of an active refresh token.
      *
-     * @param token The refresh token to validate.
-     * @throws JwtException If the token is not a refresh token or if it is not active.
+     * @param refreshToken The refresh token to look up.
+     * @return Stored token entity.
+     * @throws JwtException If the token is not a refresh token, is unknown or is not active.
      */
-    private void validateRefreshToken(Token token) {
-        if (!isRefreshToken(token.getToken()) || !token.isActive()) {
+    private Token findActiveRefreshToken(String refreshToken) {
+        // Signature and type are checked first, so forged or access tokens never reach the database.
+        if (!isRefreshToken(refreshToken)) {
             throw new JwtException("Bad refresh token");
         }
+
+        return tokenRepository
+                .findByDigest(digest(refreshToken))
+                .filter(Token::isActive)
+                .orElseThrow(() -> new JwtException("Bad refresh token"));
     }
 
-    public String createAccessToken(UserDetails userDetails, Role role) {
+    // Only stored users have a generation, others are treated as the initial one.
+    private static int generationOf(UserDetails userDetails) {
+        return userDetails instanceof User user ? user.getTokenGeneration() : 0;
+    }
+
+    /**
+     * Creates claims shared by access and refresh tokens. Id of the user is added only for stored users.
+     */
+    private static HashMap<String, Object> createClaims(UserDetails userDetails, Role role, TokenType type) {
         HashMap<String, Object> claims = new HashMap<>(
                 Map.ofEntries(
-                        Map.entry("type", TokenType.ACCESS),
-                        Map.entry("role", role)
+                        Map.entry("type", type),
+                        Map.entry("role", role),
+                        Map.entry("gen", generationOf(userDetails))
                 )
         );
-        return createToken(claims, userDetails, accessTokenExpiration);
+        if (userDetails instanceof User user && user.getId() != null) {
+            claims.put("user_id", user.getId());
+        }
+        return claims;
+    }
+
+    public String createAccessToken(UserDetails userDetails, Role role) {
+        return createToken(createClaims(userDetails, role, TokenType.ACCESS), userDetails, accessTokenExpiration);
     }
 
     // TODO: Refactor, substitute role to claims.
     public String createRefreshToken(UserDetails userDetails, Role role) {
-        HashMap<String, Object> claims = new HashMap<>(
-                Map.ofEntries(
-                        Map.entry("type", TokenType.REFRESH),
-                        Map.entry("role", role)
-                )
-        );
-        return createToken(claims, userDetails, refreshTokenExpiration);
+        return createToken(createClaims(userDetails, role, TokenType.REFRESH), userDetails, refreshTokenExpiration);
     }
 
     public Token createAndStoreRefreshToken(User user, Role role) {
@@ -147,6 +222,8 @@ public class JwtService {
                 .builder()
                 .user(user)
                 .token(refreshToken)
+                .digest(digest(refreshToken))
+                .expiresAt(LocalDateTime.ofInstant(verify(refreshToken).expiration(), ZoneId.systemDefault()))
                 .active(true)
                 .build();
         return tokenRepository.save(token);
@@ -159,16 +236,28 @@ public class JwtService {
      * @throws JwtException If the token is not a refresh token or if it is not active.
      */
     public void deactivateRefreshToken(String refreshToken) {
-        Token token = tokenRepository
-                .findByToken(refreshToken)
-                .orElseThrow(() -> new JwtException("Bad refresh token"));
-
-        validateRefreshToken(token);
+        Token token = findActiveRefreshToken(refreshToken);
         token.setActive(false);
         tokenRepository.save(token);
     }
 
-    private enum TokenType {
-        ACCESS, REFRESH
+    /**
+     * Expires cached verification results at the moment the token itself expires.
+     */
+    private static class VerifiedTokenExpiry implements Expiry<String, TokenClaims> {
+        @Override
+        public long expireAfterCreate(String token, TokenClaims claims, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), claims.expiration()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, TokenClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, TokenClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -1,7 +1,9 @@
 package com.github.togrul2.booklet.services;
 
 import com.github.togrul2.booklet.clients.NotificationWebClient;
+import com.github.togrul2.booklet.events.ReservationBatchCreatedEvent;
 import com.github.togrul2.booklet.events.ReservationCreatedEvent;
+import com.github.togrul2.booklet.events.WaitlistPromotedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -9,6 +11,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.stream.Collectors;
+
 /**
  * Service responsible for sending notifications to the notification service.
  * Methods are invoked after the originating transaction has been committed,
@@ -28,20 +32,72 @@ public class NotificationService {
      */
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void onReservationCreated(ReservationCreatedEvent event) {
-        long userID = event.reservation().user().id();
         String message = String.format(
                 "Your reservation for book '%s' from '%s' until '%s' has been created successfully.",
-                event.reservation().book().title(),
-                event.reservation().startDate(),
-                event.reservation().endDate()
+                event.bookTitle(),
+                event.startDate(),
+                event.endDate()
         );
         log.info(
                 "Sending reservation notification: reservationId={}, bookId={}, userId={}",
-                event.reservation().id(),
-                event.reservation().book().id(),
-                event.reservation().user().id()
+                event.reservationId(),
+                event.bookId(),
+                event.userId()
         );
-        notificationWebClient.sendNotification(userID, message);
+        notificationWebClient.sendNotification(event.userId(), message);
+    }
+
+    /**
+     * Sends a single notification listing all reservations of a batch after it is committed.
+     *
+     * @param event the event carrying the created reservations
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservationBatchCreated(ReservationBatchCreatedEvent event) {
+        String message = event
+                .reservations()
+                .stream()
+                .map(reservation -> String.format(
+                        "'%s' from '%s' until '%s'",
+                        reservation.bookTitle(),
+                        reservation.startDate(),
+                        reservation.endDate()
+                ))
+                .collect(Collectors.joining(
+                        ", ",
+                        "Your reservations for %d books have been created successfully: ".formatted(
+                                event.reservations().size()
+                        ),
+                        "."
+                ));
+        log.info(
+                "Sending batch reservation notification: reservations={}, userId={}",
+                event.reservations().size(),
+                event.userId()
+        );
+        notificationWebClient.sendNotification(event.userId(), message);
     }
-}
 
+    /**
+     * Notifies the user that the awaited book was reserved for them after the promotion is committed.
+     *
+     * @param event the event carrying the reservation created from the waitlist entry
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onWaitlistPromoted(WaitlistPromotedEvent event) {
+        ReservationCreatedEvent reservation = event.reservation();
+        String message = String.format(
+                "Book '%s' you were waiting for has been reserved for you from '%s' until '%s'.",
+                reservation.bookTitle(),
+                reservation.startDate(),
+                reservation.endDate()
+        );
+        log.info(
+                "Sending waitlist notification: reservationId={}, bookId={}, userId={}",
+                reservation.reservationId(),
+                reservation.bookId(),
+                reservation.userId()
+        );
+        notificationWebClient.sendNotification(reservation.userId(), message);
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.dtos.CountMode;
+import com.github.togrul2.booklet.repositories.SliceSpecificationExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Finds pages of list endpoints counting total elements as requested by {@link CountMode}.
+ * <p>
+ * Estimated totals of unfiltered lists come from {@code pg_class.reltuples}, which autovacuum keeps close to the
+ * actual row count. Filtered lists and tables never analyzed fall back to an exact count cached per filter for the
+ * time to live of the cache, so repeated requests for further pages of the same filter count once.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class PageCountService {
+    public static final String COUNT_CACHE = "page-counts";
+    private static final String ESTIMATE_ROWS = "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+
+    /**
+     * Finds the page of entities matching the specification.
+     *
+     * @param repository    repository of the entity.
+     * @param table         table of the entity, used for estimates.
+     * @param specification filter of the entities, null if nothing is filtered.
+     * @param filter        filter the specification is built from, its string form keys cached counts.
+     * @param pageable      page to find.
+     * @param countMode     how total elements are counted.
+     * @return page with total elements or a slice if they are not counted.
+     */
+    public <T> Slice<T> findAll(
+            SliceSpecificationExecutor<T> repository,
+            String table,
+            Specification<T> specification,
+            Object filter,
+            Pageable pageable,
+            CountMode countMode
+    ) {
+        if (countMode == CountMode.EXACT) {
+            return repository.findAll(specification, pageable);
+        }
+
+        final Slice<T> slice = repository.findSlice(specification, pageable);
+        if (countMode == CountMode.NONE) {
+            return slice;
+        }
+
+        final long total = Optional
+                .ofNullable(specification == null ? estimateRows(table) : null)
+                .orElseGet(() -> countCached(repository, table, specification, filter));
+        // Estimate may be behind, but never claim fewer elements than already seen.
+        final long seen = pageable.getOffset() + slice.getNumberOfElements() + (slice.hasNext() ? 1 : 0);
+        return new PageImpl<>(slice.getContent(), pageable, Math.max(total, seen));
+    }
+
+    /**
+     * @return estimated number of rows or null if the table was never analyzed.
+     */
+    private Long estimateRows(String table) {
+        final Long rows = jdbcTemplate.queryForObject(ESTIMATE_ROWS, Long.class, table);
+        return rows != null && rows >= 0 ? rows : null;
+    }
+
+    private <T> long countCached(
+            SliceSpecificationExecutor<T> repository,
+            String table,
+            Specification<T> specification,
+            Object filter
+    ) {
+        final Cache cache = Objects.requireNonNull(cacheManager.getCache(COUNT_CACHE));
+        final Long count = cache.get(table + ";" + filter, () -> repository.count(specification));
+        return Objects.requireNonNull(count);
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.togrul2.booklet.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs password hashing on a dedicated executor sized to the number of CPUs.
+ * <p>
+ * Bcrypt is CPU-bound, so hashing on servlet threads lets a burst of logins occupy every worker and starve all other
+ * requests. Here hashing tasks wait in a bounded queue instead, and once the queue is full new tasks are rejected
+ * right away with {@link RejectedExecutionException}, which is answered with 503 and a Retry-After header. Queue depth
+ * and hashing latency are published as {@code booklet.password.hashing.queue} and {@code booklet.password.hashing}
+ * metrics.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class PasswordHashingService {
+    // Cost is the two-digit log rounds field of a bcrypt hash, e.g. "$2a$10$...".
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+    @Value("${spring.security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+    // Zero means one thread per available processor.
+    @Value("${spring.security.password.hashing.threads:0}")
+    private int threads;
+    @Value("${spring.security.password.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private Timer hashTimer;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        final int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        Gauge
+                .builder("booklet.password.hashing.queue", executor, e -> e.getQueue().size())
+                .description("Number of password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        hashTimer = Timer
+                .builder("booklet.password.hashing")
+                .description("Time spent hashing or matching a password")
+                .register(meterRegistry);
+        rejectedCounter = Counter
+                .builder("booklet.password.hashing.rejected")
+                .description("Number of password hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Encodes the raw password on the hashing executor.
+     *
+     * @param rawPassword password to encode.
+     * @return encoded password.
+     * @throws RejectedExecutionException If the hashing queue is full.
+     */
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Checks the raw password against the encoded one on the hashing executor.
+     *
+     * @param rawPassword     password to check.
+     * @param encodedPassword stored encoded password.
+     * @return true if passwords match.
+     * @throws RejectedExecutionException If the hashing queue is full.
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Checks whether the encoded password was hashed with a cost other than the configured one.
+     * Unlike {@link PasswordEncoder#upgradeEncoding(String)} this also detects a lowered cost.
+     *
+     * @param encodedPassword stored encoded password.
+     * @return true if the password should be encoded again.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != bcryptStrength;
+    }
+
+    private <T> T execute(Callable<T> task) {
+        final Future<T> future;
+        try {
+            future = executor.submit(() -> hashTimer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw e;
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed.", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.collections.DayBitmapIndex;
+import com.github.togrul2.booklet.collections.IntervalIndex;
+import com.github.togrul2.booklet.entities.ReservationStatus;
+import com.github.togrul2.booklet.events.ReservationBatchCreatedEvent;
+import com.github.togrul2.booklet.events.ReservationChangedEvent;
+import com.github.togrul2.booklet.events.ReservationCreatedEvent;
+import com.github.togrul2.booklet.events.ReservationDeletedEvent;
+import com.github.togrul2.booklet.events.WaitlistPromotedEvent;
+import com.github.togrul2.booklet.repositories.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory index of active reservations by book, answering availability questions without a query.
+ * <p>
+ * The index is loaded once the application is ready and kept in sync with reservation events published after commit.
+ * The database stays the source of truth: writes made by other nodes are not seen until the next reconciliation,
+ * which reloads the index and reports the number of entries that drifted as {@code booklet.reservations.index.drift}.
+ * Callers must therefore treat a busy answer as a hint and confirm it against the database, while a free answer is
+ * backed by the exclusion constraint on write.
+ * </p>
+ * <p>
+ * Reserved days of every book are also kept as day bitmaps derived from the intervals, so catalog searches for books
+ * free between two dates check every book without a query.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReservationIndexService {
+    private final ReservationRepository reservationRepository;
+    private final MeterRegistry meterRegistry;
+
+    private volatile IntervalIndex index = new IntervalIndex();
+    private volatile DayBitmapIndex dayIndex = new DayBitmapIndex();
+    private Counter driftCounter;
+
+    @PostConstruct
+    public void init() {
+        Gauge
+                .builder("booklet.reservations.index.size", this, service -> service.index.size())
+                .description("Number of active reservations in the availability index")
+                .register(meterRegistry);
+        driftCounter = Counter
+                .builder("booklet.reservations.index.drift")
+                .description("Number of index entries found out of sync with the database during reconciliation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks whether the book is reserved at some point of {@code [start, end)} according to the index.
+     *
+     * @param bookId id of the book.
+     * @param start  start of the interval, inclusive.
+     * @param end    end of the interval, exclusive.
+     * @return true if an indexed reservation overlaps the interval.
+     */
+    public boolean isReserved(long bookId, LocalDateTime start, LocalDateTime end) {
+        return index.overlaps(bookId, start, end);
+    }
+
+    /**
+     * Returns indexed reservations of the book overlapping {@code [from, to)} ordered by start.
+     */
+    public List<IntervalIndex.Interval> reservations(long bookId, LocalDateTime from, LocalDateTime to) {
+        return index.intervals(bookId, from, to);
+    }
+
+    /**
+     * Returns ids of books reserved on any day from {@code from} to {@code to}, both inclusive.
+     */
+    public List<Long> findReservedBooks(LocalDate from, LocalDate to) {
+        return dayIndex.reservedKeys(from, to);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservationCreated(ReservationCreatedEvent event) {
+        index.put(new IntervalIndex.Interval(
+                event.reservationId(), event.bookId(), event.startDate(), event.endDate()
+        ));
+        refreshDays(event.bookId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservationBatchCreated(ReservationBatchCreatedEvent event) {
+        event.reservations().forEach(this::onReservationCreated);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onWaitlistPromoted(WaitlistPromotedEvent event) {
+        onReservationCreated(event.reservation());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservationChanged(ReservationChangedEvent event) {
+        if (event.status() == ReservationStatus.CANCELLED || event.status() == ReservationStatus.EXPIRED) {
+            index.remove(event.reservationId());
+        } else {
+            index.put(new IntervalIndex.Interval(
+                    event.reservationId(), event.bookId(), event.startDate(), event.endDate()
+            ));
+        }
+        refreshDays(event.bookId());
+        if (event.previousBookId() != event.bookId()) {
+            refreshDays(event.previousBookId());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservationDeleted(ReservationDeletedEvent event) {
+        index.remove(event.reservationId());
+        refreshDays(event.bookId());
+    }
+
+    /**
+     * Rebuilds day bitmap of the book from its intervals. Synchronized, so the bitmap built from the latest
+     * intervals is never overwritten by one built from an older state by a concurrent event.
+     */
+    private synchronized void refreshDays(long bookId) {
+        dayIndex.set(bookId, index.intervals(bookId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        index = loadIndex();
+        dayIndex = DayBitmapIndex.of(index);
+        log.info("Loaded {} active reservations into availability index", index.size());
+    }
+
+    /**
+     * Rebuilds the index from the database and counts entries which were missing, stale or outdated. Finished
+     * reservations are dropped by the rebuild and are not counted as drift. Events committed while the index is
+     * rebuilt may be lost and are picked up by the next reconciliation.
+     */
+    @Scheduled(
+            initialDelayString = "${booklet.reservations.index.reconcile-interval:PT10M}",
+            fixedDelayString = "${booklet.reservations.index.reconcile-interval:PT10M}"
+    )
+    public void reconcile() {
+        final LocalDateTime now = LocalDateTime.now();
+        final IntervalIndex reloaded = loadIndex();
+        final Map<Long, IntervalIndex.Interval> expected = reloaded.snapshot();
+        final Map<Long, IntervalIndex.Interval> actual = index.snapshot();
+
+        long drift = expected
+                .entrySet()
+                .stream()
+                .filter(entry -> !Objects.equals(actual.get(entry.getKey()), entry.getValue()))
+                .count();
+        drift += actual
+                .values()
+                .stream()
+                .filter(interval -> interval.end().isAfter(now) && !expected.containsKey(interval.id()))
+                .count();
+
+        index = reloaded;
+        dayIndex = DayBitmapIndex.of(reloaded);
+        if (drift > 0) {
+            driftCounter.increment(drift);
+            log.warn("Availability index drifted from database by {} reservations", drift);
+        }
+    }
+
+    private IntervalIndex loadIndex() {
+        return IntervalIndex.of(reservationRepository
+                .findActiveIntervals(LocalDateTime.now())
+                .stream()
+                .map(dto -> new IntervalIndex.Interval(dto.id(), dto.bookId(), dto.startDate(), dto.endDate()))
+                .toList());
+    }
+}
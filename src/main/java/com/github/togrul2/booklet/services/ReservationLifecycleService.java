@@ -0,0 +1,162 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.entities.ReservationStatus;
+import com.github.togrul2.booklet.events.ReservationChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically moves reservations forward: activates them once their period starts and expires them once it ends.
+ * <p>
+ * Statuses are updated in chunks, each in its own short transaction. Due rows are picked with
+ * {@code FOR UPDATE SKIP LOCKED}, so several replicas can run the job at the same time and each row is moved by
+ * exactly one of them. Every moved reservation is announced with a {@link ReservationChangedEvent}, and only the
+ * cached entries of moved reservations are evicted, by id and by owner and id. Reservation pages are not cached, since
+ * this job changes them all the time. Number of moved reservations is published as
+ * {@code booklet.reservations.transitions} metric tagged with the new status.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReservationLifecycleService {
+    /**
+     * Transition of due reservations in one of the source statuses to the target status.
+     *
+     * @param target    status to move to.
+     * @param condition SQL condition selecting due reservations, takes current time as the only parameter.
+     * @param sources   statuses to move from.
+     */
+    private record Transition(ReservationStatus target, String condition, ReservationStatus... sources) {
+        String sql() {
+            final String sourceOrdinals = Arrays
+                    .stream(sources)
+                    .map(status -> String.valueOf(status.ordinal()))
+                    .collect(Collectors.joining(", "));
+            return """
+                    UPDATE reservation r
+                    SET status = %d
+                    FROM (
+                        SELECT id FROM reservation
+                        WHERE status IN (%s) AND %s
+                        ORDER BY id
+                        LIMIT ?
+                        FOR UPDATE SKIP LOCKED
+                    ) due
+                    WHERE r.id = due.id
+                    RETURNING r.id, r.user_id, r.book_id, r.start_date, r.end_date
+                    """.formatted(target.ordinal(), sourceOrdinals, condition);
+        }
+    }
+
+    // Expiry runs first, so a reservation whose whole period passed between runs is not activated at all.
+    private static final List<Transition> TRANSITIONS = List.of(
+            new Transition(
+                    ReservationStatus.EXPIRED,
+                    "end_date <= ?",
+                    ReservationStatus.RESERVED, ReservationStatus.PAID, ReservationStatus.ACTIVE
+            ),
+            new Transition(
+                    ReservationStatus.ACTIVE,
+                    "start_date <= ?",
+                    ReservationStatus.RESERVED, ReservationStatus.PAID
+            )
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+    @Value("${booklet.reservations.lifecycle.batch-size:500}")
+    private int batchSize;
+    @Value("${booklet.reservations.lifecycle.max-batches:100}")
+    private int maxBatches;
+
+    /**
+     * Runs all transitions until nothing is due or the maximum number of batches per transition is reached.
+     *
+     * @return number of moved reservations.
+     */
+    @Scheduled(
+            fixedDelayString = "${booklet.reservations.lifecycle.interval:PT1M}",
+            initialDelayString = "${booklet.reservations.lifecycle.initial-delay:PT1M}"
+    )
+    public long run() {
+        final LocalDateTime now = LocalDateTime.now();
+        long moved = 0;
+        for (Transition transition : TRANSITIONS) {
+            moved += run(transition, now);
+        }
+        if (moved > 0) {
+            log.info("Moved {} reservations forward", moved);
+        }
+        return moved;
+    }
+
+    private long run(Transition transition, LocalDateTime now) {
+        final String sql = transition.sql();
+        long moved = 0;
+
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<ReservationChangedEvent> events = transactionTemplate.execute(_ -> {
+                List<ReservationChangedEvent> changed = jdbcTemplate.query(
+                        sql,
+                        ps -> {
+                            ps.setTimestamp(1, Timestamp.valueOf(now));
+                            ps.setInt(2, batchSize);
+                        },
+                        (rs, _) -> new ReservationChangedEvent(
+                                rs.getLong("id"),
+                                rs.getObject("user_id", Long.class),
+                                rs.getLong("book_id"),
+                                rs.getLong("book_id"),
+                                rs.getTimestamp("start_date").toLocalDateTime(),
+                                rs.getTimestamp("end_date").toLocalDateTime(),
+                                transition.target()
+                        )
+                );
+                changed.forEach(eventPublisher::publishEvent);
+                return changed;
+            });
+
+            if (events == null || events.isEmpty()) {
+                break;
+            }
+            evict(events);
+            moved += events.size();
+            meterRegistry.counter("booklet.reservations.transitions", "status", transition.target().name())
+                    .increment(events.size());
+            if (events.size() < batchSize) {
+                break;
+            }
+        }
+        return moved;
+    }
+
+    private void evict(List<ReservationChangedEvent> events) {
+        Optional.ofNullable(cacheManager.getCache("reservation"))
+                .ifPresent(cache -> events.forEach(event -> cache.evict(event.reservationId())));
+        // Keyed the same way as in UserController#findReservationForAuthUserById.
+        Optional.ofNullable(cacheManager.getCache("authUserReservation"))
+                .ifPresent(cache -> events
+                        .stream()
+                        .filter(event -> event.userId() != null)
+                        .forEach(event -> cache.evict(event.userId() + ";" + event.reservationId())));
+    }
+}
@@ -0,0 +1,158 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.togrul2.booklet.repositories.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongToIntFunction;
+
+/**
+ * Serializes reservation writes per book until the end of the current transaction.
+ * <p>
+ * By default books are locked with Postgres transaction scoped advisory locks, which hold across replicas and are
+ * released on commit or rollback. A single node may use {@link Mode#STRIPED} locks instead, a fixed array of
+ * in-process locks selected by book id and released after completion of the transaction. Either way writes for
+ * different books do not wait for each other, apart from rare key collisions. Locks are always taken in ascending
+ * key order, so transactions locking several books cannot deadlock.
+ * </p>
+ * <p>
+ * A lock that could not be acquired right away counts as contention. Contended acquisitions and waiting time are
+ * published as {@code booklet.reservations.lock.contended} and {@code booklet.reservations.lock.wait} metrics, and
+ * the most contended books are tracked per node for the {@code hotbooks} actuator endpoint.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class ReservationLockService {
+    public enum Mode {
+        ADVISORY,
+        STRIPED,
+        NONE
+    }
+
+    // Advisory lock class of reservation locks, "RESV" in ASCII.
+    private static final int LOCK_CLASS = 0x52455356;
+    private static final int STRIPES = 256;
+
+    private final ReservationRepository reservationRepository;
+    private final MeterRegistry meterRegistry;
+    @Value("${booklet.reservations.lock.mode:ADVISORY}")
+    private Mode mode;
+    @Value("${booklet.reservations.lock.hot-books-size:1000}")
+    private long hotBooksSize;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private Cache<Long, LongAdder> contentionByBook;
+    private Counter contendedCounter;
+    private Timer waitTimer;
+
+    @PostConstruct
+    public void init() {
+        Arrays.setAll(stripes, _ -> new ReentrantLock());
+        contentionByBook = Caffeine.newBuilder().maximumSize(hotBooksSize).build();
+        contendedCounter = Counter
+                .builder("booklet.reservations.lock.contended")
+                .description("Number of reservation locks which had to wait for another transaction")
+                .register(meterRegistry);
+        waitTimer = Timer
+                .builder("booklet.reservations.lock.wait")
+                .description("Time spent waiting for contended reservation locks")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Locks the books until the current transaction completes.
+     *
+     * @param bookIds ids of the books to lock.
+     * @throws IllegalStateException If there is no active transaction.
+     */
+    public void lockBooks(Collection<Long> bookIds) {
+        if (mode == Mode.NONE || bookIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Reservation locks require an active transaction.");
+        }
+
+        final LongToIntFunction keyOf = mode == Mode.ADVISORY
+                ? Long::hashCode
+                : bookId -> Math.floorMod(Long.hashCode(bookId), STRIPES);
+        // One book per key, books sharing a key are covered by the same lock.
+        final SortedMap<Integer, Long> booksByKey = new TreeMap<>();
+        bookIds.forEach(bookId -> booksByKey.putIfAbsent(keyOf.applyAsInt(bookId), bookId));
+        booksByKey.forEach(this::lock);
+    }
+
+    public void lockBook(long bookId) {
+        lockBooks(List.of(bookId));
+    }
+
+    /**
+     * Returns the most contended books on this node with the number of contended lock acquisitions.
+     *
+     * @param limit maximum number of books to return.
+     * @return book ids mapped to contention count, most contended first.
+     */
+    public Map<Long, Long> findHotBooks(int limit) {
+        final Map<Long, Long> hotBooks = new LinkedHashMap<>();
+        contentionByBook
+                .asMap()
+                .entrySet()
+                .stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(limit)
+                .forEach(entry -> hotBooks.put(entry.getKey(), entry.getValue()));
+        return hotBooks;
+    }
+
+    private void lock(int key, long bookId) {
+        if (tryLock(key)) {
+            return;
+        }
+
+        contendedCounter.increment();
+        contentionByBook.get(bookId, _ -> new LongAdder()).increment();
+        final long start = System.nanoTime();
+        if (mode == Mode.ADVISORY) {
+            reservationRepository.advisoryXactLock(LOCK_CLASS, key);
+        } else {
+            stripes[key].lock();
+            releaseAfterCompletion(stripes[key]);
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private boolean tryLock(int key) {
+        if (mode == Mode.ADVISORY) {
+            return reservationRepository.tryAdvisoryXactLock(LOCK_CLASS, key);
+        }
+        if (stripes[key].tryLock()) {
+            releaseAfterCompletion(stripes[key]);
+            return true;
+        }
+        return false;
+    }
+
+    private static void releaseAfterCompletion(ReentrantLock lock) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+}
@@ -2,120 +2,477 @@ package com.github.togrul2.booklet.services;
 
 import com.github.togrul2.booklet.annotations.IsAdmin;
 import com.github.togrul2.booklet.annotations.IsUser;
-import com.github.togrul2.booklet.dtos.reservation.ReservationDto;
-import com.github.togrul2.booklet.dtos.reservation.ReservationRequestDto;
+import com.github.togrul2.booklet.collections.IntervalIndex;
+import com.github.togrul2.booklet.dtos.CountMode;
+import com.github.togrul2.booklet.dtos.CursorPageDto;
+import com.github.togrul2.booklet.dtos.reservation.*;
 import com.github.togrul2.booklet.entities.Book;
 import com.github.togrul2.booklet.entities.Reservation;
 import com.github.togrul2.booklet.entities.ReservationStatus;
 import com.github.togrul2.booklet.entities.User;
+import com.github.togrul2.booklet.events.ReservationBatchCreatedEvent;
+import com.github.togrul2.booklet.events.ReservationChangedEvent;
 import com.github.togrul2.booklet.events.ReservationCreatedEvent;
+import com.github.togrul2.booklet.events.ReservationDeletedEvent;
 import com.github.togrul2.booklet.mappers.ReservationMapper;
 import com.github.togrul2.booklet.repositories.BookRepository;
 import com.github.togrul2.booklet.repositories.ReservationRepository;
 import com.github.togrul2.booklet.repositories.UserRepository;
+import com.github.togrul2.booklet.security.AuthenticatedUser;
+import com.github.togrul2.booklet.specifications.KeysetPagination;
+import com.github.togrul2.booklet.specifications.ReservationSpecificationAssembler;
 import jakarta.transaction.Transactional;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class ReservationService {
     private static final Duration MINIMUM_RESERVATION_DURATION = Duration.ofDays(1);
+    // Postgres exclusion_violation, raised by the constraint on overlapping reservations of a book.
+    private static final String EXCLUSION_VIOLATION = "23P01";
+    // Postgres foreign_key_violation, raised by the reference to a user deleted after its token was issued.
+    private static final String FOREIGN_KEY_VIOLATION = "23503";
+    private static final KeysetPagination<Reservation> KEYSET_PAGINATION = new KeysetPagination<>(
+            Reservation.class, Set.of("startDate", "endDate"), List.of("user", "book", "book.author", "book.genre")
+    );
+    private static final String INSERT_RESERVATION = """
+            INSERT INTO reservation (user_id, book_id, start_date, end_date, status) VALUES (?, ?, ?, ?, ?)
+            """;
     private final ReservationRepository reservationRepository;
+    private final PageCountService pageCountService;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
+    private final ReservationIndexService reservationIndexService;
+    private final ReservationLockService reservationLockService;
+    private final WaitlistService waitlistService;
     private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
 
     @IsUser
-    public ReservationDto findById(long id) {
+    public ReservationDto findById(AuthenticatedUser currentUser, long id) {
         return reservationRepository
-                .findById(id)
+                .findAccessibleById(id, currentUser.getId(), currentUser.isAdmin())
                 .map(ReservationMapper.INSTANCE::toReservationDto)
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation not found."));
     }
 
     @IsAdmin
-    public Page<ReservationDto> findAll(Pageable pageable) {
-        return reservationRepository
-                .findAll(pageable)
+    public Page<ReservationDto> findAll(Pageable pageable, ReservationFilterDto filterDto) {
+        Optional<Specification<Reservation>> specification = ReservationSpecificationAssembler
+                .builder()
+                .filterDto(filterDto)
+                .build()
+                .getSpecification();
+        return specification
+                .map(s -> reservationRepository.findAll(s, pageable))
+                .orElseGet(() -> reservationRepository.findAll(pageable))
+                .map(ReservationMapper.INSTANCE::toReservationDto);
+    }
+
+    /**
+     * Finds reservations counting total elements as requested, see {@link PageCountService}.
+     *
+     * @param pageable  page to find.
+     * @param filterDto filter of the reservations.
+     * @param countMode how total elements are counted.
+     * @return page with total elements or a slice if they are not counted.
+     */
+    @IsAdmin
+    public Slice<ReservationDto> findAll(Pageable pageable, ReservationFilterDto filterDto, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return findAll(pageable, filterDto);
+        }
+        Specification<Reservation> specification = ReservationSpecificationAssembler
+                .builder()
+                .filterDto(filterDto)
+                .build()
+                .getSpecification()
+                .orElse(null);
+        return pageCountService
+                .findAll(reservationRepository, "reservation", specification, filterDto, pageable, countMode)
+                .map(ReservationMapper.INSTANCE::toReservationDto);
+    }
+
+    /**
+     * Finds reservations in cursor mode, see {@link KeysetPagination}.
+     *
+     * @param cursor    cursor returned with the previous page, blank for the first page.
+     * @param pageable  size of the page and, for the first page, sorting by id, start date or end date.
+     * @param filterDto filter of the reservations.
+     * @return page with the cursor of the next one.
+     * @throws IllegalArgumentException If the cursor is malformed or sorting is not supported.
+     */
+    @IsAdmin
+    public CursorPageDto<ReservationDto> findAllByCursor(
+            String cursor,
+            Pageable pageable,
+            ReservationFilterDto filterDto
+    ) {
+        Specification<Reservation> specification = ReservationSpecificationAssembler
+                .builder()
+                .filterDto(filterDto)
+                .build()
+                .getSpecification()
+                .orElse(null);
+        return KEYSET_PAGINATION
+                .find(reservationRepository, specification, cursor, pageable)
                 .map(ReservationMapper.INSTANCE::toReservationDto);
     }
 
     @IsUser
-    public Page<ReservationDto> findAllForAuthUser(Pageable pageable) {
+    public Page<ReservationDto> findAllForAuthUser(AuthenticatedUser currentUser, Pageable pageable) {
         return reservationRepository
-                .findAllForAuthUser(pageable)
+                .findAllForUser(currentUser.getId(), pageable)
+                .map(ReservationMapper.INSTANCE::toReservationDto);
+    }
+
+    /**
+     * Finds reservations of the authenticated user in cursor mode, see {@link KeysetPagination}.
+     *
+     * @param currentUser authenticated user.
+     * @param cursor      cursor returned with the previous page, blank for the first page.
+     * @param pageable    size of the page and, for the first page, sorting by id, start date or end date.
+     * @return page with the cursor of the next one.
+     * @throws IllegalArgumentException If the cursor is malformed or sorting is not supported.
+     */
+    @IsUser
+    public CursorPageDto<ReservationDto> findAllForAuthUserByCursor(
+            AuthenticatedUser currentUser,
+            String cursor,
+            Pageable pageable
+    ) {
+        Specification<Reservation> specification = ReservationSpecificationAssembler
+                .builder()
+                .filterDto(ReservationFilterDto.builder().userId(currentUser.getId()).build())
+                .build()
+                .getSpecification()
+                .orElseThrow();
+        return KEYSET_PAGINATION
+                .find(reservationRepository, specification, cursor, pageable)
                 .map(ReservationMapper.INSTANCE::toReservationDto);
     }
 
     @IsUser
-    public ReservationDto findByIdForAuthUser(long id) {
+    public ReservationDto findByIdForAuthUser(AuthenticatedUser currentUser, long id) {
         return reservationRepository
-                .findByIdForAuthUser(id)
+                .findByIdForUser(id, currentUser.getId())
                 .map(ReservationMapper.INSTANCE::toReservationDto)
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation not found."));
     }
 
     /**
-     * Validates reservation dates. Checks if the start date is before the end date. Also checks if the start date and
-     * end date are in the future.
+     * Validates a reservation period, shared with waitlist entries which wait for such a period. Checks if the start
+     * date is before the end date, both are in the future and the period lasts at least a day. Overlapping with other
+     * reservations is checked by the database on save.
      *
-     * @param reservation Reservation entity instance to validate.
-     * @throws IllegalArgumentException If the reservation dates are invalid.
+     * @param startDate start of the period.
+     * @param endDate   end of the period.
+     * @throws IllegalArgumentException If the dates are invalid.
      */
-    private void validateReservation(@NonNull Reservation reservation) {
-        Duration reservationDuration = Duration.between(reservation.getStartDate(), reservation.getEndDate());
-        if (LocalDateTime.now().isAfter(reservation.getStartDate()) ||
-                LocalDateTime.now().isAfter(reservation.getEndDate()) ||
-                reservation.getStartDate().isAfter(reservation.getEndDate())) {
+    static void validatePeriod(@NonNull LocalDateTime startDate, @NonNull LocalDateTime endDate) {
+        if (LocalDateTime.now().isAfter(startDate) ||
+                LocalDateTime.now().isAfter(endDate) ||
+                startDate.isAfter(endDate)) {
             throw new IllegalArgumentException("Invalid reservation dates.");
         }
 
-        if (reservationDuration.compareTo(MINIMUM_RESERVATION_DURATION) < 0) {
+        if (Duration.between(startDate, endDate).compareTo(MINIMUM_RESERVATION_DURATION) < 0) {
             throw new IllegalArgumentException("Minimum reservation duration is 1 day.");
         }
+    }
 
-        if (reservationRepository.hasOverlappingSession(
-                reservation.getBook(),
-                reservation.getStartDate(),
-                reservation.getEndDate()
+    /**
+     * Saves and flushes the reservation, so overlapping with other active reservations of the book is checked by
+     * the exclusion constraint right away. Unlike a check before insert, the constraint also holds for concurrent
+     * requests.
+     *
+     * @param reservation Reservation entity instance to save.
+     * @return saved reservation.
+     * @throws IllegalArgumentException If the reservation overlaps another active reservation of the book.
+     */
+    private Reservation saveReservation(Reservation reservation) {
+        try {
+            return reservationRepository.saveAndFlush(reservation);
+        } catch (DataIntegrityViolationException e) {
+            if (isExclusionViolation(e)) {
+                throw new IllegalArgumentException("Overlapping reservation session.", e);
+            }
+            if (isUserReferenceViolation(e)) {
+                throw new ResourceNotFoundException("User not found.", e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Rejects a new reservation overlapping an indexed one without attempting the insert. The index may lag behind
+     * the database, so busy answers are confirmed with a query, and free answers are still checked by the constraint.
+     *
+     * @param reservation Reservation entity instance to check.
+     * @throws IllegalArgumentException If the reservation overlaps another active reservation of the book.
+     */
+    private void checkAvailability(Reservation reservation) {
+        if (reservationIndexService.isReserved(
+                reservation.getBook().getId(), reservation.getStartDate(), reservation.getEndDate()
+        ) && reservationRepository.hasOverlappingSession(
+                reservation.getBook(), reservation.getStartDate(), reservation.getEndDate()
         )) {
             throw new IllegalArgumentException("Overlapping reservation session.");
         }
     }
 
+    private static boolean isExclusionViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && EXCLUSION_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isUserReferenceViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PSQLException psqlException
+                    && FOREIGN_KEY_VIOLATION.equals(psqlException.getSQLState())) {
+                final ServerErrorMessage message = psqlException.getServerErrorMessage();
+                // Constraint names differ between migrations and generated test schemas, the detail names the column.
+                return message != null && message.getDetail() != null && message.getDetail().contains("(user_id)");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reserves a book for the authenticated user. User is referenced by the id from the access token and is never
+     * loaded, so the created reservation is returned by id only. Reservation writes of the book are serialized with
+     * {@link ReservationLockService} until the transaction completes.
+     *
+     * @param currentUser    authenticated user making the reservation.
+     * @param reservationDto request dto.
+     * @return id of the created reservation.
+     * @throws ResourceNotFoundException If the book or the user does not exist.
+     * @throws IllegalArgumentException  If the reservation dates are invalid or overlap another reservation.
+     */
     @IsUser
     @Transactional
-    public ReservationDto reserveBook(@NonNull UserDetails userDetails, @NonNull ReservationRequestDto reservationDto) {
+    public long reserveBook(@NonNull AuthenticatedUser currentUser, @NonNull ReservationRequestDto reservationDto) {
         // Create reservation instance.
         Reservation reservation = ReservationMapper.INSTANCE.toReservation(reservationDto);
-        User user = userRepository
-                .findByEmail(userDetails.getUsername())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found."));
         Book book = bookRepository
                 .findById(reservationDto.bookId())
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found."));
-        reservation.setUser(user);
+        reservation.setUser(userRepository.getReferenceById(currentUser.getId()));
         reservation.setBook(book);
 
-        validateReservation(reservation);
-        Reservation createdReservation = reservationRepository.save(reservation);
-        ReservationDto savedReservation = ReservationMapper.INSTANCE.toReservationDto(createdReservation);
+        reservationLockService.lockBook(book.getId());
+        validatePeriod(reservation.getStartDate(), reservation.getEndDate());
+        checkAvailability(reservation);
+        Reservation createdReservation = saveReservation(reservation);
 
         // Send event to notify other components about the new reservation.
-        eventPublisher.publishEvent(new ReservationCreatedEvent(savedReservation));
-        return savedReservation;
+        eventPublisher.publishEvent(new ReservationCreatedEvent(
+                createdReservation.getId(),
+                currentUser.getId(),
+                book.getId(),
+                book.getTitle(),
+                createdReservation.getStartDate(),
+                createdReservation.getEndDate()
+        ));
+        return createdReservation.getId();
+    }
+
+    /**
+     * Reserves several books for the authenticated user at once.
+     * <p>
+     * Books are loaded with one query and every reservation is validated. Overlaps with existing reservations are
+     * found with one query for all books of the batch, and reservations of the batch are also checked against each
+     * other. Valid reservations are inserted with a single JDBC batch and announced with one event, so the user gets
+     * one notification. In {@link BatchReservationMode#ALL_OR_NOTHING} mode, which is the default, nothing is created
+     * if any reservation is invalid. In {@link BatchReservationMode#PARTIAL} mode valid reservations are created and
+     * invalid ones are reported. A reservation racing with a concurrent one is still rejected by the exclusion
+     * constraint, which fails the whole batch in both modes.
+     * </p>
+     *
+     * @param currentUser authenticated user making the reservations.
+     * @param requestDto  request dto.
+     * @return outcome of every reservation in request order.
+     * @throws IllegalArgumentException If any reservation is invalid in all-or-nothing mode, or if the batch
+     *                                  overlaps a concurrently created reservation.
+     */
+    @IsUser
+    @Transactional
+    public BatchReservationResultDto reserveBooks(
+            @NonNull AuthenticatedUser currentUser,
+            @NonNull BatchReservationRequestDto requestDto
+    ) {
+        final List<ReservationRequestDto> items = requestDto.reservations();
+        final String[] errors = new String[items.size()];
+        final Map<Long, Book> books = bookRepository
+                .findAllById(items.stream().map(ReservationRequestDto::bookId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        // Reservations aligned with items, null for rejected ones.
+        final List<Reservation> reservations = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Reservation reservation = ReservationMapper.INSTANCE.toReservation(items.get(i));
+            reservation.setBook(books.get(items.get(i).bookId()));
+            reservations.add(null);
+            if (reservation.getBook() == null) {
+                errors[i] = "Book not found.";
+                continue;
+            }
+            try {
+                validatePeriod(reservation.getStartDate(), reservation.getEndDate());
+                reservations.set(i, reservation);
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+        reservationLockService.lockBooks(books.keySet());
+        rejectOverlapping(reservations, errors);
+
+        final boolean rejected = Arrays.stream(errors).anyMatch(Objects::nonNull);
+        if (rejected && requestDto.mode() != BatchReservationMode.PARTIAL) {
+            throw new IllegalArgumentException(IntStream
+                    .range(0, errors.length)
+                    .filter(i -> errors[i] != null)
+                    .mapToObj(i -> "Reservation %d: %s".formatted(i, errors[i]))
+                    .collect(Collectors.joining(" ")));
+        }
+
+        final List<Reservation> accepted = reservations.stream().filter(Objects::nonNull).toList();
+        if (!accepted.isEmpty()) {
+            insertReservations(currentUser.getId(), accepted);
+            eventPublisher.publishEvent(new ReservationBatchCreatedEvent(
+                    currentUser.getId(),
+                    accepted.stream().map(reservation -> new ReservationCreatedEvent(
+                            reservation.getId(),
+                            currentUser.getId(),
+                            reservation.getBook().getId(),
+                            reservation.getBook().getTitle(),
+                            reservation.getStartDate(),
+                            reservation.getEndDate()
+                    )).toList()
+            ));
+        }
+
+        final List<BatchReservationItemDto> results = IntStream
+                .range(0, items.size())
+                .mapToObj(i -> new BatchReservationItemDto(
+                        i, reservations.get(i) != null ? reservations.get(i).getId() : null, errors[i]
+                ))
+                .toList();
+        return new BatchReservationResultDto(accepted.size(), items.size() - accepted.size(), results);
+    }
+
+    /**
+     * Rejects reservations overlapping existing active reservations or earlier reservations of the same batch.
+     * Existing reservations of all books are loaded with one query over the whole period of the batch.
+     */
+    private void rejectOverlapping(List<Reservation> reservations, String[] errors) {
+        final List<Reservation> valid = reservations.stream().filter(Objects::nonNull).toList();
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        final IntervalIndex index = IntervalIndex.of(reservationRepository
+                .findOverlappingIntervals(
+                        valid.stream().map(reservation -> reservation.getBook().getId()).collect(Collectors.toSet()),
+                        valid.stream().map(Reservation::getStartDate).min(Comparator.naturalOrder()).orElseThrow(),
+                        valid.stream().map(Reservation::getEndDate).max(Comparator.naturalOrder()).orElseThrow()
+                )
+                .stream()
+                .map(dto -> new IntervalIndex.Interval(dto.id(), dto.bookId(), dto.startDate(), dto.endDate()))
+                .toList());
+
+        for (int i = 0; i < reservations.size(); i++) {
+            Reservation reservation = reservations.get(i);
+            if (reservation == null) {
+                continue;
+            }
+            final long bookId = reservation.getBook().getId();
+            if (index.overlaps(bookId, reservation.getStartDate(), reservation.getEndDate())) {
+                errors[i] = "Overlapping reservation session.";
+                reservations.set(i, null);
+            } else {
+                // Negative ids cannot clash with stored reservations.
+                index.put(new IntervalIndex.Interval(
+                        -(i + 1L), bookId, reservation.getStartDate(), reservation.getEndDate()
+                ));
+            }
+        }
+    }
+
+    /**
+     * Inserts reservations with one JDBC batch and sets their generated ids. Hibernate cannot batch inserts of
+     * entities with identity ids, so the batch bypasses the persistence context.
+     *
+     * @throws IllegalArgumentException If a reservation overlaps a concurrently created one.
+     */
+    private void insertReservations(long userId, List<Reservation> reservations) {
+        final KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.batchUpdate(
+                    connection -> connection.prepareStatement(INSERT_RESERVATION, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Reservation reservation = reservations.get(i);
+                            ps.setLong(1, userId);
+                            ps.setLong(2, reservation.getBook().getId());
+                            ps.setTimestamp(3, Timestamp.valueOf(reservation.getStartDate()));
+                            ps.setTimestamp(4, Timestamp.valueOf(reservation.getEndDate()));
+                            ps.setShort(5, (short) reservation.getStatus().ordinal());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return reservations.size();
+                        }
+                    },
+                    keyHolder
+            );
+        } catch (DataIntegrityViolationException e) {
+            if (isExclusionViolation(e)) {
+                throw new IllegalArgumentException("Overlapping reservation session.", e);
+            }
+            if (isUserReferenceViolation(e)) {
+                throw new ResourceNotFoundException("User not found.", e);
+            }
+            throw e;
+        }
+
+        final List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < reservations.size(); i++) {
+            reservations.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+        }
     }
 
     @IsAdmin
@@ -123,6 +480,7 @@ public class ReservationService {
         Reservation reservation = reservationRepository
                 .findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation not found."));
+        final long previousBookId = reservation.getBook().getId();
 
         // Update reservation fields if provided.
         Optional.ofNullable(requestBody.startDate()).ifPresent(reservation::setStartDate);
@@ -136,8 +494,23 @@ public class ReservationService {
                     reservation.setBook(book);
                 });
 
-        validateReservation(reservation);
-        return ReservationMapper.INSTANCE.toReservationDto(reservationRepository.save(reservation));
+        reservationLockService.lockBooks(List.of(previousBookId, reservation.getBook().getId()));
+        validatePeriod(reservation.getStartDate(), reservation.getEndDate());
+        Reservation updatedReservation = saveReservation(reservation);
+        publishChanged(updatedReservation, previousBookId);
+        return ReservationMapper.INSTANCE.toReservationDto(updatedReservation);
+    }
+
+    private void publishChanged(Reservation reservation, long previousBookId) {
+        eventPublisher.publishEvent(new ReservationChangedEvent(
+                reservation.getId(),
+                Optional.ofNullable(reservation.getUser()).map(User::getId).orElse(null),
+                reservation.getBook().getId(),
+                previousBookId,
+                reservation.getStartDate(),
+                reservation.getEndDate(),
+                reservation.getStatus()
+        ));
     }
 
     /**
@@ -153,18 +526,25 @@ public class ReservationService {
                 .findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation not found."));
         reservationRepository.delete(reservation);
+        eventPublisher.publishEvent(new ReservationDeletedEvent(reservation.getId(), reservation.getBook().getId()));
     }
 
     @IsUser
-    public void cancelReservation(long id) {
-        Reservation reservation = reservationRepository.findById(id)
+    public void cancelReservation(AuthenticatedUser currentUser, long id) {
+        Reservation reservation = reservationRepository
+                .findAccessibleById(id, currentUser.getId(), currentUser.isAdmin())
                 .orElseThrow(() -> new ResourceNotFoundException("Reservation not found."));
 
         if (reservation.getStatus() == ReservationStatus.CANCELLED) {
             throw new IllegalStateException("Reservation is already canceled.");
         }
+        if (reservation.getStatus() == ReservationStatus.EXPIRED) {
+            throw new IllegalStateException("Reservation has already expired.");
+        }
 
         reservation.setStatus(ReservationStatus.CANCELLED);
-        reservationRepository.save(reservation);
+        publishChanged(reservationRepository.save(reservation), reservation.getBook().getId());
+        // Freed interval goes to the waitlist of the book before anyone else can take it.
+        waitlistService.promote(reservation.getBook(), reservation.getStartDate(), reservation.getEndDate());
     }
 }
\ No newline at end of file
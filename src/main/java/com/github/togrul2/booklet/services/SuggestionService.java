@@ -0,0 +1,188 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.collections.SuggestionTrie;
+import com.github.togrul2.booklet.dtos.suggestion.AuthorSuggestionSourceDto;
+import com.github.togrul2.booklet.dtos.suggestion.BookSuggestionSourceDto;
+import com.github.togrul2.booklet.dtos.suggestion.SuggestionDto;
+import com.github.togrul2.booklet.dtos.suggestion.SuggestionType;
+import com.github.togrul2.booklet.entities.Author;
+import com.github.togrul2.booklet.entities.Book;
+import com.github.togrul2.booklet.events.CatalogImportedEvent;
+import com.github.togrul2.booklet.events.ReservationBatchCreatedEvent;
+import com.github.togrul2.booklet.events.ReservationCreatedEvent;
+import com.github.togrul2.booklet.events.WaitlistPromotedEvent;
+import com.github.togrul2.booklet.repositories.AuthorRepository;
+import com.github.togrul2.booklet.repositories.BookRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Search box suggestions over book titles and author names, answered from memory without a query.
+ * <p>
+ * Books and authors are kept in {@link SuggestionTrie}s ranked by popularity, which is the number of reservations of
+ * a book which were not cancelled, summed over books for an author. Tries are loaded once the application is ready
+ * and updated in place by {@link BookService} and {@link AuthorService} writes and by new reservations. Cancellations
+ * and writes made by other nodes are picked up by the periodic reload, which rebuilds both tries from the database.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SuggestionService {
+    private static final Comparator<SuggestionTrie.Entry> BY_WEIGHT = Comparator
+            .comparingLong(SuggestionTrie.Entry::weight)
+            .reversed();
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    @Value("${booklet.suggest.capacity:10}")
+    private int capacity;
+
+    private volatile SuggestionTrie books;
+    private volatile SuggestionTrie authors;
+    // Author of every indexed book, so a reservation of the book also makes its author more popular.
+    private volatile Map<Long, Long> bookAuthors = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        books = new SuggestionTrie(capacity);
+        authors = new SuggestionTrie(capacity);
+    }
+
+    /**
+     * Suggests books and authors having a word starting with the words of the query.
+     *
+     * @param query typed text, case and diacritics are ignored.
+     * @param limit maximum number of suggestions, capped by {@code booklet.suggest.capacity}.
+     * @return the most popular suggestions first.
+     */
+    public List<SuggestionDto> suggest(String query, int limit) {
+        return Stream
+                .concat(
+                        books.suggest(query, limit).stream().map(entry -> Map.entry(SuggestionType.BOOK, entry)),
+                        authors.suggest(query, limit).stream().map(entry -> Map.entry(SuggestionType.AUTHOR, entry))
+                )
+                .sorted(Map.Entry.comparingByValue(BY_WEIGHT))
+                .limit(limit)
+                .map(entry -> new SuggestionDto(entry.getKey(), entry.getValue().id(), entry.getValue().text()))
+                .toList();
+    }
+
+    /**
+     * Indexes the saved book keeping its popularity.
+     */
+    public void putBook(Book book) {
+        final long weight = books.get(book.getId()).map(SuggestionTrie.Entry::weight).orElse(0L);
+        books.put(new SuggestionTrie.Entry(book.getId(), book.getTitle(), weight));
+        if (book.getAuthor() != null) {
+            bookAuthors.put(book.getId(), book.getAuthor().getId());
+        } else {
+            bookAuthors.remove(book.getId());
+        }
+    }
+
+    public void removeBook(long id) {
+        books.remove(id);
+        bookAuthors.remove(id);
+    }
+
+    /**
+     * Indexes the saved author keeping its popularity.
+     */
+    public void putAuthor(Author author) {
+        final long weight = authors.get(author.getId()).map(SuggestionTrie.Entry::weight).orElse(0L);
+        authors.put(new SuggestionTrie.Entry(author.getId(), fullName(author.getName(), author.getSurname()), weight));
+    }
+
+    public void removeAuthor(long id) {
+        authors.remove(id);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservationCreated(ReservationCreatedEvent event) {
+        books.addWeight(event.bookId(), 1);
+        Optional.ofNullable(bookAuthors.get(event.bookId())).ifPresent(authorId -> authors.addWeight(authorId, 1));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReservationBatchCreated(ReservationBatchCreatedEvent event) {
+        event.reservations().forEach(this::onReservationCreated);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onWaitlistPromoted(WaitlistPromotedEvent event) {
+        onReservationCreated(event.reservation());
+    }
+
+    /**
+     * Imports write past {@link BookService} and {@link AuthorService} and do not know ids of the rows, so tries are
+     * rebuilt.
+     */
+    @EventListener
+    public void onCatalogImported(CatalogImportedEvent event) {
+        reload();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+        log.info("Loaded {} books and {} authors into suggestion index", books.size(), authors.size());
+    }
+
+    /**
+     * Rebuilds both tries from the database. Writes made while the tries are rebuilt may be lost and are picked up
+     * by the next reload.
+     */
+    @Scheduled(
+            initialDelayString = "${booklet.suggest.reload-interval:PT10M}",
+            fixedDelayString = "${booklet.suggest.reload-interval:PT10M}"
+    )
+    public void reload() {
+        final List<BookSuggestionSourceDto> bookSources = bookRepository.findSuggestionSources();
+        final Map<Long, Long> authorWeights = new HashMap<>();
+        final Map<Long, Long> reloadedBookAuthors = new ConcurrentHashMap<>();
+        for (BookSuggestionSourceDto book : bookSources) {
+            if (book.authorId() != null) {
+                authorWeights.merge(book.authorId(), book.reservations(), Long::sum);
+                reloadedBookAuthors.put(book.id(), book.authorId());
+            }
+        }
+
+        final List<AuthorSuggestionSourceDto> authorSources = authorRepository.findSuggestionSources();
+        books = SuggestionTrie.of(
+                bookSources
+                        .stream()
+                        .map(book -> new SuggestionTrie.Entry(book.id(), book.title(), book.reservations()))
+                        .toList(),
+                capacity
+        );
+        authors = SuggestionTrie.of(
+                authorSources
+                        .stream()
+                        .map(author -> new SuggestionTrie.Entry(
+                                author.id(),
+                                fullName(author.name(), author.surname()),
+                                authorWeights.getOrDefault(author.id(), 0L)
+                        ))
+                        .toList(),
+                capacity
+        );
+        bookAuthors = reloadedBookAuthors;
+    }
+
+    private static String fullName(String name, String surname) {
+        return name + " " + surname;
+    }
+}
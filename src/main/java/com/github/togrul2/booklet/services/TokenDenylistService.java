@@ -0,0 +1,141 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.security.TokenClaims;
+import com.github.togrul2.booklet.security.TokenDenylist;
+import jakarta.annotation.PostConstruct;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Revocation denylist for tokens, checked on every request without a network hop.
+ * <p>
+ * Every node keeps revoked token ids in a local {@link TokenDenylist}. Revocations are written to Redis as keys that
+ * expire together with the token and are published on the {@value #CHANNEL} channel, so other nodes add them to their
+ * local denylist right away. Nodes starting later load the existing keys once the application is ready.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenDenylistService implements MessageListener {
+    public static final String CHANNEL = "booklet:denylist";
+    private static final String KEY_PREFIX = "booklet:denylist:";
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final StringRedisTemplate redisTemplate;
+    @Value("${spring.security.jwt.denylist.expected-size:100000}")
+    private int expectedSize;
+    @Value("${spring.security.jwt.denylist.sync-enabled:true}")
+    private boolean syncEnabled;
+
+    private TokenDenylist denylist;
+
+    @PostConstruct
+    public void init() {
+        denylist = new TokenDenylist(expectedSize);
+    }
+
+    public boolean isRevoked(TokenClaims claims) {
+        return claims.tokenId() != null && denylist.contains(claims.tokenId());
+    }
+
+    /**
+     * Revokes the token on this node and propagates revocation to other nodes.
+     *
+     * @param claims verified claims of the token to revoke.
+     * @throws IllegalArgumentException If the token has no id.
+     */
+    public void revoke(TokenClaims claims) {
+        if (claims.tokenId() == null) {
+            throw new IllegalArgumentException("Token has no id and cannot be revoked.");
+        }
+
+        final long expiration = claims.expiration().toEpochMilli();
+        denylist.add(claims.tokenId(), expiration);
+
+        final Duration ttl = Duration.ofMillis(expiration - System.currentTimeMillis());
+        if (syncEnabled && ttl.isPositive()) {
+            redisTemplate.opsForValue().set(KEY_PREFIX + claims.tokenId(), String.valueOf(expiration), ttl);
+            redisTemplate.convertAndSend(CHANNEL, claims.tokenId() + ":" + expiration);
+        }
+    }
+
+    /**
+     * Receives revocations published by other nodes. Payload is the token id and its expiration separated by colon.
+     */
+    @Override
+    public void onMessage(@NonNull Message message, byte[] pattern) {
+        final String payload = new String(message.getBody(), StandardCharsets.UTF_8);
+        final int separator = payload.lastIndexOf(':');
+        try {
+            denylist.add(payload.substring(0, separator), Long.parseLong(payload.substring(separator + 1)));
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            log.warn("Ignoring malformed denylist message: {}", payload);
+        }
+    }
+
+    /**
+     * Loads revocations made before this node started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromRedis() {
+        if (!syncEnabled) {
+            return;
+        }
+
+        final ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(LOAD_BATCH_SIZE).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            List<String> keys = new ArrayList<>(LOAD_BATCH_SIZE);
+            while (cursor.hasNext()) {
+                keys.add(cursor.next());
+                if (keys.size() == LOAD_BATCH_SIZE) {
+                    loadKeys(keys);
+                    keys.clear();
+                }
+            }
+            loadKeys(keys);
+            log.info("Loaded {} revoked tokens", denylist.size());
+        } catch (DataAccessException e) {
+            // Tokens revoked before start are still rejected by the nodes that received them.
+            log.warn("Could not load token denylist from Redis: {}", e.getMessage());
+        }
+    }
+
+    private void loadKeys(List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> expirations = redisTemplate.opsForValue().multiGet(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            // Key may expire between scan and get.
+            if (expirations != null && expirations.get(i) != null) {
+                denylist.add(keys.get(i).substring(KEY_PREFIX.length()), Long.parseLong(expirations.get(i)));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${spring.security.jwt.denylist.purge-interval:PT1M}")
+    public void purgeExpired() {
+        final int purged = denylist.purgeExpired(System.currentTimeMillis());
+        if (purged > 0) {
+            log.debug("Purged {} expired tokens from denylist", purged);
+        }
+    }
+}
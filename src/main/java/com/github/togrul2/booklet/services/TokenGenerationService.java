@@ -0,0 +1,93 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.togrul2.booklet.entities.User;
+import com.github.togrul2.booklet.repositories.UserRepository;
+import com.github.togrul2.booklet.security.TokenClaims;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Keeps track of per-user token generations.
+ * <p>
+ * Every token carries the generation of its user at the time it was issued. Bumping the generation of a user
+ * invalidates all of their outstanding tokens at once, without touching stored refresh tokens. Current generations
+ * are cached per user for a short time, so other replicas notice a bump after at most the cache ttl.
+ * </p>
+ * <p>
+ * Generations are kept by user id, since the email in the subject of a token can change after it was issued. Tokens
+ * without a user id and tokens of deleted users are never current.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenGenerationService {
+    // Generation of users that do not exist anymore, no token is issued in it.
+    private static final int DELETED = Integer.MAX_VALUE;
+
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    @Value("${spring.security.jwt.generation-cache-ttl:PT30S}")
+    private Duration generationCacheTtl;
+    @Value("${spring.security.jwt.generation-cache-size:10000}")
+    private long generationCacheSize;
+
+    // Current token generation by user id.
+    private LoadingCache<Long, Integer> generations;
+
+    @PostConstruct
+    public void init() {
+        generations = Caffeine
+                .newBuilder()
+                .maximumSize(generationCacheSize)
+                .expireAfterWrite(generationCacheTtl)
+                .build(userId -> userRepository.findTokenGenerationById(userId).orElse(DELETED));
+    }
+
+    public int currentGeneration(long userId) {
+        return generations.get(userId);
+    }
+
+    /**
+     * Checks whether the token was issued in the current generation of its user.
+     *
+     * @param claims verified claims of the token.
+     * @return false if all tokens of the user were revoked after this one was issued, the user was deleted or the
+     * token does not name its user by id.
+     */
+    public boolean isCurrent(TokenClaims claims) {
+        if (claims.userId() == null) {
+            return false;
+        }
+        final int generation = currentGeneration(claims.userId());
+        return generation != DELETED && claims.generation() >= generation;
+    }
+
+    /**
+     * Forgets the cached generation of a deleted user, so tokens of the user are rejected on this replica right away
+     * instead of after the cache ttl.
+     *
+     * @param userId id of the deleted user.
+     */
+    public void forget(long userId) {
+        generations.invalidate(userId);
+    }
+
+    /**
+     * Invalidates all tokens issued to the user so far.
+     *
+     * @param user stored user.
+     */
+    public void revokeAll(User user) {
+        userRepository.incrementTokenGeneration(user.getId());
+        generations.invalidate(user.getId());
+        // Cached user still has the old generation, tokens issued from it would be rejected right away.
+        userCache.removeUserFromCache(user.getEmail());
+    }
+}
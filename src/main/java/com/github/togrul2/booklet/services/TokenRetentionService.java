@@ -0,0 +1,95 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.repositories.TokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically deletes expired and deactivated refresh tokens.
+ * <p>
+ * Tokens are deleted in small batches, each in its own short transaction, so the purge never holds locks for long.
+ * Every batch first takes a Postgres advisory lock, so when several replicas are running only one of them purges
+ * at a time and the others skip the run. Number of purged rows and run time are published as
+ * {@code booklet.tokens.purged} and {@code booklet.tokens.purge} metrics.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenRetentionService {
+    // Advisory lock key shared by all replicas, value itself is arbitrary.
+    private static final long PURGE_LOCK_KEY = 7_486_146_923_851_392_001L;
+
+    private final TokenRepository tokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    @Value("${spring.security.jwt.purge.batch-size:1000}")
+    private int batchSize;
+    @Value("${spring.security.jwt.purge.max-batches:100}")
+    private int maxBatches;
+
+    private Counter purgedCounter;
+    private Timer purgeTimer;
+
+    @PostConstruct
+    public void init() {
+        purgedCounter = Counter
+                .builder("booklet.tokens.purged")
+                .description("Number of expired or inactive refresh tokens deleted")
+                .register(meterRegistry);
+        purgeTimer = Timer
+                .builder("booklet.tokens.purge")
+                .description("Run time of the refresh token purge")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deletes expired and deactivated tokens in batches until there is nothing left to delete, the lock is taken by
+     * another replica or the maximum number of batches per run is reached.
+     *
+     * @return number of deleted tokens.
+     */
+    @Scheduled(
+            fixedDelayString = "${spring.security.jwt.purge.interval:PT1H}",
+            initialDelayString = "${spring.security.jwt.purge.initial-delay:PT5M}"
+    )
+    public long purge() {
+        final long start = System.nanoTime();
+        long purged = 0;
+
+        for (int batch = 0; batch < maxBatches; batch++) {
+            Integer deleted = transactionTemplate.execute(_ ->
+                    tokenRepository.tryAdvisoryXactLock(PURGE_LOCK_KEY)
+                            ? tokenRepository.deleteExpiredOrInactive(LocalDateTime.now(), batchSize)
+                            : null
+            );
+
+            if (deleted == null) {
+                log.debug("Token purge is running on another instance, skipping.");
+                break;
+            }
+
+            purged += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        purgeTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        purgedCounter.increment(purged);
+        log.info("Purged {} refresh tokens in {}ms", purged, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return purged;
+    }
+}
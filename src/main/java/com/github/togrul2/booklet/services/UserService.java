@@ -1,32 +1,48 @@
 package com.github.togrul2.booklet.services;
 
+import com.github.togrul2.booklet.dtos.CountMode;
+import com.github.togrul2.booklet.dtos.CursorPageDto;
 import com.github.togrul2.booklet.dtos.user.*;
 import com.github.togrul2.booklet.entities.Role;
 import com.github.togrul2.booklet.entities.User;
 import com.github.togrul2.booklet.mappers.UserMapper;
 import com.github.togrul2.booklet.repositories.UserRepository;
+import com.github.togrul2.booklet.security.AuthenticatedUser;
 import com.github.togrul2.booklet.annotations.IsAdmin;
 import com.github.togrul2.booklet.annotations.IsAuthenticated;
 import com.github.togrul2.booklet.annotations.IsUser;
+import com.github.togrul2.booklet.specifications.KeysetPagination;
 import com.github.togrul2.booklet.specifications.UserSpecificationAssembler;
+import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @AllArgsConstructor
 public class UserService {
+    private static final KeysetPagination<User> KEYSET_PAGINATION = new KeysetPagination<>(
+            User.class, Set.of("email"), List.of()
+    );
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PageCountService pageCountService;
+    private final PasswordHashingService passwordHashingService;
+    private final UserCache userCache;
+    private final TokenGenerationService tokenGenerationService;
 
     /**
      * Validates user. Throws exception if email is already taken.
@@ -53,8 +69,9 @@ public class UserService {
     public UserDto register(CreateUserDto createUserDto) {
         User user = UserMapper.INSTANCE.toUser(createUserDto);
         user.setRole(Role.USER);
-        user.setPassword(passwordEncoder.encode(createUserDto.password()));
+        // Email is checked before hashing, so taken emails never occupy the hashing executor.
         validateUser(user);
+        user.setPassword(passwordHashingService.encode(createUserDto.password()));
         // TODO: Send user a confirmation email.
         return UserMapper.INSTANCE.toUserDto(userRepository.save(user));
     }
@@ -72,72 +89,172 @@ public class UserService {
                 .map(UserMapper.INSTANCE::toUserDto);
     }
 
+    /**
+     * Finds users counting total elements as requested, see {@link PageCountService}.
+     *
+     * @param pageable  page to find.
+     * @param filterDto filter of the users.
+     * @param countMode how total elements are counted.
+     * @return page with total elements or a slice if they are not counted.
+     */
+    @IsAdmin
+    public Slice<UserDto> findAll(Pageable pageable, UserFilterDto filterDto, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return findAll(pageable, filterDto);
+        }
+        Specification<User> specification = UserSpecificationAssembler
+                .builder()
+                .filterDto(filterDto)
+                .build()
+                .getSpecification()
+                .orElse(null);
+        return pageCountService
+                .findAll(userRepository, "accounts", specification, filterDto, pageable, countMode)
+                .map(UserMapper.INSTANCE::toUserDto);
+    }
+
+    /**
+     * Finds users in cursor mode, see {@link KeysetPagination}.
+     *
+     * @param cursor    cursor returned with the previous page, blank for the first page.
+     * @param pageable  size of the page and, for the first page, sorting by id or email.
+     * @param filterDto filter of the users.
+     * @return page with the cursor of the next one.
+     * @throws IllegalArgumentException If the cursor is malformed or sorting is not supported.
+     */
+    @IsAdmin
+    public CursorPageDto<UserDto> findAllByCursor(String cursor, Pageable pageable, UserFilterDto filterDto) {
+        Specification<User> specification = UserSpecificationAssembler
+                .builder()
+                .filterDto(filterDto)
+                .build()
+                .getSpecification()
+                .orElse(null);
+        return KEYSET_PAGINATION
+                .find(userRepository, specification, cursor, pageable)
+                .map(UserMapper.INSTANCE::toUserDto);
+    }
+
     @IsUser
-    public UserDto findById(long id) {
+    public UserDto findById(AuthenticatedUser currentUser, long id) {
         return userRepository
-                .findById(id)
+                .findAccessibleById(id, currentUser.getId(), currentUser.isAdmin())
                 .map(UserMapper.INSTANCE::toUserDto)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found."));
     }
 
     private UserDto updateUser(User user, UpdateUserDto updateUserDto) {
+        // Cached under the email the user had before the update.
+        final String email = user.getEmail();
         Optional.ofNullable(updateUserDto.email()).ifPresent(user::setEmail);
         Optional.ofNullable(updateUserDto.firstName()).ifPresent(user::setFirstName);
         Optional.ofNullable(updateUserDto.lastName()).ifPresent(user::setLastName);
-        validateUser(user);
-        return UserMapper.INSTANCE.toUserDto(userRepository.save(user));
+        // Uniqueness has to be checked only when email changes.
+        if (!Objects.equals(email, user.getEmail())) {
+            validateUser(user);
+        }
+        UserDto userDto = UserMapper.INSTANCE.toUserDto(userRepository.save(user));
+        afterCommit(() -> userCache.removeUserFromCache(email));
+        return userDto;
+    }
+
+    private void deleteUser(User user) {
+        userRepository.delete(user);
+        afterCommit(() -> {
+            userCache.removeUserFromCache(user.getEmail());
+            tokenGenerationService.forget(user.getId());
+        });
+    }
+
+    /**
+     * Runs the action once the current transaction commits, or right away outside of a transaction. Cached users
+     * are evicted only then, otherwise a login before the commit would cache the old row again.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     /**
      * Updates user with given id. Authenticated user must be an admin or target user.
      *
-     * @param id                   id of user to update.
+     * @param currentUser   authenticated user.
+     * @param id            id of user to update.
      * @param updateUserDto request dto.
      * @return updated user.
      * @throws IllegalArgumentException If email is already taken.
      * @throws ResourceNotFoundException()  If user with given id does not exist.
      */
     @IsUser
-    public UserDto update(long id, @Valid UpdateUserDto updateUserDto) {
-        User user = userRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("User not found."));
+    @Transactional
+    public UserDto update(AuthenticatedUser currentUser, long id, @Valid UpdateUserDto updateUserDto) {
+        User user = userRepository
+                .findAccessibleById(id, currentUser.getId(), currentUser.isAdmin())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found."));
         return updateUser(user, updateUserDto);
     }
 
     /**
      * Deletes user with given id. Authenticated user must be an admin or target user.
      *
-     * @param id id of user to delete.
+     * @param currentUser authenticated user.
+     * @param id          id of user to delete.
      * @throws ResourceNotFoundException() If user with given id does not exist.
      */
     @IsUser
-    public void delete(long id) {
-        User user = userRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("User not found."));
-        userRepository.delete(user);
+    public void delete(AuthenticatedUser currentUser, long id) {
+        User user = userRepository
+                .findAccessibleById(id, currentUser.getId(), currentUser.isAdmin())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found."));
+        deleteUser(user);
     }
 
     /**
-     * Finds authenticated user.
+     * Finds authenticated user by the id from its access token.
      *
+     * @param currentUser authenticated user.
      * @return authenticated user.
      * @throws ResourceNotFoundException() If authenticated user does not exist.
      */
     @IsAuthenticated
-    public UserDto findAuthUser() {
+    public UserDto findAuthUser(AuthenticatedUser currentUser) {
         return userRepository
-                .findAuthUser()
+                .findById(currentUser.getId())
                 .map(UserMapper.INSTANCE::toUserDto)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found."));
     }
 
+    /**
+     * Updates authenticated user. Loaded user stays managed until commit, so saving it does not select it again.
+     *
+     * @param currentUser   authenticated user.
+     * @param updateUserDto request dto.
+     * @return updated user.
+     * @throws IllegalArgumentException    If email is already taken.
+     * @throws ResourceNotFoundException() If authenticated user does not exist.
+     */
     @IsAuthenticated
-    public UserDto updateAuthUser(UpdateUserDto updateUserDto) {
-        User user = userRepository.findAuthUser().orElseThrow(() -> new ResourceNotFoundException("User not found."));
+    @Transactional
+    public UserDto updateAuthUser(AuthenticatedUser currentUser, UpdateUserDto updateUserDto) {
+        User user = userRepository
+                .findById(currentUser.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found."));
         return updateUser(user, updateUserDto);
     }
 
     @IsAuthenticated
-    public void deleteAuthUser() {
-        User user = userRepository.findAuthUser().orElseThrow(() -> new ResourceNotFoundException("User not found."));
-        userRepository.delete(user);
+    public void deleteAuthUser(AuthenticatedUser currentUser) {
+        User user = userRepository
+                .findById(currentUser.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("User not found."));
+        deleteUser(user);
     }
 }
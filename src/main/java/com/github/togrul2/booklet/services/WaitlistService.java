@@ -0,0 +1,150 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.annotations.IsUser;
+import com.github.togrul2.booklet.dtos.waitlist.WaitlistEntryDto;
+import com.github.togrul2.booklet.dtos.waitlist.WaitlistRequestDto;
+import com.github.togrul2.booklet.entities.Book;
+import com.github.togrul2.booklet.entities.Reservation;
+import com.github.togrul2.booklet.entities.WaitlistEntry;
+import com.github.togrul2.booklet.events.ReservationCreatedEvent;
+import com.github.togrul2.booklet.events.WaitlistPromotedEvent;
+import com.github.togrul2.booklet.repositories.BookRepository;
+import com.github.togrul2.booklet.repositories.ReservationRepository;
+import com.github.togrul2.booklet.repositories.UserRepository;
+import com.github.togrul2.booklet.repositories.WaitlistEntryRepository;
+import com.github.togrul2.booklet.security.AuthenticatedUser;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-book FIFO waitlist for books reserved for the requested period.
+ * <p>
+ * Instead of retrying reservations until the book is free, users join the waitlist of the book. When a reservation is
+ * cancelled, entries waiting for a period overlapping the freed interval are promoted to reservations in the order
+ * they joined, within the transaction of the cancellation. An entry is promoted only once its whole period is free,
+ * entries behind it whose periods are free are promoted as well. Promoted users are notified after commit.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WaitlistService {
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final ReservationRepository reservationRepository;
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final ReservationLockService reservationLockService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Places the authenticated user in the waitlist of the book. A user waits for a book only once.
+     *
+     * @param currentUser authenticated user.
+     * @param bookId      id of the book.
+     * @param requestDto  requested period.
+     * @return created waitlist entry with its position.
+     * @throws ResourceNotFoundException If the book does not exist.
+     * @throws IllegalArgumentException  If the dates are invalid or the user already waits for the book.
+     * @throws IllegalStateException     If the book is free for the requested period.
+     */
+    @IsUser
+    @Transactional
+    public WaitlistEntryDto join(AuthenticatedUser currentUser, long bookId, WaitlistRequestDto requestDto) {
+        Book book = bookRepository.findById(bookId).orElseThrow(() -> new ResourceNotFoundException("Book not found."));
+        ReservationService.validatePeriod(requestDto.startDate(), requestDto.endDate());
+
+        if (waitlistEntryRepository.existsByUserIdAndBookId(currentUser.getId(), bookId)) {
+            throw new IllegalArgumentException("Already in the waitlist of this book.");
+        }
+        if (!reservationRepository.hasOverlappingSession(book, requestDto.startDate(), requestDto.endDate())) {
+            throw new IllegalStateException("Book is available for the requested period, reserve it instead.");
+        }
+
+        WaitlistEntry entry = waitlistEntryRepository.save(WaitlistEntry.builder()
+                .user(userRepository.getReferenceById(currentUser.getId()))
+                .book(book)
+                .startDate(requestDto.startDate())
+                .endDate(requestDto.endDate())
+                .createdAt(LocalDateTime.now())
+                .build());
+        final long ahead = waitlistEntryRepository.countAhead(bookId, entry.getCreatedAt(), entry.getId());
+        return new WaitlistEntryDto(
+                entry.getId(), bookId, entry.getStartDate(), entry.getEndDate(), entry.getCreatedAt(), ahead + 1
+        );
+    }
+
+    /**
+     * Removes the authenticated user from the waitlist of the book.
+     *
+     * @param currentUser authenticated user.
+     * @param bookId      id of the book.
+     * @throws ResourceNotFoundException If the user does not wait for the book.
+     */
+    @IsUser
+    @Transactional
+    public void leave(AuthenticatedUser currentUser, long bookId) {
+        if (waitlistEntryRepository.deleteByUserIdAndBookId(currentUser.getId(), bookId) == 0) {
+            throw new ResourceNotFoundException("Waitlist entry not found.");
+        }
+    }
+
+    /**
+     * Promotes entries waiting for the freed interval of the book. Must be called within the transaction freeing the
+     * interval, after the change is written, so promotions are committed or rolled back together with it.
+     *
+     * @param book  book whose interval was freed.
+     * @param start start of the freed interval, inclusive.
+     * @param end   end of the freed interval, exclusive.
+     * @return number of promoted entries.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    public int promote(Book book, LocalDateTime start, LocalDateTime end) {
+        reservationLockService.lockBook(book.getId());
+
+        int promoted = 0;
+        for (WaitlistEntry entry : waitlistEntryRepository.findWaiting(book.getId(), start, end, LocalDateTime.now())) {
+            // Reservations made by earlier promotions are flushed before the check.
+            if (reservationRepository.hasOverlappingSession(book, entry.getStartDate(), entry.getEndDate())) {
+                continue;
+            }
+
+            Reservation reservation = new Reservation();
+            reservation.setUser(entry.getUser());
+            reservation.setBook(book);
+            reservation.setStartDate(entry.getStartDate());
+            reservation.setEndDate(entry.getEndDate());
+            reservation = reservationRepository.saveAndFlush(reservation);
+            waitlistEntryRepository.delete(entry);
+            promoted++;
+
+            eventPublisher.publishEvent(new WaitlistPromotedEvent(new ReservationCreatedEvent(
+                    reservation.getId(),
+                    entry.getUser().getId(),
+                    book.getId(),
+                    book.getTitle(),
+                    reservation.getStartDate(),
+                    reservation.getEndDate()
+            )));
+        }
+        return promoted;
+    }
+
+    /**
+     * Purges entries whose period has started, they can no longer be promoted.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${booklet.waitlist.purge-interval:PT1H}")
+    public void purgeStarted() {
+        final int purged = waitlistEntryRepository.deleteStarted(LocalDateTime.now());
+        if (purged > 0) {
+            log.debug("Purged {} started waitlist entries", purged);
+        }
+    }
+}
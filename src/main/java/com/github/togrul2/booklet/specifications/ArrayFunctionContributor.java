@@ -0,0 +1,28 @@
+package com.github.togrul2.booklet.specifications;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers Postgres array operators as functions usable from criteria queries.
+ * <ul>
+ *     <li>{@code not_in_array(value, array)} is true if the value equals none of the elements of the array. Unlike
+ *     {@code NOT IN}, whose values are bound one parameter each, the whole array is bound as a single parameter, so
+ *     the number of values is not limited by the 65535 bind parameters of a statement.</li>
+ * </ul>
+ * Registered through {@code META-INF/services}.
+ */
+public class ArrayFunctionContributor implements FunctionContributor {
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(
+                "not_in_array",
+                "(?1 <> ALL(?2))",
+                functionContributions
+                        .getTypeConfiguration()
+                        .getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.BOOLEAN)
+        );
+    }
+}
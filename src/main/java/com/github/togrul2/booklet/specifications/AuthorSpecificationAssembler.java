@@ -15,15 +15,24 @@ public class AuthorSpecificationAssembler extends SpecificationAssembler<Author>
 
     private Optional<Specification<Author>> byName() {
         if (filterDto.name() != null)
-            return Optional.of((root, _, builder) ->
-                    builder.like(builder.lower(root.get("name")), "%" + filterDto.name().toLowerCase() + "%"));
+            return Optional.of(buildIlikeSearchSpecification("name", filterDto.name()));
         return Optional.empty();
     }
 
     private Optional<Specification<Author>> bySurname() {
         if (filterDto.surname() != null)
-            return Optional.of((root, _, builder) ->
-                    builder.like(builder.lower(root.get("surname")), "%" + filterDto.surname().toLowerCase() + "%"));
+            return Optional.of(buildIlikeSearchSpecification("surname", filterDto.surname()));
+        return Optional.empty();
+    }
+
+    // Searches the full name of the author.
+    private Optional<Specification<Author>> bySearch() {
+        if (filterDto.search() != null && !filterDto.search().isBlank())
+            return Optional.of(buildTextSearchSpecification(
+                    (root, builder) -> builder.function("full_name", String.class, root.get("name"), root.get("surname")),
+                    filterDto.search(),
+                    filterDto.searchMode()
+            ));
         return Optional.empty();
     }
 
@@ -57,6 +66,7 @@ public class AuthorSpecificationAssembler extends SpecificationAssembler<Author>
         List<Specification<Author>> specifications = new ArrayList<>();
         byName().ifPresent(specifications::add);
         bySurname().ifPresent(specifications::add);
+        bySearch().ifPresent(specifications::add);
         byBirthDate().ifPresent(specifications::add);
         byDeathDate().ifPresent(specifications::add);
         return specifications.stream().reduce(Specification::and);
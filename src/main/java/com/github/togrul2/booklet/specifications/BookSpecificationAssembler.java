@@ -6,6 +6,7 @@ import lombok.Builder;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,11 +22,16 @@ import java.util.Optional;
  * If the filter contains the title, author, genre, ISBN, or year, then the corresponding specification is created.
  * The specifications are combined using the AND operator.
  * If the filter does not contain the title, author, genre, ISBN, or year, then an empty specification is returned.
+ * Free text search matches the title, see {@link SpecificationAssembler#buildTextSearchSpecification}.
+ * Availability is not checked in the database, books reserved within the requested dates are found beforehand and
+ * passed as {@code reservedBookIds} to be excluded. They may be most of the catalog, so they are bound as a single
+ * array, see {@link ArrayFunctionContributor}.
  * </p>
  */
 @Builder
 public class BookSpecificationAssembler extends SpecificationAssembler<Book> {
     private final BookFilterDto filterDto;
+    private final Collection<Long> reservedBookIds;
 
     private Optional<Specification<Book>> byTitle() {
         if (filterDto.title() != null) {
@@ -34,6 +40,15 @@ public class BookSpecificationAssembler extends SpecificationAssembler<Book> {
         return Optional.empty();
     }
 
+    private Optional<Specification<Book>> bySearch() {
+        if (filterDto.search() != null && !filterDto.search().isBlank()) {
+            return Optional.of(buildTextSearchSpecification(
+                    (root, _) -> root.get("title"), filterDto.search(), filterDto.searchMode()
+            ));
+        }
+        return Optional.empty();
+    }
+
     private Optional<Specification<Book>> byAuthor() {
         if (filterDto.authorId() != null) {
             return Optional.of(
@@ -76,14 +91,26 @@ public class BookSpecificationAssembler extends SpecificationAssembler<Book> {
         return Optional.empty();
     }
 
+    private Optional<Specification<Book>> byAvailability() {
+        if (reservedBookIds != null && !reservedBookIds.isEmpty()) {
+            final Long[] ids = reservedBookIds.toArray(Long[]::new);
+            return Optional.of((root, _, builder) -> builder.isTrue(builder.function(
+                    "not_in_array", Boolean.class, root.get("id"), builder.literal(ids)
+            )));
+        }
+        return Optional.empty();
+    }
+
     @Override
     public Optional<Specification<Book>> getSpecification() {
         List<Specification<Book>> specifications = new ArrayList<>();
         byTitle().ifPresent(specifications::add);
+        bySearch().ifPresent(specifications::add);
         byAuthor().ifPresent(specifications::add);
         byGenre().ifPresent(specifications::add);
         byIsbn().ifPresent(specifications::add);
         byYear().ifPresent(specifications::add);
+        byAvailability().ifPresent(specifications::add);
         return specifications.stream().reduce(Specification::and);
     }
 }
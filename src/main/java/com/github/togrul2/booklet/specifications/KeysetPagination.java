@@ -0,0 +1,177 @@
+package com.github.togrul2.booklet.specifications;
+
+import com.github.togrul2.booklet.dtos.CursorPageDto;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.beans.PropertyDescriptor;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Keyset pagination of an entity, also known as cursor pagination.
+ * <p>
+ * Pages are ordered by a single sort property followed by id, so the order is total. Instead of skipping rows like an
+ * offset does, the next page continues after the {@code (sort key, id)} tuple of the last row of the previous page,
+ * which a composite index on both columns answers with a single seek at any depth. Pages are not counted, one more
+ * row than requested is fetched to tell whether there is a next page.
+ * </p>
+ * <p>
+ * The cursor is an opaque encoding of the sort property, direction and the last tuple, so sorting requested together
+ * with a cursor is ignored. Only non-null properties backed by an index together with id may be used for sorting.
+ * </p>
+ */
+public class KeysetPagination<T> {
+    private static final String ID = "id";
+    private static final String SEPARATOR = "\n";
+
+    private final Class<T> entityClass;
+    private final Set<String> sortProperties;
+    private final List<String> fetchedAttributes;
+
+    private record Position(String property, Sort.Direction direction, long id, Comparable<Object> value) {
+    }
+
+    /**
+     * @param entityClass       paginated entity.
+     * @param sortProperties    properties allowed for sorting besides id.
+     * @param fetchedAttributes associations fetched together with the page, nested ones are separated by dots.
+     */
+    public KeysetPagination(Class<T> entityClass, Set<String> sortProperties, List<String> fetchedAttributes) {
+        this.entityClass = entityClass;
+        this.sortProperties = sortProperties;
+        this.fetchedAttributes = fetchedAttributes;
+    }
+
+    /**
+     * Finds the page after the cursor.
+     *
+     * @param repository    repository of the entity.
+     * @param specification filter of the entity, may be null.
+     * @param cursor        cursor of the page, blank for the first page.
+     * @param pageable      size of the page and, for the first page, sorting. Page number is ignored.
+     * @return page with the cursor of the next one.
+     * @throws IllegalArgumentException If the cursor is malformed or sorting is not supported.
+     */
+    public CursorPageDto<T> find(
+            JpaSpecificationExecutor<T> repository,
+            Specification<T> specification,
+            String cursor,
+            Pageable pageable
+    ) {
+        final Position after = cursor == null || cursor.isBlank() ? null : decode(cursor);
+        final Sort.Order order = after != null
+                ? new Sort.Order(after.direction(), after.property())
+                : pageable.getSort().stream().findFirst().orElse(Sort.Order.asc(ID));
+        validateProperty(order.getProperty());
+
+        final Sort sort = ID.equals(order.getProperty())
+                ? Sort.by(order)
+                : Sort.by(order, new Sort.Order(order.getDirection(), ID));
+        final int size = pageable.getPageSize();
+        final List<T> rows = repository.findBy(
+                Specification.where(specification).and(after != null ? seek(after) : null),
+                query -> query.project(fetchedAttributes).sortBy(sort).limit(size + 1).all()
+        );
+
+        if (rows.size() <= size) {
+            return new CursorPageDto<>(rows, null);
+        }
+        final List<T> content = rows.subList(0, size);
+        return new CursorPageDto<>(content, encode(order, content.getLast()));
+    }
+
+    /**
+     * Continues after the position. The condition on the sort key alone is implied by the rest, it is there so the
+     * index seeks to the position instead of filtering from the start.
+     */
+    private Specification<T> seek(Position after) {
+        final boolean ascending = after.direction().isAscending();
+        return (root, _, builder) -> {
+            final Path<Long> id = root.get(ID);
+            final Predicate idAfter = ascending ? builder.gt(id, after.id()) : builder.lt(id, after.id());
+            if (ID.equals(after.property())) {
+                return idAfter;
+            }
+            final Path<Comparable<Object>> key = root.get(after.property());
+            return builder.and(
+                    ascending
+                            ? builder.greaterThanOrEqualTo(key, after.value())
+                            : builder.lessThanOrEqualTo(key, after.value()),
+                    builder.or(
+                            ascending ? builder.greaterThan(key, after.value()) : builder.lessThan(key, after.value()),
+                            builder.and(builder.equal(key, after.value()), idAfter)
+                    )
+            );
+        };
+    }
+
+    private void validateProperty(String property) {
+        if (!ID.equals(property) && !sortProperties.contains(property)) {
+            throw new IllegalArgumentException("Sorting by " + property + " is not supported in cursor mode.");
+        }
+    }
+
+    private String encode(Sort.Order order, T last) {
+        final BeanWrapperImpl wrapper = new BeanWrapperImpl(last);
+        final Object value = ID.equals(order.getProperty()) ? "" : wrapper.getPropertyValue(order.getProperty());
+        final String position = String.join(
+                SEPARATOR,
+                order.getProperty(),
+                order.getDirection().name(),
+                String.valueOf(wrapper.getPropertyValue(ID)),
+                String.valueOf(Objects.requireNonNull(value, "Sort property must not be null."))
+        );
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Position decode(String cursor) {
+        try {
+            // Value goes last, so it may contain the separator.
+            final String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, 4);
+            final String property = parts[0];
+            validateProperty(property);
+            return new Position(
+                    property,
+                    Sort.Direction.valueOf(parts[1]),
+                    Long.parseLong(parts[2]),
+                    ID.equals(property) ? null : parseValue(property, parts[3])
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor.");
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Comparable<Object> parseValue(String property, String value) {
+        final PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(entityClass, property);
+        final Class<?> type = Objects.requireNonNull(descriptor, property).getPropertyType();
+        final Comparable<?> parsed;
+        if (type == String.class) {
+            parsed = value;
+        } else if (type == Long.class || type == long.class) {
+            parsed = Long.valueOf(value);
+        } else if (type == Integer.class || type == int.class) {
+            parsed = Integer.valueOf(value);
+        } else if (type == LocalDate.class) {
+            parsed = LocalDate.parse(value);
+        } else if (type == LocalDateTime.class) {
+            parsed = LocalDateTime.parse(value);
+        } else if (type.isEnum()) {
+            parsed = Enum.valueOf((Class<? extends Enum>) type, value);
+        } else {
+            throw new IllegalStateException("Unsupported sort property type: " + type);
+        }
+        return (Comparable<Object>) parsed;
+    }
+}
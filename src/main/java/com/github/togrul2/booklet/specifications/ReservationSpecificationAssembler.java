@@ -0,0 +1,83 @@
+package com.github.togrul2.booklet.specifications;
+
+import com.github.togrul2.booklet.dtos.reservation.ReservationFilterDto;
+import com.github.togrul2.booklet.entities.Reservation;
+import lombok.Builder;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Assembles specifications for the {@link Reservation} entity based on the given {@link ReservationFilterDto}.
+ * <p>
+ * Reservations are filtered by status, book, user, genre of the book and overlap with a period. Every filter is
+ * backed by an index of the reservation table, see {@code V13__add_reservation_search_indexes.sql}. The specifications
+ * are combined using the AND operator, if the filter is empty then an empty specification is returned.
+ * </p>
+ */
+@Builder
+public class ReservationSpecificationAssembler extends SpecificationAssembler<Reservation> {
+    private final ReservationFilterDto filterDto;
+
+    private Optional<Specification<Reservation>> byStatus() {
+        if (filterDto.status() != null) {
+            return Optional.of(
+                    (root, _, builder) -> builder.equal(root.get("status"), filterDto.status())
+            );
+        }
+        return Optional.empty();
+    }
+
+    private Optional<Specification<Reservation>> byBook() {
+        if (filterDto.bookId() != null) {
+            return Optional.of(
+                    (root, _, builder) -> builder.equal(root.get("book").get("id"), filterDto.bookId())
+            );
+        }
+        return Optional.empty();
+    }
+
+    private Optional<Specification<Reservation>> byUser() {
+        if (filterDto.userId() != null) {
+            return Optional.of(
+                    (root, _, builder) -> builder.equal(root.get("user").get("id"), filterDto.userId())
+            );
+        }
+        return Optional.empty();
+    }
+
+    private Optional<Specification<Reservation>> byGenre() {
+        if (filterDto.genreId() != null) {
+            return Optional.of(
+                    (root, _, builder) ->
+                            builder.equal(root.get("book").get("genre").get("id"), filterDto.genreId())
+            );
+        }
+        return Optional.empty();
+    }
+
+    private Optional<Specification<Reservation>> byPeriod() {
+        List<Specification<Reservation>> specifications = new ArrayList<>();
+        // Half-open overlap, a reservation ending exactly at the start of the period does not match.
+        if (filterDto.from() != null) {
+            specifications.add((root, _, builder) -> builder.greaterThan(root.get("endDate"), filterDto.from()));
+        }
+        if (filterDto.to() != null) {
+            specifications.add((root, _, builder) -> builder.lessThan(root.get("startDate"), filterDto.to()));
+        }
+        return specifications.stream().reduce(Specification::and);
+    }
+
+    @Override
+    public Optional<Specification<Reservation>> getSpecification() {
+        List<Specification<Reservation>> specifications = new ArrayList<>();
+        byStatus().ifPresent(specifications::add);
+        byBook().ifPresent(specifications::add);
+        byUser().ifPresent(specifications::add);
+        byGenre().ifPresent(specifications::add);
+        byPeriod().ifPresent(specifications::add);
+        return specifications.stream().reduce(Specification::and);
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.togrul2.booklet.specifications;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.query.sqm.function.SqmFunctionRegistry;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers Postgres search operators as functions usable from criteria queries. Patterns must render the same
+ * expressions as the indexes in {@code V15__add_search_indexes.sql}, otherwise the planner does not use them.
+ * <ul>
+ *     <li>{@code fts_match(document, query)} and {@code fts_rank(document, query)} match and rank words of the
+ *     document against a web search style query using the {@code simple} configuration.</li>
+ *     <li>{@code trgm_match(document, query)} and {@code trgm_rank(document, query)} match and rank the document by
+ *     trigram word similarity to the query.</li>
+ *     <li>{@code full_name(first, second)} joins two nullable columns with a space.</li>
+ * </ul>
+ * Registered through {@code META-INF/services}.
+ */
+public class SearchFunctionContributor implements FunctionContributor {
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        final SqmFunctionRegistry registry = functionContributions.getFunctionRegistry();
+        final BasicTypeRegistry types = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+
+        registry.registerPattern(
+                "fts_match",
+                "(to_tsvector('simple', ?1) @@ websearch_to_tsquery('simple', ?2))",
+                types.resolve(StandardBasicTypes.BOOLEAN)
+        );
+        registry.registerPattern(
+                "fts_rank",
+                "ts_rank(to_tsvector('simple', ?1), websearch_to_tsquery('simple', ?2))",
+                types.resolve(StandardBasicTypes.DOUBLE)
+        );
+        registry.registerPattern("trgm_match", "(?2 <% ?1)", types.resolve(StandardBasicTypes.BOOLEAN));
+        registry.registerPattern("trgm_rank", "word_similarity(?2, ?1)", types.resolve(StandardBasicTypes.DOUBLE));
+        registry.registerPattern(
+                "full_name",
+                "(coalesce(?1, '') || ' ' || coalesce(?2, ''))",
+                types.resolve(StandardBasicTypes.STRING)
+        );
+    }
+}
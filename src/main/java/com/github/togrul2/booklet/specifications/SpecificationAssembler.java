@@ -1,15 +1,65 @@
 package com.github.togrul2.booklet.specifications;
 
+import com.github.togrul2.booklet.dtos.SearchMode;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.Optional;
+import java.util.function.BiFunction;
 
 public abstract class SpecificationAssembler<T> {
+    private static final char LIKE_ESCAPE = '\\';
+
+    /**
+     * Builds case-insensitive substring search. Backed by trigram indexes on the lower-cased column, wildcards in
+     * the value are matched literally.
+     */
     protected Specification<T> buildIlikeSearchSpecification(String fieldName, String value) {
         return (root, _, builder) ->
                 builder.like(
-                        builder.lower(root.get(fieldName)), "%" + value.toLowerCase() + "%"
+                        builder.lower(root.get(fieldName)), "%" + escapeLike(value.toLowerCase()) + "%", LIKE_ESCAPE
+                );
+    }
+
+    /**
+     * Builds free text search over the document of the entity. Unless the query is a count query, results are
+     * ordered by relevance, sorting requested by the pageable takes precedence over it.
+     *
+     * @param document expression of the searched document, must match the expression of the search indexes.
+     * @param value    searched text.
+     * @param mode     search mode, whole words if null.
+     * @return search specification.
+     */
+    protected Specification<T> buildTextSearchSpecification(
+            BiFunction<Root<T>, CriteriaBuilder, Expression<String>> document,
+            String value,
+            SearchMode mode
+    ) {
+        final boolean fuzzy = mode == SearchMode.FUZZY;
+        return (root, query, builder) -> {
+            final Expression<String> documentExpression = document.apply(root, builder);
+            final Expression<String> valueExpression = builder.literal(value);
+            if (query != null && !Long.class.equals(query.getResultType())) {
+                query.orderBy(
+                        builder.desc(builder.function(
+                                fuzzy ? "trgm_rank" : "fts_rank", Double.class, documentExpression, valueExpression
+                        )),
+                        builder.asc(root.get("id"))
                 );
+            }
+            return builder.isTrue(builder.function(
+                    fuzzy ? "trgm_match" : "fts_match", Boolean.class, documentExpression, valueExpression
+            ));
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value
+                .replace(String.valueOf(LIKE_ESCAPE), String.valueOf(LIKE_ESCAPE) + LIKE_ESCAPE)
+                .replace("%", LIKE_ESCAPE + "%")
+                .replace("_", LIKE_ESCAPE + "_");
     }
 
     public abstract Optional<Specification<T>> getSpecification();
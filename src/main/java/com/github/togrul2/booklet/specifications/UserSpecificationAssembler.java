@@ -34,6 +34,19 @@ public class UserSpecificationAssembler extends SpecificationAssembler<User> {
         return Optional.empty();
     }
 
+    // Searches the full name of the user.
+    private Optional<Specification<User>> bySearch() {
+        if (filterDto.search() != null && !filterDto.search().isBlank()) {
+            return Optional.of(buildTextSearchSpecification(
+                    (root, builder) ->
+                            builder.function("full_name", String.class, root.get("firstName"), root.get("lastName")),
+                    filterDto.search(),
+                    filterDto.searchMode()
+            ));
+        }
+        return Optional.empty();
+    }
+
     private Optional<Specification<User>> byRole() {
         if (filterDto.role() != null) {
             return Optional.of(
@@ -77,6 +90,7 @@ public class UserSpecificationAssembler extends SpecificationAssembler<User> {
         byFirstName().ifPresent(specifications::add);
         byLastName().ifPresent(specifications::add);
         byEmail().ifPresent(specifications::add);
+        bySearch().ifPresent(specifications::add);
         byRole().ifPresent(specifications::add);
         byActive().ifPresent(specifications::add);
         byCreationDate().ifPresent(specifications::add);
@@ -0,0 +1,3 @@
+-- Bumping the generation invalidates every access and refresh token issued to the user before.
+ALTER TABLE accounts
+    ADD token_generation INTEGER NOT NULL DEFAULT 0;
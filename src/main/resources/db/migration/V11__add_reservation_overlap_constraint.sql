@@ -0,0 +1,22 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Overlapping active reservations could be created before, keep the earliest one and cancel the rest,
+-- otherwise the constraint below cannot be added.
+UPDATE reservation r
+SET status = 2
+WHERE r.status <> 2
+  AND EXISTS (SELECT 1
+              FROM reservation o
+              WHERE o.book_id = r.book_id
+                AND o.status <> 2
+                AND o.id < r.id
+                AND tsrange(o.start_date, o.end_date) && tsrange(r.start_date, r.end_date));
+
+-- Half-open range, a reservation may start exactly when the previous one ends.
+ALTER TABLE reservation
+    ADD period TSRANGE GENERATED ALWAYS AS (tsrange(start_date, end_date, '[)')) STORED;
+
+-- Status 2 is CANCELLED, cancelled reservations do not block the book.
+ALTER TABLE reservation
+    ADD CONSTRAINT ex_reservation_book_period
+        EXCLUDE USING gist (book_id WITH =, period WITH &&) WHERE (status <> 2);
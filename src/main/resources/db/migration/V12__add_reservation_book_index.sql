@@ -0,0 +1,2 @@
+-- Upcoming active reservations of a book, used by availability lookups. Status 2 is CANCELLED.
+CREATE INDEX ix_reservation_book_end_date ON reservation (book_id, end_date) WHERE status <> 2;
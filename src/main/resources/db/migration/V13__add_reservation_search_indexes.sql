@@ -0,0 +1,12 @@
+-- Indexes backing the admin reservation search. Filters by book, user and status are usually combined with
+-- a period and sorted by start, so start_date is the second column of each of them.
+CREATE INDEX ix_reservation_book_start_date ON reservation (book_id, start_date);
+CREATE INDEX ix_reservation_user_start_date ON reservation (user_id, start_date);
+CREATE INDEX ix_reservation_status_start_date ON reservation (status, start_date);
+
+-- Period overlap is end_date > :from AND start_date < :to. Searches look at recent periods, so leading with end_date
+-- skips the whole history before :from.
+CREATE INDEX ix_reservation_end_date_start_date ON reservation (end_date, start_date);
+
+-- Genre filter joins reservations through books of the genre.
+CREATE INDEX ix_book_genre_id ON book (genre_id);
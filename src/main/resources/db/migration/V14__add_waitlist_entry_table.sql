@@ -0,0 +1,21 @@
+CREATE TABLE waitlist_entry
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    user_id    BIGINT                                  NOT NULL,
+    book_id    BIGINT                                  NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    created_at TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    CONSTRAINT pk_waitlist_entry PRIMARY KEY (id),
+    CONSTRAINT uc_waitlist_entry_user_book UNIQUE (user_id, book_id)
+);
+
+-- Entries wait only for the book and the user they belong to.
+ALTER TABLE waitlist_entry
+    ADD CONSTRAINT FK_WAITLIST_ENTRY_ON_BOOK FOREIGN KEY (book_id) REFERENCES book (id) ON DELETE CASCADE;
+
+ALTER TABLE waitlist_entry
+    ADD CONSTRAINT FK_WAITLIST_ENTRY_ON_USER FOREIGN KEY (user_id) REFERENCES accounts (id) ON DELETE CASCADE;
+
+-- Queue of a book in the order entries are served.
+CREATE INDEX ix_waitlist_entry_book_created_at ON waitlist_entry (book_id, created_at, id);
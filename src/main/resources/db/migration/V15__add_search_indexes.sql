@@ -0,0 +1,25 @@
+-- Indexes backing searches of list endpoints. Expressions must match the ones rendered by SearchFunctionContributor
+-- and SpecificationAssembler, otherwise the planner does not use them.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Substring filters, lower(column) LIKE '%value%'.
+CREATE INDEX ix_book_title_trgm ON book USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX ix_author_name_trgm ON author USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX ix_author_surname_trgm ON author USING gin (lower(surname) gin_trgm_ops);
+CREATE INDEX ix_accounts_email_trgm ON accounts USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX ix_accounts_first_name_trgm ON accounts USING gin (lower(first_name) gin_trgm_ops);
+CREATE INDEX ix_accounts_last_name_trgm ON accounts USING gin (lower(last_name) gin_trgm_ops);
+
+-- Word search.
+CREATE INDEX ix_book_title_fts ON book USING gin (to_tsvector('simple', title));
+CREATE INDEX ix_author_full_name_fts ON author
+    USING gin (to_tsvector('simple', (coalesce(name, '') || ' ' || coalesce(surname, ''))));
+CREATE INDEX ix_accounts_full_name_fts ON accounts
+    USING gin (to_tsvector('simple', (coalesce(first_name, '') || ' ' || coalesce(last_name, ''))));
+
+-- Fuzzy search, pg_trgm is case-insensitive, so documents are not lower-cased.
+CREATE INDEX ix_book_title_fuzzy ON book USING gin (title gin_trgm_ops);
+CREATE INDEX ix_author_full_name_fuzzy ON author
+    USING gin ((coalesce(name, '') || ' ' || coalesce(surname, '')) gin_trgm_ops);
+CREATE INDEX ix_accounts_full_name_fuzzy ON accounts
+    USING gin ((coalesce(first_name, '') || ' ' || coalesce(last_name, '')) gin_trgm_ops);
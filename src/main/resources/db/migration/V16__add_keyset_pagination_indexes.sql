@@ -0,0 +1,9 @@
+-- Cursor pages continue after the (sort key, id) tuple of the previous page, so every sort key allowed in cursor mode
+-- is indexed together with id and the next page is a single index seek at any depth.
+CREATE INDEX ix_book_title_id ON book (title, id);
+CREATE INDEX ix_book_year_id ON book (year, id);
+CREATE INDEX ix_author_name_id ON author (name, id);
+CREATE INDEX ix_author_surname_id ON author (surname, id);
+CREATE INDEX ix_accounts_email_id ON accounts (email, id);
+CREATE INDEX ix_reservation_start_date_id ON reservation (start_date, id);
+CREATE INDEX ix_reservation_end_date_id ON reservation (end_date, id);
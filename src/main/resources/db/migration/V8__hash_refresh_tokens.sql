@@ -0,0 +1,15 @@
+ALTER TABLE token
+    ADD digest BYTEA;
+
+-- Existing tokens are converted in place, the digest matches the one computed by the application.
+UPDATE token
+SET digest = sha256(convert_to(token, 'UTF8'));
+
+ALTER TABLE token
+    ALTER COLUMN digest SET NOT NULL;
+
+ALTER TABLE token
+    ADD CONSTRAINT uc_token_digest UNIQUE (digest);
+
+ALTER TABLE token
+    DROP COLUMN token;
@@ -0,0 +1,13 @@
+ALTER TABLE token
+    ADD expires_at TIMESTAMP WITHOUT TIME ZONE;
+
+-- Expiration of existing tokens is not stored anywhere, keep them for the default refresh token lifetime.
+UPDATE token
+SET expires_at = now() + INTERVAL '1 day';
+
+ALTER TABLE token
+    ALTER COLUMN expires_at SET NOT NULL;
+
+CREATE INDEX idx_token_expires_at ON token (expires_at);
+
+CREATE INDEX idx_token_inactive ON token (id) WHERE NOT active;
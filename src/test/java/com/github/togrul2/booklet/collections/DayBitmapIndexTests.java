@@ -0,0 +1,60 @@
+package com.github.togrul2.booklet.collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class DayBitmapIndexTests {
+    private final LocalDate day = LocalDate.of(2030, 1, 10);
+    private DayBitmapIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new DayBitmapIndex();
+        // Ends at midnight, so the 12th stays free.
+        index.set(1L, List.of(new IntervalIndex.Interval(1L, 1L, day.atStartOfDay(), day.plusDays(2).atStartOfDay())));
+        // Part of a day reserves the whole day.
+        index.set(2L, List.of(new IntervalIndex.Interval(2L, 2L, day.atTime(18, 0), day.plusDays(1).atTime(9, 0))));
+    }
+
+    @Test
+    public void testIsReserved() {
+        Assertions.assertTrue(index.isReserved(1L, day.plusDays(1), day.plusDays(1)));
+        Assertions.assertFalse(index.isReserved(1L, day.plusDays(2), day.plusDays(5)));
+        Assertions.assertTrue(index.isReserved(2L, day.plusDays(1), day.plusDays(1)));
+        Assertions.assertFalse(index.isReserved(3L, day, day));
+    }
+
+    @Test
+    public void testReservedKeys() {
+        Assertions.assertEquals(List.of(1L, 2L), index.reservedKeys(day, day).stream().sorted().toList());
+        Assertions.assertTrue(index.reservedKeys(day.plusDays(2), day.plusDays(30)).isEmpty());
+    }
+
+    @Test
+    public void testSetReplacesDays() {
+        index.set(1L, List.of());
+
+        Assertions.assertFalse(index.isReserved(1L, day, day.plusDays(1)));
+        Assertions.assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testOfIntervalIndex() {
+        LocalDateTime start = day.atStartOfDay();
+        IntervalIndex intervals = IntervalIndex.of(List.of(
+                new IntervalIndex.Interval(1L, 1L, start, start.plusDays(1)),
+                new IntervalIndex.Interval(2L, 1L, start.plusDays(3), start.plusDays(4)),
+                new IntervalIndex.Interval(3L, 2L, start.plusDays(1), start.plusDays(2))
+        ));
+
+        DayBitmapIndex days = DayBitmapIndex.of(intervals);
+
+        Assertions.assertEquals(List.of(1L), days.reservedKeys(day.plusDays(3), day.plusDays(3)));
+        Assertions.assertFalse(days.isReserved(1L, day.plusDays(1), day.plusDays(2)));
+    }
+}
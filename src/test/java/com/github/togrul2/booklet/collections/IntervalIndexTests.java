@@ -0,0 +1,54 @@
+package com.github.togrul2.booklet.collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class IntervalIndexTests {
+    private final LocalDateTime start = LocalDateTime.of(2030, 1, 10, 0, 0);
+    private IntervalIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new IntervalIndex();
+        index.put(new IntervalIndex.Interval(1L, 1L, start, start.plusDays(2)));
+        index.put(new IntervalIndex.Interval(2L, 1L, start.plusDays(5), start.plusDays(6)));
+    }
+
+    @Test
+    public void testOverlaps() {
+        Assertions.assertTrue(index.overlaps(1L, start.plusDays(1), start.plusDays(3)));
+        Assertions.assertTrue(index.overlaps(1L, start.minusDays(1), start.plusDays(10)));
+        Assertions.assertFalse(index.overlaps(1L, start.plusDays(2), start.plusDays(5)));
+        Assertions.assertFalse(index.overlaps(2L, start, start.plusDays(2)));
+    }
+
+    @Test
+    public void testPutMovesInterval() {
+        index.put(new IntervalIndex.Interval(1L, 2L, start.plusDays(3), start.plusDays(4)));
+
+        Assertions.assertFalse(index.overlaps(1L, start, start.plusDays(2)));
+        Assertions.assertTrue(index.overlaps(2L, start.plusDays(3), start.plusDays(4)));
+        Assertions.assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testRemove() {
+        index.remove(1L);
+        index.remove(3L);
+
+        Assertions.assertFalse(index.overlaps(1L, start, start.plusDays(2)));
+        Assertions.assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testIntervals() {
+        List<IntervalIndex.Interval> intervals = index.intervals(1L, start.plusDays(1), start.plusDays(6));
+
+        Assertions.assertEquals(List.of(1L, 2L), intervals.stream().map(IntervalIndex.Interval::id).toList());
+        Assertions.assertTrue(index.intervals(1L, start.plusDays(2), start.plusDays(5)).isEmpty());
+    }
+}
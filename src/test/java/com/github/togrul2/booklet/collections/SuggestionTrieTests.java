@@ -0,0 +1,74 @@
+package com.github.togrul2.booklet.collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class SuggestionTrieTests {
+    private SuggestionTrie trie;
+
+    @BeforeEach
+    public void setUp() {
+        trie = SuggestionTrie.of(List.of(
+                new SuggestionTrie.Entry(1L, "The Great Gatsby", 5),
+                new SuggestionTrie.Entry(2L, "Great Expectations", 7),
+                new SuggestionTrie.Entry(3L, "Les Misérables", 1),
+                new SuggestionTrie.Entry(4L, "Anna Karenina", 2)
+        ), 3);
+    }
+
+    private List<Long> suggest(String prefix, int limit) {
+        return trie.suggest(prefix, limit).stream().map(SuggestionTrie.Entry::id).toList();
+    }
+
+    @Test
+    public void testSuggestMatchesAnyWord() {
+        Assertions.assertEquals(List.of(2L, 1L), suggest("gre", 10));
+        Assertions.assertEquals(List.of(1L), suggest("Great Gat", 10));
+        Assertions.assertEquals(List.of(3L), suggest("mise", 10));
+        Assertions.assertTrue(suggest("gatsby great", 10).isEmpty());
+        Assertions.assertTrue(suggest(" ", 10).isEmpty());
+    }
+
+    @Test
+    public void testSuggestLimit() {
+        Assertions.assertEquals(List.of(2L), suggest("g", 1));
+        Assertions.assertTrue(suggest("g", 0).isEmpty());
+    }
+
+    @Test
+    public void testAddWeightReranks() {
+        trie.addWeight(1L, 5);
+
+        Assertions.assertEquals(List.of(1L, 2L), suggest("great", 10));
+        Assertions.assertEquals(10, trie.get(1L).orElseThrow().weight());
+    }
+
+    @Test
+    public void testPutReplacesText() {
+        trie.put(new SuggestionTrie.Entry(1L, "Tender Is the Night", 5));
+
+        Assertions.assertEquals(List.of(2L), suggest("great", 10));
+        Assertions.assertEquals(List.of(1L), suggest("night", 10));
+        Assertions.assertEquals(4, trie.size());
+    }
+
+    @Test
+    public void testRemove() {
+        trie.remove(2L);
+
+        Assertions.assertEquals(List.of(1L), suggest("great", 10));
+        Assertions.assertTrue(suggest("expect", 10).isEmpty());
+        Assertions.assertEquals(3, trie.size());
+    }
+
+    @Test
+    public void testKeys() {
+        Assertions.assertEquals(
+                List.of("the great gatsby", "great gatsby", "gatsby"),
+                List.copyOf(SuggestionTrie.keys("The Great  Gatsby!"))
+        );
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.togrul2.booklet.configurations;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records SQL rendered by Hibernate, so tests can check statements criteria queries actually run, e.g. with EXPLAIN.
+ * Registered in {@code application-test.yml}, statements are recorded only within {@link #record}.
+ */
+public class RecordingStatementInspector implements StatementInspector {
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    /**
+     * Runs the action and returns statements it prepared on the current thread, in order.
+     */
+    public static List<String> record(Runnable action) {
+        final List<String> statements = new ArrayList<>();
+        STATEMENTS.set(statements);
+        try {
+            action.run();
+        } finally {
+            STATEMENTS.remove();
+        }
+        return statements;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        final List<String> statements = STATEMENTS.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+}
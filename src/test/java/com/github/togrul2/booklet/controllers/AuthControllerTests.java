@@ -16,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -38,6 +39,8 @@ public class AuthControllerTests {
     private JwtService jwtService;
     @Autowired
     private TokenRepository tokenRepository;
+    @Autowired
+    private UserCache userCache;
     @LocalServerPort
     private int port;
     private User user;
@@ -64,6 +67,8 @@ public class AuthControllerTests {
     public void tearDown() {
         tokenRepository.deleteAll();
         userRepository.deleteAll();
+        // Users are deleted bypassing the service, so they have to be removed from the cache here.
+        userCache.removeUserFromCache(user.getEmail());
     }
 
     @Test
@@ -108,6 +113,54 @@ public class AuthControllerTests {
                 .statusCode(200);
     }
 
+    @Test
+    public void testLogoutAll() {
+        String accessToken = jwtService.createAccessToken(user, Role.USER);
+
+        RestAssured.given()
+                .contentType("application/json")
+                .body("{\"refreshToken\": \"%s\"}".formatted(refreshToken))
+                .when()
+                .post("/api/v1/auth/logout-all")
+                .then()
+                .statusCode(200);
+
+        RestAssured.given()
+                .contentType("application/json")
+                .body("{\"refreshToken\": \"%s\"}".formatted(refreshToken))
+                .when()
+                .post("/api/v1/auth/refresh")
+                .then()
+                .statusCode(401);
+
+        RestAssured.given()
+                .auth().oauth2(accessToken)
+                .when()
+                .get("/api/v1/users/me")
+                .then()
+                .statusCode(401);
+    }
+
+    @Test
+    public void testRevoke() {
+        String accessToken = jwtService.createAccessToken(user, Role.USER);
+
+        RestAssured.given()
+                .contentType("application/json")
+                .body("{\"token\": \"%s\"}".formatted(accessToken))
+                .when()
+                .post("/api/v1/auth/revoke")
+                .then()
+                .statusCode(200);
+
+        RestAssured.given()
+                .auth().oauth2(accessToken)
+                .when()
+                .get("/api/v1/users/me")
+                .then()
+                .statusCode(401);
+    }
+
     @Test
     public void testValidate() {
         RestAssured.given()
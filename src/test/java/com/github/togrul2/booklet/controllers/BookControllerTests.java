@@ -6,6 +6,7 @@ import com.github.togrul2.booklet.entities.*;
 import com.github.togrul2.booklet.repositories.AuthorRepository;
 import com.github.togrul2.booklet.repositories.BookRepository;
 import com.github.togrul2.booklet.repositories.GenreRepository;
+import com.github.togrul2.booklet.repositories.UserRepository;
 import com.github.togrul2.booklet.services.JwtService;
 import io.restassured.RestAssured;
 import org.hamcrest.Matchers;
@@ -36,6 +37,8 @@ public class BookControllerTests {
     @Autowired
     private GenreRepository genreRepository;
     @Autowired
+    private UserRepository userRepository;
+    @Autowired
     private JwtService jwtService;
     @LocalServerPort
     private int port;
@@ -44,7 +47,16 @@ public class BookControllerTests {
 
     @BeforeEach
     public void setUp() {
-        User authUser = User.builder().email("johndoe@example.com").role(Role.ADMIN).build();
+        // Saved, so the token carries the user id required by the authentication filter.
+        User authUser = userRepository.save(
+                User.builder()
+                        .firstName("John")
+                        .lastName("Doe")
+                        .email("johndoe@example.com")
+                        .password("Password123$")
+                        .role(Role.ADMIN)
+                        .build()
+        );
 
         RestAssured.baseURI = "http://localhost";
         RestAssured.port = port;
@@ -85,6 +97,7 @@ public class BookControllerTests {
         bookRepository.deleteAll();
         authorRepository.deleteAll();
         genreRepository.deleteAll();
+        userRepository.deleteAll();
     }
 
     @Test
@@ -131,6 +144,110 @@ public class BookControllerTests {
                 .header("Location", Matchers.matchesPattern(".*/api/v1/books/\\d+"));
     }
 
+    @Test
+    public void testImportBooksFromCsv() {
+        RestAssured.given()
+                .contentType("text/csv")
+                .body("""
+                        title,isbn,year,authorName,authorSurname,genre
+                        "Book 3, imported",1234567892,2001,John,Doe,fantasy
+                        Book 4,1234567890,2002,John,Doe,fantasy
+                        Book 5,1234567893,2003,Jane,Doe,fantasy
+                        Book 6,1234567893,2004,john,doe,fantasy
+                        """)
+                .when()
+                .post("/api/v1/books/import")
+                .then()
+                .log()
+                .ifError()
+                .statusCode(200)
+                .body("imported", Matchers.is(2))
+                .body("rejected", Matchers.is(2))
+                .body("errors.line", Matchers.contains(3, 4));
+
+        Assertions.assertEquals("Book 3, imported", bookRepository.findByIsbn("1234567892").orElseThrow().getTitle());
+        Assertions.assertEquals("Book 6", bookRepository.findByIsbn("1234567893").orElseThrow().getTitle());
+    }
+
+    @Test
+    public void testImportBooksFromNdjson() {
+        RestAssured.given()
+                .contentType("application/x-ndjson")
+                .body("""
+                        {"title": "Book 3", "isbn": "1234567892", "year": 2001, "authorName": "John", \
+                        "authorSurname": "Doe", "genre": "fantasy"}
+                        {"title": "Book 4", "isbn": "1234567893", "year": 2002, "authorName": "John", \
+                        "authorSurname": "Doe", "genre": "horror"}
+                        """)
+                .when()
+                .post("/api/v1/books/import")
+                .then()
+                .log()
+                .ifError()
+                .statusCode(200)
+                .body("imported", Matchers.is(1))
+                .body("rejected", Matchers.is(1))
+                .body("errors[0].line", Matchers.is(2))
+                .body("errors[0].error", Matchers.is("Genre not found."));
+
+        Assertions.assertEquals(3, bookRepository.count());
+    }
+
+    @Test
+    public void testImportBooksAnonymously() {
+        RestAssured.given()
+                .auth().none()
+                .contentType("text/csv")
+                .body("""
+                        title,isbn,year,authorName,authorSurname,genre
+                        Book 3,1234567892,2001,John,Doe,fantasy
+                        """)
+                .when()
+                .post("/api/v1/books/import")
+                .then()
+                .statusCode(403);
+
+        Assertions.assertEquals(2, bookRepository.count());
+    }
+
+    @Test
+    public void testExportBooks() {
+        Book bookWithoutIsbn = bookRepository.save(
+                Book.builder()
+                        .title("Book 3")
+                        .author(book.getAuthor())
+                        .genre(book.getGenre())
+                        .build()
+        );
+
+        String body = RestAssured.given()
+                .when()
+                .get("/api/v1/export/books?format=CSV")
+                .then()
+                .log()
+                .ifError()
+                .statusCode(200)
+                .contentType(Matchers.startsWith("text/csv"))
+                .extract()
+                .asString();
+
+        Assertions.assertEquals(
+                List.of(
+                        "id,title,isbn,year,authorId,authorName,authorSurname,genre",
+                        "%d,Book 1,1234567890,0,%d,John,Doe,fantasy"
+                                .formatted(book.getId(), book.getAuthor().getId()),
+                        "%d,Book 2,1234567891,0,%d,John,Doe,fantasy"
+                                .formatted(
+                                        bookRepository.findByIsbn("1234567891").orElseThrow().getId(),
+                                        book.getAuthor().getId()
+                                ),
+                        "%d,Book 3,,0,%d,John,Doe,fantasy"
+                                .formatted(bookWithoutIsbn.getId(), book.getAuthor().getId())
+                ),
+                body.lines().toList()
+        );
+    }
+
     @Test
     public void testReplaceBook() {
         String requestBody = """
@@ -0,0 +1,60 @@
+package com.github.togrul2.booklet.exports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.togrul2.booklet.entities.ReservationStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ExportWriterTests {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private String export(ExportFormat format, List<String> columns, Object[]... rows) throws IOException {
+        StringWriter output = new StringWriter();
+        ExportWriter writer = ExportWriter.of(format, output, objectMapper, columns);
+        for (Object[] row : rows) {
+            writer.write(row);
+        }
+        writer.flush();
+        return output.toString();
+    }
+
+    @Test
+    public void testCsvQuotesOnlyWhenNeeded() throws IOException {
+        String csv = export(
+                ExportFormat.CSV,
+                List.of("id", "title", "isbn"),
+                new Object[]{1L, "Dune", "1234567890"},
+                new Object[]{2L, "Le Guin, \"Earthsea\"", null},
+                new Object[]{3L, "Two\nlines", ""}
+        );
+
+        Assertions.assertEquals("""
+                id,title,isbn
+                1,Dune,1234567890
+                2,"Le Guin, ""Earthsea\""",
+                3,"Two
+                lines",
+                """, csv);
+    }
+
+    @Test
+    public void testNdjsonWritesObjectPerLine() throws IOException {
+        String ndjson = export(
+                ExportFormat.NDJSON,
+                List.of("id", "startDate", "status", "bookIsbn"),
+                new Object[]{1L, LocalDateTime.of(2025, 1, 1, 10, 0), ReservationStatus.PAID, null},
+                new Object[]{2L, LocalDateTime.of(2025, 1, 2, 10, 30), ReservationStatus.RESERVED, "1234567890"}
+        );
+
+        Assertions.assertEquals("""
+                {"id":1,"startDate":"2025-01-01T10:00:00","status":"PAID","bookIsbn":null}
+                {"id":2,"startDate":"2025-01-02T10:30:00","status":"RESERVED","bookIsbn":"1234567890"}
+                """, ndjson);
+    }
+}
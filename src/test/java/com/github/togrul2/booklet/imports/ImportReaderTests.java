@@ -0,0 +1,110 @@
+package com.github.togrul2.booklet.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.togrul2.booklet.dtos.author.AuthorImportRowDto;
+import com.github.togrul2.booklet.dtos.book.BookImportRowDto;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDate;
+
+public class ImportReaderTests {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private <T> ImportReader<T> reader(ImportFormat format, String input, Class<T> type) throws IOException {
+        return ImportReader.of(format, new StringReader(input), objectMapper, type);
+    }
+
+    @Test
+    public void testCsvBindsColumnsByHeader() throws IOException {
+        ImportReader<BookImportRowDto> reader = reader(ImportFormat.CSV, """
+                \uFEFFisbn,title,year,authorName,authorSurname,genre,publisher
+                1234567890,Dune,1965,Frank,Herbert,science-fiction,Chilton
+                """, BookImportRowDto.class);
+
+        BookImportRowDto row = reader.next();
+
+        Assertions.assertEquals(
+                new BookImportRowDto("Dune", "1234567890", 1965, "Frank", "Herbert", "science-fiction"),
+                row
+        );
+        Assertions.assertEquals(2, reader.line());
+        Assertions.assertNull(reader.next());
+    }
+
+    @Test
+    public void testCsvQuotedFields() throws IOException {
+        ImportReader<AuthorImportRowDto> reader = reader(ImportFormat.CSV, """
+                name,surname,birthDate,deathDate,biography
+                "Le Guin, Ursula",K.,1929-10-21,,"Wrote ""Earthsea"",
+                among others."
+                Nobody,Known,1900-01-01,,""
+                """, AuthorImportRowDto.class);
+
+        AuthorImportRowDto first = reader.next();
+        Assertions.assertEquals("Le Guin, Ursula", first.name());
+        Assertions.assertEquals(LocalDate.of(1929, 10, 21), first.birthDate());
+        Assertions.assertNull(first.deathDate());
+        Assertions.assertEquals("Wrote \"Earthsea\",\namong others.", first.biography());
+        Assertions.assertEquals(2, reader.line());
+
+        // Quoted empty field is an empty string, unlike an empty unquoted one.
+        AuthorImportRowDto second = reader.next();
+        Assertions.assertEquals("", second.biography());
+        Assertions.assertEquals(4, reader.line());
+    }
+
+    @Test
+    public void testCsvMalformedRowDoesNotStopReading() throws IOException {
+        ImportReader<BookImportRowDto> reader = reader(ImportFormat.CSV, """
+                title,isbn,year,authorName,authorSurname,genre
+                Dune,1234567890
+                Dune,1234567890,soon,Frank,Herbert,science-fiction
+
+                Emma,1234567891,1815,Jane,Austen,classics
+                """, BookImportRowDto.class);
+
+        Assertions.assertThrows(IllegalArgumentException.class, reader::next);
+        Assertions.assertEquals(2, reader.line());
+        Assertions.assertThrows(IllegalArgumentException.class, reader::next);
+        Assertions.assertEquals(3, reader.line());
+        Assertions.assertEquals("Emma", reader.next().title());
+        Assertions.assertEquals(5, reader.line());
+        Assertions.assertNull(reader.next());
+    }
+
+    @Test
+    public void testCsvUnclosedQuote() throws IOException {
+        ImportReader<BookImportRowDto> reader = reader(ImportFormat.CSV, """
+                title,isbn,year,authorName,authorSurname,genre
+                "Dune,1234567890,1965,Frank,Herbert,science-fiction
+                """, BookImportRowDto.class);
+
+        Assertions.assertThrows(IllegalArgumentException.class, reader::next);
+        Assertions.assertNull(reader.next());
+    }
+
+    @Test
+    public void testNdjson() throws IOException {
+        ImportReader<BookImportRowDto> reader = reader(ImportFormat.NDJSON, """
+                {"title": "Dune", "isbn": "1234567890", "year": 1965}
+
+                {"title": "Emma", "isbn":
+                null
+                {"title": "Emma", "isbn": "1234567891", "year": 1815, "genre": "classics"}
+                """, BookImportRowDto.class);
+
+        Assertions.assertEquals("Dune", reader.next().title());
+        Assertions.assertEquals(1, reader.line());
+        Assertions.assertThrows(IllegalArgumentException.class, reader::next);
+        Assertions.assertEquals(3, reader.line());
+        Assertions.assertThrows(IllegalArgumentException.class, reader::next);
+        Assertions.assertEquals(4, reader.line());
+        Assertions.assertEquals("classics", reader.next().genre());
+        Assertions.assertEquals(5, reader.line());
+        Assertions.assertNull(reader.next());
+    }
+}
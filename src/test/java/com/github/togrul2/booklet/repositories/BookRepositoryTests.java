@@ -0,0 +1,317 @@
+package com.github.togrul2.booklet.repositories;
+
+import com.github.togrul2.booklet.configurations.TestcontainersConfiguration;
+import com.github.togrul2.booklet.dtos.CursorPageDto;
+import com.github.togrul2.booklet.dtos.SearchMode;
+import com.github.togrul2.booklet.dtos.author.AuthorFilterDto;
+import com.github.togrul2.booklet.dtos.book.BookDto;
+import com.github.togrul2.booklet.dtos.book.BookFilterDto;
+import com.github.togrul2.booklet.dtos.user.UserFilterDto;
+import com.github.togrul2.booklet.entities.Author;
+import com.github.togrul2.booklet.entities.Book;
+import com.github.togrul2.booklet.entities.Genre;
+import com.github.togrul2.booklet.mappers.BookMapper;
+import com.github.togrul2.booklet.specifications.AuthorSpecificationAssembler;
+import com.github.togrul2.booklet.specifications.BookSpecificationAssembler;
+import com.github.togrul2.booklet.specifications.KeysetPagination;
+import com.github.togrul2.booklet.specifications.UserSpecificationAssembler;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+@DataJpaTest
+@Testcontainers
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class BookRepositoryTests {
+    private static final int BOOKS = 5;
+    // Page smaller than the number of books, so the count query is not skipped.
+    private final Pageable pageable = PageRequest.of(0, BOOKS - 1, Sort.by("id"));
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private GenreRepository genreRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < BOOKS; i++) {
+            Author author = authorRepository.save(Author.builder()
+                    .name("Name" + i)
+                    .surname("Surname" + i)
+                    .birthDate(LocalDate.of(1900, 1, 1))
+                    .biography("Biography")
+                    .build());
+            Genre genre = genreRepository.save(Genre.builder().name("Genre" + i).slug("genre-" + i).build());
+            bookRepository.save(Book.builder()
+                    .title("Title" + i)
+                    .isbn("123456789" + i)
+                    .year(2000)
+                    .author(author)
+                    .genre(genre)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void testFindAllFetchesAssociations() {
+        List<BookDto> books = bookRepository.findAll(pageable).map(BookMapper.INSTANCE::toBookDto).getContent();
+
+        Assertions.assertEquals(BOOKS - 1, books.size());
+        Assertions.assertNotNull(books.getFirst().author().name());
+        // Page and count.
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindSliceSkipsCount() {
+        Slice<BookDto> books = bookRepository.findSlice(null, pageable).map(BookMapper.INSTANCE::toBookDto);
+
+        Assertions.assertEquals(BOOKS - 1, books.getNumberOfElements());
+        Assertions.assertTrue(books.hasNext());
+        Assertions.assertNotNull(books.getContent().getFirst().author().name());
+        // Page only, associations are fetched with it.
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+
+        Assertions.assertFalse(bookRepository.findSlice(null, pageable.next()).hasNext());
+    }
+
+    @Test
+    public void testFindAllBySpecificationFetchesAssociations() {
+        BookFilterDto filterDto = BookFilterDto.builder().title("Title").build();
+
+        List<BookDto> books = bookRepository.findAll(
+                BookSpecificationAssembler.builder().filterDto(filterDto).build().getSpecification().orElseThrow(),
+                pageable
+        ).map(BookMapper.INSTANCE::toBookDto).getContent();
+
+        Assertions.assertEquals(BOOKS - 1, books.size());
+        Assertions.assertNotNull(books.getFirst().genre().name());
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindAllExcludesManyReservedBooks() {
+        long reservedId = bookRepository.findAll(pageable).getContent().getFirst().getId();
+        // More ids than Postgres accepts bind parameters in a statement.
+        List<Long> reservedBookIds = new ArrayList<>(LongStream.rangeClosed(1, 70_000).map(i -> -i).boxed().toList());
+        reservedBookIds.add(reservedId);
+
+        Page<Book> books = bookRepository.findAll(
+                BookSpecificationAssembler
+                        .builder()
+                        .filterDto(BookFilterDto.builder().build())
+                        .reservedBookIds(reservedBookIds)
+                        .build()
+                        .getSpecification()
+                        .orElseThrow(),
+                pageable
+        );
+
+        Assertions.assertEquals(BOOKS - 1, books.getTotalElements());
+        Assertions.assertTrue(books.stream().noneMatch(book -> book.getId() == reservedId));
+    }
+
+    @Test
+    public void testFindByIdFetchesAssociations() {
+        long id = bookRepository.findAll(pageable).getContent().getFirst().getId();
+        statistics.clear();
+        entityManager.clear();
+
+        BookDto book = bookRepository.findById(id).map(BookMapper.INSTANCE::toBookDto).orElseThrow();
+
+        Assertions.assertNotNull(book.author().name());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private List<String> findTitles(BookFilterDto filterDto) {
+        return bookRepository.findAll(
+                BookSpecificationAssembler.builder().filterDto(filterDto).build().getSpecification().orElseThrow(),
+                PageRequest.of(0, 10)
+        ).map(Book::getTitle).getContent();
+    }
+
+    private void saveBooks(String... titles) {
+        for (int i = 0; i < titles.length; i++) {
+            bookRepository.save(Book.builder().title(titles[i]).isbn("987654321" + i).year(2000).build());
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    public void testSearchWordsRankedByRelevance() {
+        saveBooks("The Great Gatsby", "Great Expectations", "Gatsby Gatsby");
+
+        List<String> titles = findTitles(BookFilterDto.builder().search("gatsby").build());
+
+        Assertions.assertEquals(List.of("Gatsby Gatsby", "The Great Gatsby"), titles);
+    }
+
+    @Test
+    public void testSearchFuzzyToleratesTypos() {
+        saveBooks("The Great Gatsby", "Great Expectations");
+
+        List<String> titles = findTitles(BookFilterDto.builder().search("gatsbby").searchMode(SearchMode.FUZZY).build());
+
+        Assertions.assertEquals(List.of("The Great Gatsby"), titles);
+    }
+
+    @Test
+    public void testTitleFilterMatchesWildcardsLiterally() {
+        saveBooks("100% Cotton", "1000 Nights");
+
+        Assertions.assertEquals(List.of("100% Cotton"), findTitles(BookFilterDto.builder().title("100%").build()));
+    }
+
+    private void assertUsesIndex(String index, String value, Runnable query) {
+        // Search terms are the only parameters, some are used more than once.
+        final String plan = QueryPlans.explain(entityManager, query, List.of(), value);
+        Assertions.assertTrue(plan.contains(" on " + index + " "), () -> "Expected " + index + ":\n" + plan);
+    }
+
+    @Test
+    public void testSearchQueriesUseIndexes() {
+        // Tables are tiny, without this the planner prefers sequential scans even where an index matches.
+        entityManager.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+
+        assertUsesIndex("ix_book_title_trgm", "%gatsby%", () -> bookRepository.findAll(
+                BookSpecificationAssembler.builder().filterDto(BookFilterDto.builder().title("gatsby").build()).build()
+                        .getSpecification().orElseThrow()
+        ));
+        assertUsesIndex("ix_book_title_fts", "gatsby", () -> bookRepository.findAll(
+                BookSpecificationAssembler.builder().filterDto(BookFilterDto.builder().search("gatsby").build()).build()
+                        .getSpecification().orElseThrow()
+        ));
+        assertUsesIndex("ix_book_title_fuzzy", "gatsbby", () -> bookRepository.findAll(
+                BookSpecificationAssembler.builder()
+                        .filterDto(BookFilterDto.builder().search("gatsbby").searchMode(SearchMode.FUZZY).build())
+                        .build()
+                        .getSpecification().orElseThrow()
+        ));
+        assertUsesIndex("ix_author_surname_trgm", "%fitz%", () -> authorRepository.findAll(
+                AuthorSpecificationAssembler.builder().filterDto(AuthorFilterDto.builder().surname("fitz").build())
+                        .build()
+                        .getSpecification().orElseThrow()
+        ));
+        assertUsesIndex("ix_author_full_name_fts", "scott", () -> authorRepository.findAll(
+                AuthorSpecificationAssembler.builder().filterDto(AuthorFilterDto.builder().search("scott").build())
+                        .build()
+                        .getSpecification().orElseThrow()
+        ));
+        assertUsesIndex("ix_accounts_email_trgm", "%doe%", () -> userRepository.findAll(
+                UserSpecificationAssembler.builder().filterDto(UserFilterDto.builder().email("doe").build()).build()
+                        .getSpecification().orElseThrow()
+        ));
+        assertUsesIndex("ix_accounts_full_name_fuzzy", "jonh", () -> userRepository.findAll(
+                UserSpecificationAssembler.builder()
+                        .filterDto(UserFilterDto.builder().search("jonh").searchMode(SearchMode.FUZZY).build())
+                        .build()
+                        .getSpecification().orElseThrow()
+        ));
+    }
+
+    private List<Book> findAllByCursor(Sort sort) {
+        KeysetPagination<Book> pagination = new KeysetPagination<>(
+                Book.class, Set.of("title", "year"), List.of("author", "genre")
+        );
+        List<Book> books = new ArrayList<>();
+        String cursor = "";
+        do {
+            CursorPageDto<Book> page = pagination.find(bookRepository, null, cursor, PageRequest.of(0, 2, sort));
+            books.addAll(page.content());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return books;
+    }
+
+    @Test
+    public void testFindByCursorWalksAllBooks() {
+        List<Book> books = findAllByCursor(Sort.by(Sort.Direction.DESC, "title"));
+
+        Assertions.assertEquals(
+                List.of("Title4", "Title3", "Title2", "Title1", "Title0"),
+                books.stream().map(Book::getTitle).toList()
+        );
+        Assertions.assertEquals("Name4", books.getFirst().getAuthor().getName());
+        // One query per page with associations, pages are not counted.
+        Assertions.assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindByCursorBreaksTiesById() {
+        // Every book has the same year.
+        List<Book> books = findAllByCursor(Sort.by("year"));
+
+        Assertions.assertEquals(BOOKS, books.stream().map(Book::getId).distinct().count());
+        Assertions.assertEquals(
+                books.stream().map(Book::getId).sorted().toList(), books.stream().map(Book::getId).toList()
+        );
+    }
+
+    @Test
+    public void testFindByInvalidCursor() {
+        KeysetPagination<Book> pagination = new KeysetPagination<>(Book.class, Set.of("title"), List.of());
+
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> pagination.find(bookRepository, null, "not a cursor", pageable)
+        );
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> pagination.find(bookRepository, null, "", PageRequest.of(0, 2, Sort.by("isbn")))
+        );
+    }
+
+    @Test
+    public void testCursorQueriesUseIndexes() {
+        entityManager.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+        KeysetPagination<Book> pagination = new KeysetPagination<>(
+                Book.class, Set.of("title", "year"), List.of("author", "genre")
+        );
+        Pageable firstPage = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "title"));
+        CursorPageDto<Book> page = pagination.find(bookRepository, null, "", firstPage);
+        Book last = page.content().getLast();
+
+        // Seek binds the title three times, then the id. Page bounds are the remaining parameters.
+        String plan = QueryPlans.explain(
+                entityManager,
+                () -> pagination.find(bookRepository, null, page.nextCursor(), firstPage),
+                List.of(last.getTitle(), last.getTitle(), last.getTitle(), last.getId()),
+                3
+        );
+
+        Assertions.assertTrue(plan.contains("using ix_book_title_id on book"), plan);
+        Assertions.assertFalse(plan.contains("Sort"), plan);
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.togrul2.booklet.repositories;
+
+import com.github.togrul2.booklet.configurations.RecordingStatementInspector;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Explains statements Hibernate renders, so repository tests check plans of the queries that actually run.
+ */
+final class QueryPlans {
+    private QueryPlans() {
+    }
+
+    /**
+     * Runs the query and explains the first statement it prepared, which is the page query of a paged one.
+     *
+     * @param values    values of the leading parameters, in the order they appear in the statement.
+     * @param remaining value of every parameter past the leading ones, such as a repeated search term or page bounds.
+     * @return the statement followed by its plan.
+     */
+    static String explain(EntityManager entityManager, Runnable query, List<?> values, Object remaining) {
+        final String sql = RecordingStatementInspector.record(query).getFirst();
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                final long parameters = sql.chars().filter(c -> c == '?').count();
+                for (int i = 0; i < parameters; i++) {
+                    statement.setObject(i + 1, i < values.size() ? values.get(i) : remaining);
+                }
+                final List<String> plan = new ArrayList<>();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        plan.add(rs.getString(1));
+                    }
+                }
+                return sql + "\n" + String.join("\n", plan);
+            }
+        });
+    }
+}
@@ -0,0 +1,281 @@
+package com.github.togrul2.booklet.repositories;
+
+import com.github.togrul2.booklet.configurations.TestcontainersConfiguration;
+import com.github.togrul2.booklet.dtos.reservation.ReservationDto;
+import com.github.togrul2.booklet.dtos.reservation.ReservationFilterDto;
+import com.github.togrul2.booklet.entities.*;
+import com.github.togrul2.booklet.mappers.ReservationMapper;
+import com.github.togrul2.booklet.specifications.ReservationSpecificationAssembler;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@DataJpaTest
+@Testcontainers
+@ActiveProfiles("test")
+@Import(TestcontainersConfiguration.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class ReservationRepositoryTests {
+    private static final int RESERVATIONS = 5;
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1);
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    private User user;
+    private Book book;
+
+    @BeforeEach
+    public void setUp() {
+        user = userRepository.save(User.builder().email("johndoe@example.com").role(Role.USER).build());
+        book = bookRepository.save(Book.builder().title("Title").isbn("1234567890").year(2000).build());
+    }
+
+    private Reservation createReservation(LocalDateTime startDate, LocalDateTime endDate, ReservationStatus status) {
+        Reservation reservation = new Reservation();
+        reservation.setUser(user);
+        reservation.setBook(book);
+        reservation.setStartDate(startDate);
+        reservation.setEndDate(endDate);
+        reservation.setStatus(status);
+        return reservation;
+    }
+
+    @Test
+    public void testOverlappingReservationRejected() {
+        reservationRepository.saveAndFlush(
+                createReservation(start.plusDays(1), start.plusDays(2), ReservationStatus.RESERVED)
+        );
+
+        // New reservation fully contains the existing one.
+        Assertions.assertThrows(DataIntegrityViolationException.class, () -> reservationRepository.saveAndFlush(
+                createReservation(start, start.plusDays(3), ReservationStatus.RESERVED)
+        ));
+    }
+
+    @Test
+    public void testAdjacentReservationsAllowed() {
+        reservationRepository.saveAndFlush(createReservation(start, start.plusDays(1), ReservationStatus.RESERVED));
+
+        Assertions.assertDoesNotThrow(() -> reservationRepository.saveAndFlush(
+                createReservation(start.plusDays(1), start.plusDays(2), ReservationStatus.RESERVED)
+        ));
+    }
+
+    @Test
+    public void testCancelledReservationDoesNotBlock() {
+        reservationRepository.saveAndFlush(createReservation(start, start.plusDays(2), ReservationStatus.CANCELLED));
+
+        Assertions.assertDoesNotThrow(() -> reservationRepository.saveAndFlush(
+                createReservation(start, start.plusDays(2), ReservationStatus.RESERVED)
+        ));
+        Assertions.assertFalse(reservationRepository.hasOverlappingSession(book, start.minusDays(1), start));
+        Assertions.assertTrue(
+                reservationRepository.hasOverlappingSession(book, start.plusHours(1), start.plusHours(2))
+        );
+    }
+
+    @Test
+    public void testSearchByFilter() {
+        reservationRepository.saveAndFlush(createReservation(start, start.plusDays(1), ReservationStatus.RESERVED));
+        Reservation matching = reservationRepository.saveAndFlush(
+                createReservation(start.plusDays(2), start.plusDays(3), ReservationStatus.RESERVED)
+        );
+        reservationRepository.saveAndFlush(
+                createReservation(start.plusDays(2), start.plusDays(3), ReservationStatus.CANCELLED)
+        );
+        ReservationFilterDto filterDto = ReservationFilterDto.builder()
+                .status(ReservationStatus.RESERVED)
+                .userId(user.getId())
+                .bookId(book.getId())
+                .from(start.plusDays(1))
+                .to(start.plusDays(5))
+                .build();
+
+        List<Reservation> reservations = reservationRepository.findAll(
+                ReservationSpecificationAssembler.builder().filterDto(filterDto).build().getSpecification().orElseThrow(),
+                PageRequest.of(0, 10, Sort.by("startDate"))
+        ).getContent();
+
+        Assertions.assertEquals(List.of(matching.getId()), reservations.stream().map(Reservation::getId).toList());
+    }
+
+    private void assertIndexBacked(ReservationFilterDto filterDto, List<?> values) {
+        // Unsorted, so an index scan can only come from the filter, not from ordering. Page bounds are the last parameters.
+        final String plan = QueryPlans.explain(entityManager, () -> reservationRepository.findAll(
+                ReservationSpecificationAssembler.builder().filterDto(filterDto).build().getSpecification().orElseThrow(),
+                PageRequest.of(0, 10)
+        ), values, 10);
+        Assertions.assertFalse(plan.contains("Seq Scan"), () -> "Not index backed:\n" + plan);
+    }
+
+    @Test
+    public void testSearchQueriesUseIndexes() {
+        // Sequential scans are still planned when no index can serve the query, so their absence proves one can.
+        entityManager.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+        final LocalDateTime end = start.plusDays(7);
+
+        assertIndexBacked(ReservationFilterDto.builder().userId(user.getId()).build(), List.of(user.getId()));
+        assertIndexBacked(
+                ReservationFilterDto.builder().bookId(book.getId()).from(start).to(end).build(),
+                List.of(book.getId(), start, end)
+        );
+        assertIndexBacked(
+                ReservationFilterDto.builder().status(ReservationStatus.RESERVED).from(start).to(end).build(),
+                List.of(ReservationStatus.RESERVED.ordinal(), start, end)
+        );
+        assertIndexBacked(ReservationFilterDto.builder().from(start).to(end).build(), List.of(start, end));
+        assertIndexBacked(ReservationFilterDto.builder().genreId(1L).build(), List.of(1L));
+    }
+
+    /**
+     * Saves reservations of distinct books with their own author and genre, then detaches everything and resets
+     * statistics, so lazy loading of any association would show up as extra statements.
+     */
+    private Statistics createReservationsOfDistinctBooks() {
+        for (int i = 0; i < RESERVATIONS; i++) {
+            Author author = Author.builder()
+                    .name("Name" + i)
+                    .surname("Surname" + i)
+                    .birthDate(start.toLocalDate().minusYears(50))
+                    .biography("Biography")
+                    .build();
+            entityManager.persist(author);
+            Genre genre = Genre.builder().name("Genre" + i).slug("genre-" + i).build();
+            entityManager.persist(genre);
+            book = bookRepository.save(
+                    Book.builder().title("Title" + i).isbn("098765432" + i).year(2000).author(author).genre(genre).build()
+            );
+            reservationRepository.save(createReservation(start, start.plusDays(1), ReservationStatus.RESERVED));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    // Page smaller than the number of reservations, so the count query is not skipped.
+    private Pageable firstPage() {
+        return PageRequest.of(0, RESERVATIONS - 1, Sort.by("id"));
+    }
+
+    private List<ReservationDto> toDtos(List<Reservation> reservations) {
+        return reservations.stream().map(ReservationMapper.INSTANCE::toReservationDto).toList();
+    }
+
+    @Test
+    public void testFindAllRunsPageAndCountQueries() {
+        Statistics statistics = createReservationsOfDistinctBooks();
+
+        List<ReservationDto> reservations = toDtos(reservationRepository.findAll(firstPage()).getContent());
+
+        Assertions.assertEquals(RESERVATIONS - 1, reservations.size());
+        Assertions.assertNotNull(reservations.getFirst().book().author().name());
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindAllBySpecificationRunsPageAndCountQueries() {
+        Statistics statistics = createReservationsOfDistinctBooks();
+        ReservationFilterDto filterDto = ReservationFilterDto.builder()
+                .status(ReservationStatus.RESERVED)
+                .from(start)
+                .build();
+
+        List<ReservationDto> reservations = toDtos(reservationRepository.findAll(
+                ReservationSpecificationAssembler.builder().filterDto(filterDto).build().getSpecification().orElseThrow(),
+                firstPage()
+        ).getContent());
+
+        Assertions.assertEquals(RESERVATIONS - 1, reservations.size());
+        Assertions.assertNotNull(reservations.getFirst().book().genre().name());
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindAllForUserRunsPageAndCountQueries() {
+        Statistics statistics = createReservationsOfDistinctBooks();
+
+        List<ReservationDto> reservations = toDtos(
+                reservationRepository.findAllForUser(user.getId(), firstPage()).getContent()
+        );
+
+        Assertions.assertEquals(RESERVATIONS - 1, reservations.size());
+        Assertions.assertEquals("johndoe@example.com", reservations.getFirst().user().email());
+        Assertions.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindByIdForUserRunsSingleQuery() {
+        Statistics statistics = createReservationsOfDistinctBooks();
+        long id = reservationRepository.findAll(firstPage()).getContent().getFirst().getId();
+        entityManager.clear();
+        statistics.clear();
+
+        ReservationDto reservation = reservationRepository.findByIdForUser(id, user.getId())
+                .map(ReservationMapper.INSTANCE::toReservationDto)
+                .orElseThrow();
+
+        Assertions.assertNotNull(reservation.book().author().name());
+        Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testFindAccessibleById() {
+        User anotherUser = userRepository.save(User.builder().email("janedoe@example.com").role(Role.USER).build());
+        long id = reservationRepository.saveAndFlush(
+                createReservation(start, start.plusDays(1), ReservationStatus.RESERVED)
+        ).getId();
+        long anotherId = reservationRepository.saveAndFlush(
+                createReservation(start.plusDays(1), start.plusDays(2), ReservationStatus.RESERVED)
+        ).getId();
+
+        Assertions.assertTrue(reservationRepository.findAccessibleById(id, user.getId(), false).isPresent());
+        Assertions.assertTrue(reservationRepository.findAccessibleById(id, anotherUser.getId(), true).isPresent());
+        Assertions.assertTrue(reservationRepository.findAccessibleById(id, anotherUser.getId(), false).isEmpty());
+        // Admin flag must not widen the match to other reservations.
+        Assertions.assertEquals(
+                anotherId,
+                reservationRepository.findAccessibleById(anotherId, anotherUser.getId(), true).orElseThrow().getId()
+        );
+    }
+
+    @Test
+    public void testUpdateReservationStatusUpdatesOnlyTargetReservation() {
+        User anotherUser = userRepository.save(User.builder().email("janedoe@example.com").role(Role.USER).build());
+        long id = reservationRepository.saveAndFlush(
+                createReservation(start, start.plusDays(1), ReservationStatus.RESERVED)
+        ).getId();
+        reservationRepository.saveAndFlush(
+                createReservation(start.plusDays(1), start.plusDays(2), ReservationStatus.RESERVED)
+        );
+
+        Assertions.assertEquals(
+                0, reservationRepository.updateReservationStatus(id, ReservationStatus.CANCELLED, anotherUser.getId(), false)
+        );
+        Assertions.assertEquals(
+                1, reservationRepository.updateReservationStatus(id, ReservationStatus.CANCELLED, anotherUser.getId(), true)
+        );
+    }
+}
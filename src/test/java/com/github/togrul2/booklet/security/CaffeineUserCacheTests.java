@@ -0,0 +1,35 @@
+package com.github.togrul2.booklet.security;
+
+import com.github.togrul2.booklet.entities.Role;
+import com.github.togrul2.booklet.entities.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.config.authentication.CachingUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CaffeineUserCacheTests {
+    private final User user = User.builder().email("johndoe@example.com").role(Role.USER).build();
+
+    @Test
+    public void testRepeatedLoadsHitCache() {
+        AtomicInteger loads = new AtomicInteger();
+        UserDetailsService delegate = _ -> {
+            loads.incrementAndGet();
+            return user;
+        };
+        CaffeineUserCache userCache = new CaffeineUserCache(100, Duration.ofMinutes(1));
+        CachingUserDetailsService userDetailsService = new CachingUserDetailsService(delegate);
+        userDetailsService.setUserCache(userCache);
+
+        Assertions.assertSame(user, userDetailsService.loadUserByUsername(user.getEmail()));
+        Assertions.assertSame(user, userDetailsService.loadUserByUsername(user.getEmail()));
+        Assertions.assertEquals(1, loads.get());
+
+        userCache.removeUserFromCache(user.getEmail());
+        userDetailsService.loadUserByUsername(user.getEmail());
+        Assertions.assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.togrul2.booklet.security;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+public class TokenDenylistTests {
+    @Test
+    public void testContains() {
+        TokenDenylist denylist = new TokenDenylist(100);
+        String revoked = UUID.randomUUID().toString();
+
+        denylist.add(revoked, Long.MAX_VALUE);
+
+        Assertions.assertTrue(denylist.contains(revoked));
+        Assertions.assertFalse(denylist.contains(UUID.randomUUID().toString()));
+    }
+
+    @Test
+    public void testNoFalseNegativesBeyondExpectedSize() {
+        TokenDenylist denylist = new TokenDenylist(100);
+        String[] revoked = new String[1000];
+        for (int i = 0; i < revoked.length; i++) {
+            revoked[i] = UUID.randomUUID().toString();
+            denylist.add(revoked[i], Long.MAX_VALUE);
+        }
+
+        for (String tokenId : revoked) {
+            Assertions.assertTrue(denylist.contains(tokenId));
+        }
+    }
+
+    @Test
+    public void testPurgeExpired() {
+        TokenDenylist denylist = new TokenDenylist(100);
+        denylist.add("expired", 1_000L);
+        denylist.add("active", 3_000L);
+
+        Assertions.assertEquals(1, denylist.purgeExpired(2_000L));
+        Assertions.assertFalse(denylist.contains("expired"));
+        Assertions.assertTrue(denylist.contains("active"));
+        Assertions.assertEquals(1, denylist.size());
+    }
+}
@@ -2,10 +2,14 @@ package com.github.togrul2.booklet.services;
 
 import com.github.togrul2.booklet.dtos.auth.LoginDto;
 import com.github.togrul2.booklet.dtos.auth.RefreshRequestDto;
+import com.github.togrul2.booklet.dtos.auth.RevokeRequestDto;
 import com.github.togrul2.booklet.dtos.auth.TokenPairDto;
 import com.github.togrul2.booklet.entities.Role;
 import com.github.togrul2.booklet.entities.Token;
 import com.github.togrul2.booklet.entities.User;
+import com.github.togrul2.booklet.repositories.UserRepository;
+import com.github.togrul2.booklet.security.TokenClaims;
+import com.github.togrul2.booklet.security.TokenType;
 import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,11 +18,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Instant;
+import java.util.Optional;
+
 @ExtendWith(SpringExtension.class)
 public class AuthServiceTests {
     @InjectMocks
@@ -28,12 +36,21 @@ public class AuthServiceTests {
     @Mock
     private UserDetailsService userDetailsService;
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private TokenGenerationService tokenGenerationService;
+    @Mock
+    private TokenDenylistService tokenDenylistService;
+    @Mock
+    private UserCache userCache;
     private User user;
 
     @BeforeEach
     public void setUp() {
         this.user = User.builder()
+                .id(1L)
                 .email("johndoe@example.com")
                 .password("secret")
                 .role(Role.USER)
@@ -44,7 +61,7 @@ public class AuthServiceTests {
     public void testLoginSuccess() {
         LoginDto loginDto = LoginDto.builder().email("johndoe@example.com").password("secret").build();
         Mockito.when(userDetailsService.loadUserByUsername(user.getEmail())).thenReturn(user);
-        Mockito.when(passwordEncoder.matches(loginDto.password(), user.getPassword())).thenReturn(true);
+        Mockito.when(passwordHashingService.matches(loginDto.password(), user.getPassword())).thenReturn(true);
         Mockito.when(jwtService.createAndStoreRefreshToken(user, user.getRole()))
                 .thenReturn(Token.builder().token("refresh-token").user(user).build());
         Mockito.when(jwtService.createAccessToken(user, user.getRole())).thenReturn("access-token");
@@ -54,9 +71,29 @@ public class AuthServiceTests {
         Assertions.assertEquals("access-token", tokens.accessToken());
         Assertions.assertEquals("refresh-token", tokens.refreshToken());
         Mockito.verify(userDetailsService).loadUserByUsername(user.getEmail());
-        Mockito.verify(passwordEncoder).matches(loginDto.password(), user.getPassword());
+        Mockito.verify(passwordHashingService).matches(loginDto.password(), user.getPassword());
         Mockito.verify(jwtService).createAndStoreRefreshToken(user, user.getRole());
         Mockito.verify(jwtService).createAccessToken(user, user.getRole());
+        Mockito.verify(userRepository, Mockito.never()).updatePassword(Mockito.anyLong(), Mockito.any());
+    }
+
+    @Test
+    public void testLoginRehashesPasswordWithChangedCost() {
+        LoginDto loginDto = LoginDto.builder().email("johndoe@example.com").password("secret").build();
+        Mockito.when(userDetailsService.loadUserByUsername(user.getEmail())).thenReturn(user);
+        Mockito.when(passwordHashingService.matches(loginDto.password(), user.getPassword())).thenReturn(true);
+        Mockito.when(passwordHashingService.needsRehash(user.getPassword())).thenReturn(true);
+        Mockito.when(passwordHashingService.encode(loginDto.password())).thenReturn("rehashed");
+        Mockito.when(jwtService.createAndStoreRefreshToken(user, user.getRole()))
+                .thenReturn(Token.builder().token("refresh-token").user(user).build());
+
+        authService.login(loginDto);
+
+        // Cached user is left as is, it is evicted instead.
+        Assertions.assertEquals("secret", user.getPassword());
+        Mockito.verify(userRepository).updatePassword(1L, "rehashed");
+        Mockito.verify(userRepository, Mockito.never()).save(Mockito.any());
+        Mockito.verify(userCache).removeUserFromCache(user.getEmail());
     }
 
     @Test
@@ -73,10 +110,10 @@ public class AuthServiceTests {
     public void testLoginWrongPassword() {
         LoginDto loginDto = LoginDto.builder().email("johndoe@example.com").password("wrong").build();
         Mockito.when(userDetailsService.loadUserByUsername(user.getEmail())).thenReturn(user);
-        Mockito.when(passwordEncoder.matches(loginDto.password(), user.getPassword())).thenReturn(false);
+        Mockito.when(passwordHashingService.matches(loginDto.password(), user.getPassword())).thenReturn(false);
 
         Assertions.assertThrows(UsernameNotFoundException.class, () -> authService.login(loginDto));
-        Mockito.verify(passwordEncoder).matches(loginDto.password(), user.getPassword());
+        Mockito.verify(passwordHashingService).matches(loginDto.password(), user.getPassword());
         Mockito.verify(jwtService, Mockito.never()).createAndStoreRefreshToken(Mockito.any(), Mockito.any());
     }
 
@@ -145,6 +182,68 @@ public class AuthServiceTests {
         Mockito.verify(jwtService).validateRefreshToken("invalid-token");
     }
 
+    @Test
+    public void testRevokeSuccess() {
+        TokenClaims claims = new TokenClaims(
+                "id", 1L, user.getEmail(), Role.USER, TokenType.ACCESS, 0, Instant.now().plusSeconds(60)
+        );
+        Mockito.when(jwtService.verify("access-token")).thenReturn(claims);
+
+        authService.revoke(new RevokeRequestDto("access-token"));
+
+        Mockito.verify(tokenDenylistService).revoke(claims);
+    }
+
+    @Test
+    public void testRevokeInvalidToken() {
+        Mockito.when(jwtService.verify("invalid-token")).thenThrow(new JwtException("Bad token"));
+
+        Assertions.assertThrows(JwtException.class, () -> authService.revoke(new RevokeRequestDto("invalid-token")));
+        Mockito.verify(tokenDenylistService, Mockito.never()).revoke(Mockito.any());
+    }
+
+    @Test
+    public void testLogoutAllSuccess() {
+        RefreshRequestDto dto = new RefreshRequestDto("refresh-token");
+        // Email of the user changed after the token was issued.
+        Mockito.when(jwtService.verify("refresh-token")).thenReturn(new TokenClaims(
+                "id", 1L, "old@example.com", Role.USER, TokenType.REFRESH, 0, Instant.now().plusSeconds(60)
+        ));
+        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        authService.logoutAll(dto);
+
+        Mockito.verify(jwtService).validateRefreshToken("refresh-token");
+        Mockito.verify(tokenGenerationService).revokeAll(user);
+    }
+
+    @Test
+    public void testLogoutAllInvalidToken() {
+        RefreshRequestDto dto = new RefreshRequestDto("invalid-token");
+        Mockito.doThrow(new JwtException("Bad refresh token"))
+                .when(jwtService).validateRefreshToken("invalid-token");
+
+        Assertions.assertThrows(JwtException.class, () -> authService.logoutAll(dto));
+        Mockito.verify(tokenGenerationService, Mockito.never()).revokeAll(Mockito.any());
+    }
+
+    @Test
+    public void testLogoutAllByUserId() {
+        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        authService.logoutAll(1L);
+
+        Mockito.verify(tokenGenerationService).revokeAll(user);
+    }
+
+    @Test
+    public void testLogoutAllByUserIdNotFound() {
+        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> authService.logoutAll(1L));
+        Mockito.verify(tokenGenerationService, Mockito.never()).revokeAll(Mockito.any());
+    }
+
     @Test
     public void testCreateTokenPairsSuccess() {
         Mockito.when(userDetailsService.loadUserByUsername(user.getEmail())).thenReturn(user);
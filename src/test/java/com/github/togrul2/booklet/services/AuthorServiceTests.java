@@ -28,6 +28,8 @@ public class AuthorServiceTests {
     private AuthorService authorService;
     @Mock
     private AuthorRepository authorRepository;
+    @Mock
+    private SuggestionService suggestionService;
 
     private List<Author> authors;
     private Author author;
@@ -96,6 +98,7 @@ public class AuthorServiceTests {
         Mockito
                 .verify(authorRepository, Mockito.times(1))
                 .save(Mockito.any(Author.class));
+        Mockito.verify(suggestionService).putAuthor(author);
         Assertions.assertEquals(author.getId(), createResult.id());
     }
 
@@ -126,6 +129,7 @@ public class AuthorServiceTests {
         Mockito
                 .verify(authorRepository, Mockito.times(1))
                 .save(author);
+        Mockito.verify(suggestionService).putAuthor(author);
     }
 
     @Test
@@ -138,5 +142,6 @@ public class AuthorServiceTests {
         Mockito
                 .verify(authorRepository, Mockito.times(1))
                 .deleteById(author.getId());
+        Mockito.verify(suggestionService).removeAuthor(author.getId());
     }
 }
@@ -1,14 +1,21 @@
 package com.github.togrul2.booklet.services;
 
+import com.github.togrul2.booklet.dtos.CountMode;
+import com.github.togrul2.booklet.dtos.book.BookAvailabilityDto;
 import com.github.togrul2.booklet.dtos.book.BookDto;
 import com.github.togrul2.booklet.dtos.book.BookFilterDto;
 import com.github.togrul2.booklet.dtos.book.BookRequestDto;
+import com.github.togrul2.booklet.dtos.book.FreeWindowDto;
+import com.github.togrul2.booklet.dtos.reservation.ReservationIntervalDto;
 import com.github.togrul2.booklet.entities.Author;
 import com.github.togrul2.booklet.entities.Book;
 import com.github.togrul2.booklet.entities.Genre;
+import com.github.togrul2.booklet.entities.ReservationStatus;
+import com.github.togrul2.booklet.events.ReservationChangedEvent;
 import com.github.togrul2.booklet.repositories.AuthorRepository;
 import com.github.togrul2.booklet.repositories.BookRepository;
 import com.github.togrul2.booklet.repositories.GenreRepository;
+import com.github.togrul2.booklet.repositories.ReservationRepository;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,13 +23,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,6 +49,16 @@ public class BookServiceTests {
     private AuthorRepository authorRepository;
     @Mock
     private GenreRepository genreRepository;
+    @Mock
+    private ReservationRepository reservationRepository;
+    @Mock
+    private ReservationIndexService reservationIndexService;
+    @Mock
+    private SuggestionService suggestionService;
+    @Mock
+    private PageCountService pageCountService;
+    @Mock
+    private CacheManager cacheManager;
     @InjectMocks
     private BookService bookService;
 
@@ -71,6 +95,8 @@ public class BookServiceTests {
                 .year(2020)
                 .build();
         books = List.of(book);
+        Mockito.when(cacheManager.getCache(BookService.AVAILABILITY_CACHE))
+                .thenReturn(new ConcurrentMapCache(BookService.AVAILABILITY_CACHE));
     }
 
     @Test
@@ -89,6 +115,46 @@ public class BookServiceTests {
                 .findAll(PageRequest.of(0, 10));
     }
 
+    @Test
+    public void testGetAllBooksWithoutCount() {
+        Pageable pageable = PageRequest.of(0, 10);
+        BookFilterDto bookFilterDto = BookFilterDto.builder().build();
+        Mockito
+                .when(pageCountService.findAll(bookRepository, "book", null, bookFilterDto, pageable, CountMode.NONE))
+                .thenReturn(new SliceImpl<>(books, pageable, true));
+
+        Slice<BookDto> result = bookService.findAll(pageable, bookFilterDto, CountMode.NONE);
+
+        Assertions.assertEquals(book.getId(), result.getContent().getFirst().id());
+        Assertions.assertTrue(result.hasNext());
+        Mockito.verify(bookRepository, Mockito.never()).findAll(Mockito.any(Pageable.class));
+    }
+
+    @Test
+    public void testGetAllBooksAvailableBetweenDates() {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+        Mockito.when(reservationIndexService.findReservedBooks(from, from.plusDays(7))).thenReturn(List.of(2L));
+        Mockito.when(bookRepository.findAll(Mockito.<Specification<Book>>any(), Mockito.eq(PageRequest.of(0, 10))))
+                .thenReturn(new PageImpl<>(books));
+        BookFilterDto bookFilterDto = BookFilterDto.builder().availableFrom(from).availableTo(from.plusDays(7)).build();
+
+        Page<BookDto> result = bookService.findAll(PageRequest.of(0, 10), bookFilterDto);
+
+        Assertions.assertEquals(1, result.getTotalElements());
+        Mockito.verify(reservationIndexService).findReservedBooks(from, from.plusDays(7));
+    }
+
+    @Test
+    public void testGetAllBooksAvailableInvalidRange() {
+        LocalDate from = LocalDate.of(2030, 1, 1);
+        BookFilterDto bookFilterDto = BookFilterDto.builder().availableFrom(from).availableTo(from.minusDays(1)).build();
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> bookService.findAll(PageRequest.of(0, 10), bookFilterDto));
+        Mockito.verify(bookRepository, Mockito.never()).findAll(Mockito.<Specification<Book>>any(),
+                Mockito.any(Pageable.class));
+    }
+
     @Test
     public void testFindOneById() {
         Mockito
@@ -146,6 +212,7 @@ public class BookServiceTests {
         Mockito
                 .verify(genreRepository, Mockito.times(1))
                 .findById(book.getGenre().getId());
+        Mockito.verify(suggestionService).putBook(book);
     }
 
     @Test
@@ -181,6 +248,7 @@ public class BookServiceTests {
         Mockito
                 .verify(bookRepository, Mockito.times(1))
                 .findByIsbn(book.getIsbn());
+        Mockito.verify(suggestionService, Mockito.never()).putBook(Mockito.any());
     }
 
     @Test
@@ -224,6 +292,7 @@ public class BookServiceTests {
         Mockito
                 .verify(bookRepository, Mockito.times(1))
                 .save(Mockito.any(Book.class));
+        Mockito.verify(suggestionService).putBook(book);
     }
 
     @Test
@@ -260,5 +329,67 @@ public class BookServiceTests {
         Mockito
                 .verify(bookRepository, Mockito.times(1))
                 .deleteById(book.getId());
+        Mockito.verify(suggestionService).removeBook(book.getId());
+    }
+
+    @Test
+    public void testFindFreeWindowsMergesReservations() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        List<ReservationIntervalDto> reservations = List.of(
+                new ReservationIntervalDto(1L, 1L, from.minusDays(1), from.plusDays(1)),
+                new ReservationIntervalDto(2L, 1L, from.plusDays(1), from.plusDays(2)),
+                new ReservationIntervalDto(3L, 1L, from.plusDays(4), from.plusDays(5)),
+                new ReservationIntervalDto(4L, 1L, from.plusDays(12), from.plusDays(13))
+        );
+
+        List<FreeWindowDto> windows = BookService.findFreeWindows(reservations, from, from.plusDays(10));
+
+        Assertions.assertEquals(List.of(
+                new FreeWindowDto(from.plusDays(2), from.plusDays(4)),
+                new FreeWindowDto(from.plusDays(5), from.plusDays(10))
+        ), windows);
+    }
+
+    @Test
+    public void testFindAvailabilityCachedPerBook() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        Mockito.when(bookRepository.existsById(book.getId())).thenReturn(true);
+        Mockito.when(reservationRepository.findUpcomingIntervals(Mockito.eq(book.getId()), Mockito.any()))
+                .thenReturn(List.of(new ReservationIntervalDto(1L, 1L, from.plusDays(1), from.plusDays(2))));
+
+        BookAvailabilityDto availability = bookService.findAvailability(book.getId(), from, from.plusDays(3));
+        bookService.findAvailability(book.getId(), from, from.plusDays(5));
+
+        Assertions.assertEquals(2, availability.freeWindows().size());
+        Mockito.verify(reservationRepository, Mockito.times(1))
+                .findUpcomingIntervals(Mockito.eq(book.getId()), Mockito.any());
+
+        bookService.onReservationChanged(new ReservationChangedEvent(
+                1L, 1L, 2L, book.getId(), from.plusDays(1), from.plusDays(2), ReservationStatus.RESERVED
+        ));
+        bookService.findAvailability(book.getId(), from, from.plusDays(3));
+
+        Mockito.verify(reservationRepository, Mockito.times(2))
+                .findUpcomingIntervals(Mockito.eq(book.getId()), Mockito.any());
+    }
+
+    @Test
+    public void testFindAvailabilityBookNotFound() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        Mockito.when(bookRepository.existsById(book.getId())).thenReturn(false);
+
+        Assertions.assertThrows(ResourceNotFoundException.class,
+                () -> bookService.findAvailability(book.getId(), from, from.plusDays(1)));
+        Mockito.verify(reservationRepository, Mockito.never()).findUpcomingIntervals(Mockito.anyLong(), Mockito.any());
+    }
+
+    @Test
+    public void testFindAvailabilityInvalidRange() {
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> bookService.findAvailability(book.getId(), from, from));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> bookService.findAvailability(book.getId(), from, from.plusYears(2)));
     }
 }
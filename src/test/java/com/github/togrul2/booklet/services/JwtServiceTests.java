@@ -4,11 +4,14 @@ import com.github.togrul2.booklet.entities.Role;
 import com.github.togrul2.booklet.entities.Token;
 import com.github.togrul2.booklet.entities.User;
 import com.github.togrul2.booklet.repositories.TokenRepository;
+import com.github.togrul2.booklet.security.TokenClaims;
+import com.github.togrul2.booklet.security.TokenType;
 import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.AdditionalMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -16,12 +19,17 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
 import java.util.Optional;
 
 @ExtendWith(SpringExtension.class)
 public class JwtServiceTests {
     @Mock
     private TokenRepository tokenRepository;
+    @Mock
+    private TokenGenerationService tokenGenerationService;
+    @Mock
+    private TokenDenylistService tokenDenylistService;
     @InjectMocks
     private JwtService jwtService;
 
@@ -34,6 +42,9 @@ public class JwtServiceTests {
         ReflectionTestUtils.setField(jwtService, "secretKey", "bxBWG9rIQcquX1UubhgI5lIqF4B6+N0GBBN5v/eCSss=");
         ReflectionTestUtils.setField(jwtService, "accessTokenExpiration", 300000L);
         ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", 86400000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedTokenCacheSize", 100L);
+        jwtService.init();
+        Mockito.when(tokenGenerationService.isCurrent(Mockito.any())).thenReturn(true);
         user = org.springframework.security.core.userdetails.User.builder()
                 .username(username)
                 .password("dummypassword")
@@ -43,6 +54,13 @@ public class JwtServiceTests {
         token = jwtService.createAccessToken(user, Role.USER);
     }
 
+    /**
+     * Matches the digest argument of the given token.
+     */
+    private static byte[] digestOf(String token) {
+        return AdditionalMatchers.aryEq(JwtService.digest(token));
+    }
+
     @Test
     public void testExtractUsername() {
         Assertions.assertEquals(username, jwtService.extractUsername(token));
@@ -60,6 +78,67 @@ public class JwtServiceTests {
         Assertions.assertThrows(JwtException.class, () -> jwtService.extractUsername(expiredToken));
     }
 
+    @Test
+    public void testVerify() {
+        TokenClaims claims = jwtService.verify(token);
+        Assertions.assertEquals(username, claims.subject());
+        Assertions.assertEquals(Role.USER, claims.role());
+        Assertions.assertEquals(TokenType.ACCESS, claims.type());
+        Assertions.assertTrue(claims.expiration().isAfter(Instant.now()));
+    }
+
+    @Test
+    public void testVerifyReusesVerifiedClaims() {
+        TokenClaims claims = jwtService.verify(token);
+        Assertions.assertSame(claims, jwtService.verify(token));
+    }
+
+    @Test
+    public void testVerifyTamperedToken() {
+        // Replace the first character of the signature part.
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char replacement = token.charAt(signatureStart) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, signatureStart) + replacement + token.substring(signatureStart + 1);
+        Assertions.assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+    }
+
+    @Test
+    public void testVerifyRevokedToken() {
+        jwtService.verify(token);
+        Mockito.when(tokenGenerationService.isCurrent(Mockito.any())).thenReturn(false);
+        Assertions.assertThrows(JwtException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    public void testVerifyDenylistedToken() {
+        jwtService.verify(token);
+        Mockito.when(tokenDenylistService.isRevoked(Mockito.any())).thenReturn(true);
+        Assertions.assertThrows(JwtException.class, () -> jwtService.verify(token));
+    }
+
+    @Test
+    public void testTokenCarriesUserGeneration() {
+        User storedUser = User.builder().email(username).role(Role.USER).tokenGeneration(3).build();
+        String storedUserToken = jwtService.createAccessToken(storedUser, Role.USER);
+        Assertions.assertEquals(3, jwtService.verify(storedUserToken).generation());
+        Assertions.assertEquals(0, jwtService.verify(token).generation());
+    }
+
+    @Test
+    public void testTokenCarriesUserId() {
+        User storedUser = User.builder().id(7L).email(username).role(Role.USER).build();
+        String storedUserToken = jwtService.createAccessToken(storedUser, Role.USER);
+        Assertions.assertEquals(7L, jwtService.verify(storedUserToken).userId());
+        Assertions.assertNull(jwtService.verify(token).userId());
+    }
+
+    @Test
+    public void testTokensHaveUniqueIds() {
+        String anotherToken = jwtService.createAccessToken(user, Role.USER);
+        Assertions.assertNotNull(jwtService.verify(token).tokenId());
+        Assertions.assertNotEquals(jwtService.verify(token).tokenId(), jwtService.verify(anotherToken).tokenId());
+    }
+
     @Test
     public void testIsAccessToken() {
         Assertions.assertTrue(jwtService.isAccessToken(token));
@@ -107,6 +186,7 @@ public class JwtServiceTests {
         Token stored = jwtService.createAndStoreRefreshToken(domainUser, Role.USER);
 
         Assertions.assertNotNull(stored.getToken());
+        Assertions.assertArrayEquals(JwtService.digest(stored.getToken()), stored.getDigest());
         Assertions.assertTrue(stored.isActive());
         Assertions.assertTrue(jwtService.isRefreshToken(stored.getToken()));
         Mockito.verify(tokenRepository).save(Mockito.any(Token.class));
@@ -115,7 +195,7 @@ public class JwtServiceTests {
     @Test
     public void testValidateRefreshTokenSuccess() {
         String refreshToken = jwtService.createRefreshToken(user, Role.USER);
-        Mockito.when(tokenRepository.findByToken(refreshToken))
+        Mockito.when(tokenRepository.findByDigest(digestOf(refreshToken)))
                 .thenReturn(Optional.of(Token.builder().token(refreshToken).active(true).build()));
 
         Assertions.assertDoesNotThrow(() -> jwtService.validateRefreshToken(refreshToken));
@@ -124,7 +204,7 @@ public class JwtServiceTests {
     @Test
     public void testValidateRefreshTokenNotFound() {
         String refreshToken = jwtService.createRefreshToken(user, Role.USER);
-        Mockito.when(tokenRepository.findByToken(refreshToken)).thenReturn(Optional.empty());
+        Mockito.when(tokenRepository.findByDigest(digestOf(refreshToken))).thenReturn(Optional.empty());
 
         Assertions.assertThrows(JwtException.class, () -> jwtService.validateRefreshToken(refreshToken));
     }
@@ -132,7 +212,7 @@ public class JwtServiceTests {
     @Test
     public void testValidateRefreshTokenInactive() {
         String refreshToken = jwtService.createRefreshToken(user, Role.USER);
-        Mockito.when(tokenRepository.findByToken(refreshToken))
+        Mockito.when(tokenRepository.findByDigest(digestOf(refreshToken)))
                 .thenReturn(Optional.of(Token.builder().token(refreshToken).active(false).build()));
 
         Assertions.assertThrows(JwtException.class, () -> jwtService.validateRefreshToken(refreshToken));
@@ -141,7 +221,7 @@ public class JwtServiceTests {
     @Test
     public void testValidateRefreshTokenWrongType() {
         // Passing an access token where a refresh token is expected.
-        Mockito.when(tokenRepository.findByToken(token))
+        Mockito.when(tokenRepository.findByDigest(digestOf(token)))
                 .thenReturn(Optional.of(Token.builder().token(token).active(true).build()));
 
         Assertions.assertThrows(JwtException.class, () -> jwtService.validateRefreshToken(token));
@@ -151,7 +231,7 @@ public class JwtServiceTests {
     public void testDeactivateRefreshTokenSuccess() {
         String refreshToken = jwtService.createRefreshToken(user, Role.USER);
         Token tokenEntity = Token.builder().token(refreshToken).active(true).build();
-        Mockito.when(tokenRepository.findByToken(refreshToken)).thenReturn(Optional.of(tokenEntity));
+        Mockito.when(tokenRepository.findByDigest(digestOf(refreshToken))).thenReturn(Optional.of(tokenEntity));
         Mockito.when(tokenRepository.save(Mockito.any(Token.class))).thenAnswer(i -> i.getArgument(0));
 
         jwtService.deactivateRefreshToken(refreshToken);
@@ -163,7 +243,7 @@ public class JwtServiceTests {
     @Test
     public void testDeactivateRefreshTokenNotFound() {
         String refreshToken = jwtService.createRefreshToken(user, Role.USER);
-        Mockito.when(tokenRepository.findByToken(refreshToken)).thenReturn(Optional.empty());
+        Mockito.when(tokenRepository.findByDigest(digestOf(refreshToken))).thenReturn(Optional.empty());
 
         Assertions.assertThrows(JwtException.class, () -> jwtService.deactivateRefreshToken(refreshToken));
         Mockito.verify(tokenRepository, Mockito.never()).save(Mockito.any());
@@ -173,7 +253,7 @@ public class JwtServiceTests {
     public void testDeactivateRefreshTokenAlreadyInactive() {
         String refreshToken = jwtService.createRefreshToken(user, Role.USER);
         Token tokenEntity = Token.builder().token(refreshToken).active(false).build();
-        Mockito.when(tokenRepository.findByToken(refreshToken)).thenReturn(Optional.of(tokenEntity));
+        Mockito.when(tokenRepository.findByDigest(digestOf(refreshToken))).thenReturn(Optional.of(tokenEntity));
 
         Assertions.assertThrows(JwtException.class, () -> jwtService.deactivateRefreshToken(refreshToken));
         Mockito.verify(tokenRepository, Mockito.never()).save(Mockito.any());
@@ -183,7 +263,7 @@ public class JwtServiceTests {
     public void testDeactivateAccessTokenThrows() {
         // Access tokens should not be deactivatable.
         Token tokenEntity = Token.builder().token(token).active(true).build();
-        Mockito.when(tokenRepository.findByToken(token)).thenReturn(Optional.of(tokenEntity));
+        Mockito.when(tokenRepository.findByDigest(digestOf(token))).thenReturn(Optional.of(tokenEntity));
 
         Assertions.assertThrows(JwtException.class, () -> jwtService.deactivateRefreshToken(token));
         Mockito.verify(tokenRepository, Mockito.never()).save(Mockito.any());
@@ -0,0 +1,108 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.dtos.CountMode;
+import com.github.togrul2.booklet.dtos.book.BookFilterDto;
+import com.github.togrul2.booklet.entities.Book;
+import com.github.togrul2.booklet.repositories.BookRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+
+@ExtendWith(SpringExtension.class)
+public class PageCountServiceTests {
+    private final Pageable pageable = PageRequest.of(1, 2);
+    private final List<Book> books = List.of(Book.builder().id(3L).build(), Book.builder().id(4L).build());
+    private final Specification<Book> specification = (root, _, builder) -> builder.equal(root.get("year"), 2000);
+    private final BookFilterDto filterDto = BookFilterDto.builder().minYear(2000).maxYear(2000).build();
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private CacheManager cacheManager;
+    @Mock
+    private BookRepository bookRepository;
+    @InjectMocks
+    private PageCountService pageCountService;
+
+    @BeforeEach
+    public void setUp() {
+        Mockito.when(cacheManager.getCache(PageCountService.COUNT_CACHE))
+                .thenReturn(new ConcurrentMapCache(PageCountService.COUNT_CACHE));
+        Mockito.when(bookRepository.findSlice(Mockito.any(), Mockito.eq(pageable)))
+                .thenReturn(new SliceImpl<>(books, pageable, true));
+    }
+
+    @Test
+    public void testExactCount() {
+        Mockito.when(bookRepository.findAll(specification, pageable)).thenReturn(new PageImpl<>(books, pageable, 10));
+
+        Slice<Book> result = pageCountService.findAll(
+                bookRepository, "book", specification, filterDto, pageable, CountMode.EXACT
+        );
+
+        Assertions.assertEquals(10, ((Page<Book>) result).getTotalElements());
+        Mockito.verify(bookRepository, Mockito.never()).findSlice(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testNoCount() {
+        Slice<Book> result = pageCountService.findAll(
+                bookRepository, "book", specification, filterDto, pageable, CountMode.NONE
+        );
+
+        Assertions.assertFalse(result instanceof Page);
+        Assertions.assertTrue(result.hasNext());
+        Mockito.verify(bookRepository, Mockito.never()).count(Mockito.<Specification<Book>>any());
+    }
+
+    @Test
+    public void testEstimateUnfilteredFromStatistics() {
+        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), Mockito.eq(Long.class), Mockito.eq("book")))
+                .thenReturn(1000L);
+
+        Page<Book> result = (Page<Book>) pageCountService.findAll(
+                bookRepository, "book", null, filterDto, pageable, CountMode.ESTIMATE
+        );
+
+        Assertions.assertEquals(1000, result.getTotalElements());
+        Mockito.verify(bookRepository, Mockito.never()).count(Mockito.<Specification<Book>>any());
+    }
+
+    @Test
+    public void testEstimateFilteredCountsOnce() {
+        Mockito.when(bookRepository.count(specification)).thenReturn(100L);
+
+        for (int i = 0; i < 2; i++) {
+            Page<Book> result = (Page<Book>) pageCountService.findAll(
+                    bookRepository, "book", specification, filterDto, pageable, CountMode.ESTIMATE
+            );
+            Assertions.assertEquals(100, result.getTotalElements());
+        }
+        Mockito.verify(bookRepository, Mockito.times(1)).count(specification);
+    }
+
+    @Test
+    public void testEstimateNeverBelowSeenElements() {
+        Mockito.when(jdbcTemplate.queryForObject(Mockito.anyString(), Mockito.eq(Long.class), Mockito.eq("book")))
+                .thenReturn(0L);
+
+        Page<Book> result = (Page<Book>) pageCountService.findAll(
+                bookRepository, "book", null, filterDto, pageable, CountMode.ESTIMATE
+        );
+
+        // Two pages seen and there is a next one.
+        Assertions.assertEquals(5, result.getTotalElements());
+        Assertions.assertTrue(result.hasNext());
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.togrul2.booklet.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+public class PasswordHashingServiceTests {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHashingService passwordHashingService;
+
+    private PasswordHashingService createService(PasswordEncoder passwordEncoder, int threads, int queueCapacity) {
+        PasswordHashingService service = new PasswordHashingService(passwordEncoder, meterRegistry);
+        ReflectionTestUtils.setField(service, "bcryptStrength", 4);
+        ReflectionTestUtils.setField(service, "threads", threads);
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        service.init();
+        return service;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    public void testEncodeAndMatches() {
+        passwordHashingService = createService(new BCryptPasswordEncoder(4), 2, 4);
+
+        String encoded = passwordHashingService.encode("secret");
+
+        Assertions.assertTrue(passwordHashingService.matches("secret", encoded));
+        Assertions.assertFalse(passwordHashingService.matches("wrong", encoded));
+        Assertions.assertEquals(3, meterRegistry.get("booklet.password.hashing").timer().count());
+    }
+
+    @Test
+    public void testNeedsRehash() {
+        passwordHashingService = createService(new BCryptPasswordEncoder(4), 1, 1);
+
+        Assertions.assertFalse(passwordHashingService.needsRehash(new BCryptPasswordEncoder(4).encode("secret")));
+        Assertions.assertTrue(passwordHashingService.needsRehash(new BCryptPasswordEncoder(5).encode("secret")));
+        Assertions.assertFalse(passwordHashingService.needsRehash("not-a-bcrypt-hash"));
+        Assertions.assertFalse(passwordHashingService.needsRehash(null));
+    }
+
+    @Test
+    public void testRejectsWhenSaturated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        passwordHashingService = createService(blockingEncoder, 1, 1);
+
+        // First task occupies the only thread, second one fills the queue.
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("a"));
+        started.await();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("b"));
+        while (meterRegistry.get("booklet.password.hashing.queue").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        Assertions.assertThrows(RejectedExecutionException.class, () -> passwordHashingService.encode("c"));
+        Assertions.assertEquals(1, meterRegistry.get("booklet.password.hashing.rejected").counter().count());
+
+        release.countDown();
+        Assertions.assertNotNull(running.get());
+        Assertions.assertNotNull(queued.get());
+    }
+}
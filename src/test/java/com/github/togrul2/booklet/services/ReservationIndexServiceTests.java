@@ -0,0 +1,91 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.dtos.reservation.ReservationIntervalDto;
+import com.github.togrul2.booklet.entities.ReservationStatus;
+import com.github.togrul2.booklet.events.ReservationChangedEvent;
+import com.github.togrul2.booklet.events.ReservationCreatedEvent;
+import com.github.togrul2.booklet.events.ReservationDeletedEvent;
+import com.github.togrul2.booklet.repositories.ReservationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ExtendWith(SpringExtension.class)
+public class ReservationIndexServiceTests {
+    @Mock
+    private ReservationRepository reservationRepository;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @InjectMocks
+    private ReservationIndexService reservationIndexService;
+    private LocalDateTime start;
+
+    @BeforeEach
+    public void setUp() {
+        start = LocalDateTime.now().plusDays(1);
+        reservationIndexService.init();
+        Mockito.when(reservationRepository.findActiveIntervals(Mockito.any()))
+                .thenReturn(List.of(new ReservationIntervalDto(1L, 1L, start, start.plusDays(2))));
+        reservationIndexService.load();
+    }
+
+    @Test
+    public void testLoad() {
+        Assertions.assertTrue(reservationIndexService.isReserved(1L, start.plusDays(1), start.plusDays(3)));
+        Assertions.assertFalse(reservationIndexService.isReserved(1L, start.plusDays(2), start.plusDays(3)));
+        Assertions.assertEquals(1, meterRegistry.get("booklet.reservations.index.size").gauge().value());
+        Assertions.assertEquals(List.of(1L), reservationIndexService.findReservedBooks(
+                start.toLocalDate(), start.toLocalDate()
+        ));
+    }
+
+    @Test
+    public void testEventsUpdateIndex() {
+        reservationIndexService.onReservationCreated(new ReservationCreatedEvent(
+                2L, 1L, 1L, "Title", start.plusDays(3), start.plusDays(4)
+        ));
+        Assertions.assertTrue(reservationIndexService.isReserved(1L, start.plusDays(3), start.plusDays(4)));
+
+        reservationIndexService.onReservationChanged(new ReservationChangedEvent(
+                2L, 1L, 1L, 1L, start.plusDays(3), start.plusDays(4), ReservationStatus.CANCELLED
+        ));
+        Assertions.assertFalse(reservationIndexService.isReserved(1L, start.plusDays(3), start.plusDays(4)));
+
+        reservationIndexService.onReservationDeleted(new ReservationDeletedEvent(1L, 1L));
+        Assertions.assertFalse(reservationIndexService.isReserved(1L, start, start.plusDays(2)));
+        Assertions.assertTrue(reservationIndexService.findReservedBooks(
+                start.toLocalDate(), start.plusDays(4).toLocalDate()
+        ).isEmpty());
+    }
+
+    @Test
+    public void testReconcileCountsDrift() {
+        // Reservation made on another node and the indexed one cancelled there.
+        Mockito.when(reservationRepository.findActiveIntervals(Mockito.any()))
+                .thenReturn(List.of(new ReservationIntervalDto(2L, 1L, start.plusDays(3), start.plusDays(4))));
+
+        reservationIndexService.reconcile();
+
+        Assertions.assertEquals(2, meterRegistry.get("booklet.reservations.index.drift").counter().count());
+        Assertions.assertFalse(reservationIndexService.isReserved(1L, start, start.plusDays(2)));
+        Assertions.assertTrue(reservationIndexService.isReserved(1L, start.plusDays(3), start.plusDays(4)));
+    }
+
+    @Test
+    public void testReconcileWithoutDrift() {
+        reservationIndexService.reconcile();
+
+        Assertions.assertEquals(0, meterRegistry.get("booklet.reservations.index.drift").counter().count());
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.entities.ReservationStatus;
+import com.github.togrul2.booklet.events.ReservationChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ExtendWith(SpringExtension.class)
+public class ReservationLifecycleServiceTests {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private CacheManager cacheManager;
+    @Mock
+    private Cache reservationCache;
+    @Mock
+    private Cache authUserReservationCache;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @InjectMocks
+    private ReservationLifecycleService reservationLifecycleService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(reservationLifecycleService, "batchSize", 2);
+        ReflectionTestUtils.setField(reservationLifecycleService, "maxBatches", 10);
+        Mockito.when(transactionTemplate.execute(Mockito.any()))
+                .thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        Mockito.when(cacheManager.getCache("reservation")).thenReturn(reservationCache);
+        Mockito.when(cacheManager.getCache("authUserReservation")).thenReturn(authUserReservationCache);
+    }
+
+    private static ReservationChangedEvent changed(long id, Long userId, ReservationStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        return new ReservationChangedEvent(id, userId, 1L, 1L, now.minusDays(2), now.minusDays(1), status);
+    }
+
+    @Test
+    public void testRunMovesDueReservationsInChunks() {
+        Mockito.when(jdbcTemplate.query(
+                Mockito.contains("SET status = " + ReservationStatus.EXPIRED.ordinal()),
+                Mockito.any(PreparedStatementSetter.class),
+                Mockito.<RowMapper<ReservationChangedEvent>>any()
+        )).thenReturn(
+                List.of(changed(1L, 5L, ReservationStatus.EXPIRED), changed(2L, 6L, ReservationStatus.EXPIRED)),
+                // Reservation of a deleted user.
+                List.of(changed(3L, null, ReservationStatus.EXPIRED))
+        );
+        Mockito.when(jdbcTemplate.query(
+                Mockito.contains("SET status = " + ReservationStatus.ACTIVE.ordinal()),
+                Mockito.any(PreparedStatementSetter.class),
+                Mockito.<RowMapper<ReservationChangedEvent>>any()
+        )).thenReturn(List.of());
+
+        Assertions.assertEquals(3, reservationLifecycleService.run());
+        Mockito.verify(eventPublisher, Mockito.times(3)).publishEvent(Mockito.any(ReservationChangedEvent.class));
+        Mockito.verify(reservationCache).evict(1L);
+        Mockito.verify(reservationCache).evict(3L);
+        Mockito.verify(authUserReservationCache).evict("5;1");
+        Mockito.verify(authUserReservationCache).evict("6;2");
+        Mockito.verify(authUserReservationCache, Mockito.times(2)).evict(Mockito.any());
+        Mockito.verify(authUserReservationCache, Mockito.never()).clear();
+        Assertions.assertEquals(3, meterRegistry
+                .get("booklet.reservations.transitions")
+                .tag("status", ReservationStatus.EXPIRED.name())
+                .counter()
+                .count());
+    }
+
+    @Test
+    public void testRunWithNothingDueEvictsNothing() {
+        Mockito.when(jdbcTemplate.query(
+                Mockito.anyString(),
+                Mockito.any(PreparedStatementSetter.class),
+                Mockito.<RowMapper<ReservationChangedEvent>>any()
+        )).thenReturn(List.of());
+
+        Assertions.assertEquals(0, reservationLifecycleService.run());
+        Mockito.verifyNoInteractions(eventPublisher, reservationCache, authUserReservationCache);
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.repositories.ReservationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@ExtendWith(SpringExtension.class)
+public class ReservationLockServiceTests {
+    @Mock
+    private ReservationRepository reservationRepository;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @InjectMocks
+    private ReservationLockService reservationLockService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(reservationLockService, "mode", ReservationLockService.Mode.ADVISORY);
+        ReflectionTestUtils.setField(reservationLockService, "hotBooksSize", 100L);
+        reservationLockService.init();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private void completeTransaction() {
+        TransactionSynchronizationManager
+                .getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @Test
+    public void testAdvisoryLocksInKeyOrder() {
+        Mockito.when(reservationRepository.tryAdvisoryXactLock(Mockito.anyInt(), Mockito.anyInt())).thenReturn(true);
+
+        reservationLockService.lockBooks(List.of(3L, 1L, 3L, 2L));
+
+        InOrder inOrder = Mockito.inOrder(reservationRepository);
+        inOrder.verify(reservationRepository).tryAdvisoryXactLock(Mockito.anyInt(), Mockito.eq(1));
+        inOrder.verify(reservationRepository).tryAdvisoryXactLock(Mockito.anyInt(), Mockito.eq(2));
+        inOrder.verify(reservationRepository).tryAdvisoryXactLock(Mockito.anyInt(), Mockito.eq(3));
+        Mockito.verify(reservationRepository, Mockito.never()).advisoryXactLock(Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    @Test
+    public void testAdvisoryContentionIsTracked() {
+        Mockito.when(reservationRepository.tryAdvisoryXactLock(Mockito.anyInt(), Mockito.eq(7))).thenReturn(false);
+
+        reservationLockService.lockBook(7L);
+        reservationLockService.lockBook(7L);
+
+        Mockito.verify(reservationRepository, Mockito.times(2)).advisoryXactLock(Mockito.anyInt(), Mockito.eq(7));
+        Assertions.assertEquals(Map.of(7L, 2L), reservationLockService.findHotBooks(10));
+        Assertions.assertEquals(2, meterRegistry.get("booklet.reservations.lock.contended").counter().count());
+    }
+
+    @Test
+    public void testRequiresTransaction() {
+        TransactionSynchronizationManager.clearSynchronization();
+
+        Assertions.assertThrows(IllegalStateException.class, () -> reservationLockService.lockBook(1L));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @Test
+    public void testStripedLockHeldUntilCompletion() throws Exception {
+        ReflectionTestUtils.setField(reservationLockService, "mode", ReservationLockService.Mode.STRIPED);
+
+        reservationLockService.lockBook(1L);
+
+        // Another book is not blocked, the same book is until the transaction completes.
+        Assertions.assertTrue(lockInOtherTransaction(2L).get(1, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> sameBook = lockInOtherTransaction(1L);
+        Assertions.assertThrows(TimeoutException.class, () -> sameBook.get(200, TimeUnit.MILLISECONDS));
+
+        completeTransaction();
+        Assertions.assertTrue(sameBook.get(1, TimeUnit.SECONDS));
+        Assertions.assertEquals(Map.of(1L, 1L), reservationLockService.findHotBooks(10));
+    }
+
+    private CompletableFuture<Boolean> lockInOtherTransaction(long bookId) {
+        return CompletableFuture.supplyAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                reservationLockService.lockBook(bookId);
+                TransactionSynchronizationManager
+                        .getSynchronizations()
+                        .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+                return true;
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+    }
+}
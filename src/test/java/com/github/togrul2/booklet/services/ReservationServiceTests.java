@@ -1,13 +1,17 @@
 package com.github.togrul2.booklet.services;
 
-import com.github.togrul2.booklet.dtos.reservation.ReservationRequestDto;
-import com.github.togrul2.booklet.dtos.reservation.ReservationDto;
+import com.github.togrul2.booklet.dtos.reservation.*;
 import com.github.togrul2.booklet.entities.Book;
 import com.github.togrul2.booklet.entities.Reservation;
+import com.github.togrul2.booklet.entities.ReservationStatus;
 import com.github.togrul2.booklet.entities.User;
+import com.github.togrul2.booklet.events.ReservationBatchCreatedEvent;
+import com.github.togrul2.booklet.events.ReservationCreatedEvent;
+import com.github.togrul2.booklet.events.ReservationDeletedEvent;
 import com.github.togrul2.booklet.repositories.BookRepository;
 import com.github.togrul2.booklet.repositories.ReservationRepository;
 import com.github.togrul2.booklet.repositories.UserRepository;
+import com.github.togrul2.booklet.security.AuthenticatedUser;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,12 +19,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -35,10 +53,17 @@ public class ReservationServiceTests {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private UserDetails userDetails;
+    private ReservationIndexService reservationIndexService;
+    @Mock
+    private ReservationLockService reservationLockService;
+    @Mock
+    private WaitlistService waitlistService;
     @Mock
     private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
     private Reservation reservation;
+    private AuthenticatedUser currentUser;
     private User user;
     private Book book;
     private ReservationRequestDto reservationRequestDto;
@@ -46,7 +71,9 @@ public class ReservationServiceTests {
     @BeforeEach
     void setUp() {
         user = new User();
+        user.setId(1L);
         user.setEmail("test@example.com");
+        currentUser = new AuthenticatedUser(user.getId(), user.getEmail(), List.of());
 
         book = new Book();
         book.setId(1L);
@@ -64,61 +91,176 @@ public class ReservationServiceTests {
 
     @Test
     void testFindById() {
-        Mockito.when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+        Mockito.when(reservationRepository.findAccessibleById(1L, currentUser.getId(), false))
+                .thenReturn(Optional.of(reservation));
 
-        ReservationDto result = reservationService.findById(1L);
+        ReservationDto result = reservationService.findById(currentUser, 1L);
 
         Assertions.assertNotNull(result);
-        Mockito.verify(reservationRepository).findById(1L);
+        Mockito.verify(reservationRepository).findAccessibleById(1L, currentUser.getId(), false);
+    }
+
+    @Test
+    void testFindAllWithoutFilter() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Mockito.when(reservationRepository.findAll(pageable)).thenReturn(new PageImpl<>(List.of(reservation)));
+
+        Page<ReservationDto> result = reservationService.findAll(pageable, ReservationFilterDto.builder().build());
+
+        Assertions.assertEquals(1, result.getTotalElements());
+        Mockito.verify(reservationRepository).findAll(pageable);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFindAllWithFilter() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Mockito.when(reservationRepository.findAll(Mockito.any(Specification.class), Mockito.eq(pageable)))
+                .thenReturn(new PageImpl<>(List.of(reservation)));
+        ReservationFilterDto filterDto = ReservationFilterDto.builder()
+                .userId(1L)
+                .from(LocalDateTime.now())
+                .build();
+
+        Page<ReservationDto> result = reservationService.findAll(pageable, filterDto);
+
+        Assertions.assertEquals(1, result.getTotalElements());
+        Mockito.verify(reservationRepository).findAll(Mockito.any(Specification.class), Mockito.eq(pageable));
+        Mockito.verify(reservationRepository, Mockito.never()).findAll(pageable);
     }
 
     @Test
     void testFindByIdThrowsEntityNotFoundException() {
-        Mockito.when(reservationRepository.findById(1L)).thenReturn(Optional.empty());
+        Mockito.when(reservationRepository.findAccessibleById(1L, currentUser.getId(), false))
+                .thenReturn(Optional.empty());
 
-        Assertions.assertThrows(ResourceNotFoundException.class, () -> reservationService.findById(1L));
-        Mockito.verify(reservationRepository).findById(1L);
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> reservationService.findById(currentUser, 1L));
+        Mockito.verify(reservationRepository).findAccessibleById(1L, currentUser.getId(), false);
     }
 
     @Test
     void testReserveBook() {
-        Mockito.when(userRepository.findByEmail(Mockito.any())).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.getReferenceById(user.getId())).thenReturn(user);
         Mockito.when(bookRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(book));
-        Mockito.when(reservationRepository.save(Mockito.any())).thenReturn(reservation);
+        Mockito.when(reservationRepository.saveAndFlush(Mockito.any())).thenReturn(reservation);
 
-        ReservationDto result = reservationService.reserveBook(userDetails, reservationRequestDto);
+        long result = reservationService.reserveBook(currentUser, reservationRequestDto);
 
-        Assertions.assertNotNull(result);
-        Mockito.verify(userRepository).findByEmail(Mockito.any());
+        Assertions.assertEquals(reservation.getId(), result);
+        Mockito.verify(userRepository).getReferenceById(user.getId());
+        Mockito.verify(userRepository, Mockito.never()).findByEmail(Mockito.any());
         Mockito.verify(bookRepository).findById(Mockito.anyLong());
-        Mockito.verify(reservationRepository).save(Mockito.any());
+        Mockito.verify(reservationRepository).saveAndFlush(Mockito.any());
+        Mockito.verify(reservationRepository, Mockito.never()).hasOverlappingSession(
+                Mockito.any(), Mockito.any(), Mockito.any()
+        );
+        Mockito.verify(eventPublisher).publishEvent(Mockito.any(ReservationCreatedEvent.class));
+        Mockito.verify(reservationLockService).lockBook(book.getId());
     }
 
     @Test
-    void testReserveBookUserNotFound() {
-        Mockito.when(userRepository.findByEmail(userDetails.getUsername())).thenReturn(Optional.empty());
+    void testReserveBookOverlapping() {
+        Mockito.when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        Mockito.when(bookRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(book));
+        Mockito.when(reservationRepository.saveAndFlush(Mockito.any())).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new SQLException("conflicting key value", "23P01")
+        ));
 
-        Assertions.assertThrows(ResourceNotFoundException.class, () -> reservationService.reserveBook(userDetails,
-                reservationRequestDto));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> reservationService.reserveBook(currentUser, reservationRequestDto));
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(Mockito.any());
+    }
 
-        Mockito.verify(userRepository).findByEmail(userDetails.getUsername());
-        Mockito.verify(bookRepository, Mockito.never()).findById(reservationRequestDto.bookId());
-        Mockito.verify(reservationRepository, Mockito.never()).save(reservation);
+    @Test
+    void testReserveBookOverlappingIndexed() {
+        Mockito.when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        Mockito.when(bookRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(book));
+        Mockito.when(reservationIndexService.isReserved(Mockito.eq(book.getId()), Mockito.any(), Mockito.any()))
+                .thenReturn(true);
+        Mockito.when(reservationRepository.hasOverlappingSession(Mockito.eq(book), Mockito.any(), Mockito.any()))
+                .thenReturn(true);
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> reservationService.reserveBook(currentUser, reservationRequestDto));
+        Mockito.verify(reservationRepository, Mockito.never()).saveAndFlush(Mockito.any());
+    }
+
+    @Test
+    void testReserveBookStaleIndex() {
+        Mockito.when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        Mockito.when(bookRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(book));
+        Mockito.when(reservationIndexService.isReserved(Mockito.eq(book.getId()), Mockito.any(), Mockito.any()))
+                .thenReturn(true);
+        Mockito.when(reservationRepository.hasOverlappingSession(Mockito.eq(book), Mockito.any(), Mockito.any()))
+                .thenReturn(false);
+        Mockito.when(reservationRepository.saveAndFlush(Mockito.any())).thenReturn(reservation);
+
+        Assertions.assertEquals(reservation.getId(), reservationService.reserveBook(currentUser, reservationRequestDto));
+        Mockito.verify(reservationRepository).saveAndFlush(Mockito.any());
+    }
+
+    @Test
+    void testReserveBookOtherIntegrityViolation() {
+        Mockito.when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        Mockito.when(bookRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(book));
+        Mockito.when(reservationRepository.saveAndFlush(Mockito.any())).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new SQLException("foreign key violation", "23503")
+        ));
+
+        Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> reservationService.reserveBook(currentUser, reservationRequestDto));
+    }
+
+    @Test
+    void testReserveBookUserNotFound() {
+        // User was deleted while its access token is still accepted.
+        Mockito.when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+        Mockito.when(bookRepository.findById(Mockito.anyLong())).thenReturn(Optional.of(book));
+        Mockito.when(reservationRepository.saveAndFlush(Mockito.any())).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new PSQLException(new ServerErrorMessage(
+                        "SERROR\0C23503\0Mviolates foreign key constraint\0"
+                                + "DKey (user_id)=(1) is not present in table \"accounts\".\0"
+                ))
+        ));
+
+        Assertions.assertThrows(ResourceNotFoundException.class,
+                () -> reservationService.reserveBook(currentUser, reservationRequestDto));
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(Mockito.any());
     }
 
     @Test
     void testReserveBookBookNotFound() {
-        Mockito.when(userRepository.findByEmail(userDetails.getUsername())).thenReturn(Optional.of(user));
         Mockito.when(bookRepository.findById(reservationRequestDto.bookId())).thenReturn(Optional.empty());
 
-        Assertions.assertThrows(ResourceNotFoundException.class, () -> reservationService.reserveBook(userDetails,
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> reservationService.reserveBook(currentUser,
                 reservationRequestDto));
 
-        Mockito.verify(reservationRepository, Mockito.never()).save(reservation);
-        Mockito.verify(userRepository).findByEmail(userDetails.getUsername());
+        Mockito.verify(reservationRepository, Mockito.never()).saveAndFlush(reservation);
         Mockito.verify(bookRepository).findById(reservationRequestDto.bookId());
     }
 
+    @Test
+    void testCancelReservationPromotesWaitlist() {
+        Mockito.when(reservationRepository.findAccessibleById(1L, currentUser.getId(), false))
+                .thenReturn(Optional.of(reservation));
+        Mockito.when(reservationRepository.save(reservation)).thenReturn(reservation);
+
+        reservationService.cancelReservation(currentUser, 1L);
+
+        Assertions.assertEquals(ReservationStatus.CANCELLED, reservation.getStatus());
+        Mockito.verify(waitlistService).promote(book, reservation.getStartDate(), reservation.getEndDate());
+    }
+
+    @Test
+    void testCancelCancelledReservationRejected() {
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        Mockito.when(reservationRepository.findAccessibleById(1L, currentUser.getId(), false))
+                .thenReturn(Optional.of(reservation));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> reservationService.cancelReservation(currentUser, 1L));
+        Mockito.verify(waitlistService, Mockito.never()).promote(Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
     @Test
     void testDeleteReservation() {
         Mockito.when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
@@ -127,6 +269,7 @@ public class ReservationServiceTests {
 
         Mockito.verify(reservationRepository).findById(1L);
         Mockito.verify(reservationRepository).delete(reservation);
+        Mockito.verify(eventPublisher).publishEvent(new ReservationDeletedEvent(reservation.getId(), book.getId()));
     }
 
     @Test
@@ -137,4 +280,87 @@ public class ReservationServiceTests {
         Mockito.verify(reservationRepository).findById(1L);
         Mockito.verify(reservationRepository, Mockito.never()).delete(reservation);
     }
-}
\ No newline at end of file
+
+    private void mockBatchInsert(long... ids) {
+        Mockito.when(jdbcTemplate.batchUpdate(
+                Mockito.any(PreparedStatementCreator.class),
+                Mockito.any(BatchPreparedStatementSetter.class),
+                Mockito.any(KeyHolder.class)
+        )).thenAnswer(invocation -> {
+            KeyHolder keyHolder = invocation.getArgument(2);
+            for (long id : ids) {
+                keyHolder.getKeyList().add(Map.<String, Object>of("id", id));
+            }
+            return new int[ids.length];
+        });
+    }
+
+    @Test
+    void testReserveBooksAllOrNothing() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Book anotherBook = new Book();
+        anotherBook.setId(2L);
+        Mockito.when(bookRepository.findAllById(Mockito.any())).thenReturn(List.of(book, anotherBook));
+        mockBatchInsert(10L, 11L);
+
+        BatchReservationResultDto result = reservationService.reserveBooks(currentUser, new BatchReservationRequestDto(
+                List.of(
+                        new ReservationRequestDto(1L, start, start.plusDays(2)),
+                        new ReservationRequestDto(2L, start, start.plusDays(2))
+                ),
+                null
+        ));
+
+        Assertions.assertEquals(2, result.created());
+        Assertions.assertEquals(List.of(10L, 11L),
+                result.items().stream().map(BatchReservationItemDto::reservationId).toList());
+        Mockito.verify(bookRepository, Mockito.times(1)).findAllById(Mockito.any());
+        Mockito.verify(reservationRepository, Mockito.times(1))
+                .findOverlappingIntervals(Mockito.any(), Mockito.any(), Mockito.any());
+        Mockito.verify(eventPublisher, Mockito.times(1)).publishEvent(Mockito.any(ReservationBatchCreatedEvent.class));
+    }
+
+    @Test
+    void testReserveBooksAllOrNothingRejectsWholeBatch() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Mockito.when(bookRepository.findAllById(Mockito.any())).thenReturn(List.of(book));
+        Mockito.when(reservationRepository.findOverlappingIntervals(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenReturn(List.of(new ReservationIntervalDto(5L, 1L, start.plusDays(3), start.plusDays(5))));
+
+        BatchReservationRequestDto requestDto = new BatchReservationRequestDto(
+                List.of(
+                        new ReservationRequestDto(1L, start, start.plusDays(2)),
+                        new ReservationRequestDto(1L, start.plusDays(4), start.plusDays(6))
+                ),
+                BatchReservationMode.ALL_OR_NOTHING
+        );
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> reservationService.reserveBooks(currentUser, requestDto));
+        Mockito.verifyNoInteractions(jdbcTemplate);
+        Mockito.verify(eventPublisher, Mockito.never()).publishEvent(Mockito.any());
+    }
+
+    @Test
+    void testReserveBooksPartial() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        Mockito.when(bookRepository.findAllById(Mockito.any())).thenReturn(List.of(book));
+        mockBatchInsert(10L);
+
+        BatchReservationResultDto result = reservationService.reserveBooks(currentUser, new BatchReservationRequestDto(
+                List.of(
+                        new ReservationRequestDto(1L, start, start.plusDays(2)),
+                        // Overlaps the previous reservation of the same batch.
+                        new ReservationRequestDto(1L, start.plusDays(1), start.plusDays(3)),
+                        new ReservationRequestDto(3L, start, start.plusDays(2))
+                ),
+                BatchReservationMode.PARTIAL
+        ));
+
+        Assertions.assertEquals(1, result.created());
+        Assertions.assertEquals(2, result.rejected());
+        Assertions.assertEquals(10L, result.items().get(0).reservationId());
+        Assertions.assertEquals("Overlapping reservation session.", result.items().get(1).error());
+        Assertions.assertEquals("Book not found.", result.items().get(2).error());
+    }
+}
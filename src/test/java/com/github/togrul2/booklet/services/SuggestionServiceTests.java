@@ -0,0 +1,115 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.dtos.suggestion.AuthorSuggestionSourceDto;
+import com.github.togrul2.booklet.dtos.suggestion.BookSuggestionSourceDto;
+import com.github.togrul2.booklet.dtos.suggestion.SuggestionDto;
+import com.github.togrul2.booklet.dtos.suggestion.SuggestionType;
+import com.github.togrul2.booklet.entities.Author;
+import com.github.togrul2.booklet.entities.Book;
+import com.github.togrul2.booklet.events.ReservationCreatedEvent;
+import com.github.togrul2.booklet.repositories.AuthorRepository;
+import com.github.togrul2.booklet.repositories.BookRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@ExtendWith(SpringExtension.class)
+public class SuggestionServiceTests {
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private AuthorRepository authorRepository;
+    @InjectMocks
+    private SuggestionService suggestionService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(suggestionService, "capacity", 10);
+        suggestionService.init();
+        Mockito.when(bookRepository.findSuggestionSources()).thenReturn(List.of(
+                new BookSuggestionSourceDto(1L, "War and Peace", 1L, 3),
+                new BookSuggestionSourceDto(2L, "Anna Karenina", 1L, 1),
+                new BookSuggestionSourceDto(3L, "Walden", null, 2)
+        ));
+        Mockito.when(authorRepository.findSuggestionSources()).thenReturn(List.of(
+                new AuthorSuggestionSourceDto(1L, "Leo", "Tolstoy"),
+                new AuthorSuggestionSourceDto(2L, "Lewis", "Carroll")
+        ));
+        suggestionService.reload();
+    }
+
+    @Test
+    public void testSuggestRanksBooksAndAuthorsByPopularity() {
+        Assertions.assertEquals(
+                List.of(
+                        new SuggestionDto(SuggestionType.BOOK, 1L, "War and Peace"),
+                        new SuggestionDto(SuggestionType.BOOK, 3L, "Walden")
+                ),
+                suggestionService.suggest("wa", 10)
+        );
+        // Author popularity is the sum over their books.
+        Assertions.assertEquals(
+                List.of(
+                        new SuggestionDto(SuggestionType.AUTHOR, 1L, "Leo Tolstoy"),
+                        new SuggestionDto(SuggestionType.AUTHOR, 2L, "Lewis Carroll")
+                ),
+                suggestionService.suggest("le", 10)
+        );
+        Assertions.assertEquals(1, suggestionService.suggest("le", 1).size());
+    }
+
+    @Test
+    public void testPutBookKeepsPopularity() {
+        suggestionService.putBook(Book.builder().id(3L).title("Walden Two").build());
+        suggestionService.putBook(Book.builder().id(4L).title("Waverley").build());
+
+        Assertions.assertEquals(
+                List.of(1L, 3L, 4L),
+                suggestionService.suggest("wa", 10).stream().map(SuggestionDto::id).toList()
+        );
+    }
+
+    @Test
+    public void testRemoveAuthor() {
+        suggestionService.removeAuthor(1L);
+
+        Assertions.assertTrue(suggestionService.suggest("tolstoy", 10).isEmpty());
+    }
+
+    @Test
+    public void testPutAuthor() {
+        suggestionService.putAuthor(Author.builder().id(2L).name("Lewis").surname("Dodgson").build());
+
+        Assertions.assertTrue(suggestionService.suggest("carroll", 10).isEmpty());
+        Assertions.assertEquals(
+                List.of(2L), suggestionService.suggest("dodg", 10).stream().map(SuggestionDto::id).toList()
+        );
+    }
+
+    @Test
+    public void testReservationMakesAuthorMorePopular() {
+        suggestionService.putBook(
+                Book.builder().id(4L).title("Alice in Wonderland").author(Author.builder().id(2L).build()).build()
+        );
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < 5; i++) {
+            suggestionService.onReservationCreated(
+                    new ReservationCreatedEvent(i, 1L, 4L, "Alice in Wonderland", start, start.plusDays(1))
+            );
+        }
+
+        Assertions.assertEquals(
+                List.of(2L, 1L),
+                suggestionService.suggest("le", 10).stream().map(SuggestionDto::id).toList()
+        );
+    }
+}
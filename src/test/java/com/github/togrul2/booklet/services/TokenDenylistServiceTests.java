@@ -0,0 +1,79 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.entities.Role;
+import com.github.togrul2.booklet.security.TokenClaims;
+import com.github.togrul2.booklet.security.TokenType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+@ExtendWith(SpringExtension.class)
+public class TokenDenylistServiceTests {
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private StringRedisTemplate redisTemplate;
+    @InjectMocks
+    private TokenDenylistService tokenDenylistService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(tokenDenylistService, "expectedSize", 100);
+        ReflectionTestUtils.setField(tokenDenylistService, "syncEnabled", true);
+        tokenDenylistService.init();
+    }
+
+    private TokenClaims claimsOf(String tokenId) {
+        return new TokenClaims(
+                tokenId, 1L, "johndoe@example.com", Role.USER, TokenType.ACCESS, 0, Instant.now().plusSeconds(60)
+        );
+    }
+
+    @Test
+    public void testRevoke() {
+        TokenClaims claims = claimsOf("revoked");
+
+        tokenDenylistService.revoke(claims);
+
+        Assertions.assertTrue(tokenDenylistService.isRevoked(claims));
+        Assertions.assertFalse(tokenDenylistService.isRevoked(claimsOf("other")));
+        Mockito.verify(redisTemplate.opsForValue()).set(
+                Mockito.eq("booklet:denylist:revoked"), Mockito.anyString(), Mockito.any(Duration.class)
+        );
+        Mockito.verify(redisTemplate).convertAndSend(
+                TokenDenylistService.CHANNEL, "revoked:" + claims.expiration().toEpochMilli()
+        );
+    }
+
+    @Test
+    public void testRevokeWithoutSync() {
+        ReflectionTestUtils.setField(tokenDenylistService, "syncEnabled", false);
+        TokenClaims claims = claimsOf("revoked");
+
+        tokenDenylistService.revoke(claims);
+
+        Assertions.assertTrue(tokenDenylistService.isRevoked(claims));
+        Mockito.verify(redisTemplate, Mockito.never()).convertAndSend(Mockito.anyString(), Mockito.any());
+    }
+
+    @Test
+    public void testOnMessage() {
+        TokenClaims claims = claimsOf("published");
+        byte[] body = ("published:" + claims.expiration().toEpochMilli()).getBytes(StandardCharsets.UTF_8);
+
+        tokenDenylistService.onMessage(new DefaultMessage(TokenDenylistService.CHANNEL.getBytes(), body), null);
+
+        Assertions.assertTrue(tokenDenylistService.isRevoked(claims));
+    }
+}
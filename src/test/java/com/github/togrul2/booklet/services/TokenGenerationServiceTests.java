@@ -0,0 +1,103 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.entities.Role;
+import com.github.togrul2.booklet.entities.User;
+import com.github.togrul2.booklet.repositories.UserRepository;
+import com.github.togrul2.booklet.security.TokenClaims;
+import com.github.togrul2.booklet.security.TokenType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+@ExtendWith(SpringExtension.class)
+public class TokenGenerationServiceTests {
+    private final long userId = 1L;
+    private final String email = "johndoe@example.com";
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private UserCache userCache;
+    @InjectMocks
+    private TokenGenerationService tokenGenerationService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(tokenGenerationService, "generationCacheTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(tokenGenerationService, "generationCacheSize", 100L);
+        tokenGenerationService.init();
+    }
+
+    private TokenClaims claimsOf(Long userId, int generation) {
+        return new TokenClaims(
+                "id", userId, email, Role.USER, TokenType.ACCESS, generation, Instant.now().plusSeconds(60)
+        );
+    }
+
+    private TokenClaims claimsOf(int generation) {
+        return claimsOf(userId, generation);
+    }
+
+    @Test
+    public void testCurrentGenerationIsCached() {
+        Mockito.when(userRepository.findTokenGenerationById(userId)).thenReturn(Optional.of(2));
+
+        Assertions.assertEquals(2, tokenGenerationService.currentGeneration(userId));
+        Assertions.assertEquals(2, tokenGenerationService.currentGeneration(userId));
+        Mockito.verify(userRepository, Mockito.times(1)).findTokenGenerationById(userId);
+    }
+
+    @Test
+    public void testIsCurrent() {
+        Mockito.when(userRepository.findTokenGenerationById(userId)).thenReturn(Optional.of(1));
+
+        Assertions.assertFalse(tokenGenerationService.isCurrent(claimsOf(0)));
+        Assertions.assertTrue(tokenGenerationService.isCurrent(claimsOf(1)));
+    }
+
+    @Test
+    public void testIsCurrentForDeletedUser() {
+        Mockito.when(userRepository.findTokenGenerationById(userId)).thenReturn(Optional.empty());
+
+        Assertions.assertFalse(tokenGenerationService.isCurrent(claimsOf(0)));
+    }
+
+    @Test
+    public void testIsCurrentWithoutUserId() {
+        Assertions.assertFalse(tokenGenerationService.isCurrent(claimsOf(null, 0)));
+        Mockito.verify(userRepository, Mockito.never()).findTokenGenerationById(Mockito.anyLong());
+    }
+
+    @Test
+    public void testForgetDeletedUser() {
+        Mockito.when(userRepository.findTokenGenerationById(userId)).thenReturn(Optional.of(0), Optional.empty());
+        Assertions.assertTrue(tokenGenerationService.isCurrent(claimsOf(0)));
+
+        tokenGenerationService.forget(userId);
+
+        Assertions.assertFalse(tokenGenerationService.isCurrent(claimsOf(0)));
+    }
+
+    @Test
+    public void testRevokeAllInvalidatesCachedGeneration() {
+        User user = User.builder().id(userId).email(email).build();
+        Mockito.when(userRepository.findTokenGenerationById(userId)).thenReturn(Optional.of(0), Optional.of(1));
+        Assertions.assertTrue(tokenGenerationService.isCurrent(claimsOf(0)));
+
+        tokenGenerationService.revokeAll(user);
+
+        Mockito.verify(userRepository).incrementTokenGeneration(userId);
+        Mockito.verify(userCache).removeUserFromCache(email);
+        Assertions.assertFalse(tokenGenerationService.isCurrent(claimsOf(0)));
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.repositories.TokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(SpringExtension.class)
+public class TokenRetentionServiceTests {
+    @Mock
+    private TokenRepository tokenRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @InjectMocks
+    private TokenRetentionService tokenRetentionService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(tokenRetentionService, "batchSize", 100);
+        ReflectionTestUtils.setField(tokenRetentionService, "maxBatches", 10);
+        tokenRetentionService.init();
+        Mockito.when(transactionTemplate.execute(Mockito.any()))
+                .thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    public void testPurgeDeletesUntilLastPartialBatch() {
+        Mockito.when(tokenRepository.tryAdvisoryXactLock(Mockito.anyLong())).thenReturn(true);
+        Mockito.when(tokenRepository.deleteExpiredOrInactive(Mockito.any(), Mockito.eq(100)))
+                .thenReturn(100, 100, 42);
+
+        Assertions.assertEquals(242, tokenRetentionService.purge());
+        Mockito.verify(tokenRepository, Mockito.times(3)).deleteExpiredOrInactive(Mockito.any(), Mockito.eq(100));
+        Assertions.assertEquals(242, meterRegistry.get("booklet.tokens.purged").counter().count());
+        Assertions.assertEquals(1, meterRegistry.get("booklet.tokens.purge").timer().count());
+    }
+
+    @Test
+    public void testPurgeStopsAtMaxBatches() {
+        Mockito.when(tokenRepository.tryAdvisoryXactLock(Mockito.anyLong())).thenReturn(true);
+        Mockito.when(tokenRepository.deleteExpiredOrInactive(Mockito.any(), Mockito.eq(100))).thenReturn(100);
+
+        Assertions.assertEquals(1000, tokenRetentionService.purge());
+        Mockito.verify(tokenRepository, Mockito.times(10)).deleteExpiredOrInactive(Mockito.any(), Mockito.eq(100));
+    }
+
+    @Test
+    public void testPurgeSkippedWhenLockedByAnotherInstance() {
+        Mockito.when(tokenRepository.tryAdvisoryXactLock(Mockito.anyLong())).thenReturn(false);
+
+        Assertions.assertEquals(0, tokenRetentionService.purge());
+        Mockito.verify(tokenRepository, Mockito.never()).deleteExpiredOrInactive(Mockito.any(), Mockito.anyInt());
+    }
+}
@@ -6,6 +6,8 @@ import com.github.togrul2.booklet.dtos.user.UserDto;
 import com.github.togrul2.booklet.dtos.user.UserFilterDto;
 import com.github.togrul2.booklet.entities.User;
 import com.github.togrul2.booklet.repositories.UserRepository;
+import com.github.togrul2.booklet.security.AuthenticatedUser;
+import com.github.togrul2.booklet.security.CaffeineUserCache;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,9 +20,13 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UserCache;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,9 +37,14 @@ public class UserServiceTests {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+    @Mock
+    private UserCache userCache;
+    @Mock
+    private TokenGenerationService tokenGenerationService;
 
     private User user, anotherUser;
+    private AuthenticatedUser currentUser;
     private CreateUserDto createUserDto;
 
     @BeforeEach
@@ -53,6 +64,8 @@ public class UserServiceTests {
                 .lastName("Doe")
                 .build();
 
+        currentUser = new AuthenticatedUser(user.getId(), user.getEmail(), List.of());
+
         createUserDto = CreateUserDto.builder()
                 .email("johndoe@example.com")
                 .password("secret")
@@ -64,7 +77,7 @@ public class UserServiceTests {
     @Test
     public void testRegister() {
         Mockito.when(userRepository.findByEmail(Mockito.anyString())).thenReturn(Optional.empty());
-        Mockito.when(passwordEncoder.encode(Mockito.anyString())).thenReturn("encoded");
+        Mockito.when(passwordHashingService.encode(Mockito.anyString())).thenReturn("encoded");
         Mockito.when(userRepository.save(Mockito.any())).thenReturn(user);
 
         UserDto userDto = userService.register(createUserDto);
@@ -73,7 +86,7 @@ public class UserServiceTests {
         Assertions.assertEquals(user.getEmail(), userDto.email());
         Mockito.verify(userRepository).findByEmail(Mockito.anyString());
         Mockito.verify(userRepository).save(Mockito.any());
-        Mockito.verify(passwordEncoder).encode(Mockito.anyString());
+        Mockito.verify(passwordHashingService).encode(Mockito.anyString());
     }
 
     @Test
@@ -83,6 +96,7 @@ public class UserServiceTests {
         Assertions.assertThrows(IllegalArgumentException.class, () -> userService.register(createUserDto));
         Mockito.verify(userRepository).findByEmail(Mockito.anyString());
         Mockito.verify(userRepository, Mockito.never()).save(Mockito.any());
+        Mockito.verify(passwordHashingService, Mockito.never()).encode(Mockito.anyString());
     }
 
     @Test
@@ -110,138 +124,179 @@ public class UserServiceTests {
 
     @Test
     public void testFindById() {
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.findAccessibleById(1L, currentUser.getId(), false)).thenReturn(Optional.of(user));
 
-        UserDto userDto = userService.findById(1L);
+        UserDto userDto = userService.findById(currentUser, 1L);
 
         Assertions.assertNotNull(userDto);
         Assertions.assertEquals(user.getEmail(), userDto.email());
-        Mockito.verify(userRepository).findById(1L);
+        Mockito.verify(userRepository).findAccessibleById(1L, currentUser.getId(), false);
     }
 
     @Test
     public void testFindByIdNotFound() {
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        Mockito.when(userRepository.findAccessibleById(1L, currentUser.getId(), false)).thenReturn(Optional.empty());
 
-        Assertions.assertThrows(ResourceNotFoundException.class, () -> userService.findById(1L));
-        Mockito.verify(userRepository).findById(1L);
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> userService.findById(currentUser, 1L));
+        Mockito.verify(userRepository).findAccessibleById(1L, currentUser.getId(), false);
     }
 
     @Test
     public void testUpdateSuccess() {
         UpdateUserDto dto = new UpdateUserDto("newemail@example.com", "Jane", "Smith");
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.findAccessibleById(1L, currentUser.getId(), false)).thenReturn(Optional.of(user));
         Mockito.when(userRepository.findByEmail("newemail@example.com")).thenReturn(Optional.empty());
         Mockito.when(userRepository.save(Mockito.any())).thenAnswer(i -> i.getArgument(0));
 
-        UserDto result = userService.update(1L, dto);
+        UserDto result = userService.update(currentUser, 1L, dto);
 
         Assertions.assertEquals("newemail@example.com", result.email());
         Assertions.assertEquals("Jane", result.firstName());
         Mockito.verify(userRepository).save(Mockito.any());
+        Mockito.verify(userCache).removeUserFromCache("johndoe@example.com");
+    }
+
+    @Test
+    public void testUpdateEvictsCachedUserAfterCommit() {
+        UserCache cache = new CaffeineUserCache(100, Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(userService, "userCache", cache);
+        UpdateUserDto dto = new UpdateUserDto("newemail@example.com", null, null);
+        Mockito.when(userRepository.findAccessibleById(1L, currentUser.getId(), false)).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.findByEmail("newemail@example.com")).thenReturn(Optional.empty());
+        Mockito.when(userRepository.save(Mockito.any())).thenAnswer(i -> i.getArgument(0));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.update(currentUser, 1L, dto);
+            // Login on another thread loads the old row before the update commits.
+            cache.putUserInCache(User.builder().id(1L).email("johndoe@example.com").password("encoded").build());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assertions.assertNull(cache.getUserFromCache("johndoe@example.com"));
     }
 
     @Test
     public void testUpdateNotFound() {
-        Mockito.when(userRepository.findById(99L)).thenReturn(Optional.empty());
+        Mockito.when(userRepository.findAccessibleById(99L, currentUser.getId(), false)).thenReturn(Optional.empty());
 
         Assertions.assertThrows(ResourceNotFoundException.class,
-                () -> userService.update(99L, new UpdateUserDto(null, "Jane", "Smith")));
+                () -> userService.update(currentUser, 99L, new UpdateUserDto(null, "Jane", "Smith")));
         Mockito.verify(userRepository, Mockito.never()).save(Mockito.any());
     }
 
     @Test
     public void testUpdateEmailAlreadyTaken() {
         UpdateUserDto dto = new UpdateUserDto(anotherUser.getEmail(), "Jane", "Smith");
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.findAccessibleById(1L, currentUser.getId(), false)).thenReturn(Optional.of(user));
         // Email belongs to a different user
         Mockito.when(userRepository.findByEmail(anotherUser.getEmail())).thenReturn(Optional.of(anotherUser));
 
-        Assertions.assertThrows(IllegalArgumentException.class, () -> userService.update(1L, dto));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> userService.update(currentUser, 1L, dto));
         Mockito.verify(userRepository, Mockito.never()).save(Mockito.any());
+        Mockito.verify(userCache, Mockito.never()).removeUserFromCache(Mockito.any());
     }
 
     @Test
     public void testUpdateSameEmailAllowed() {
         // Updating with the same email as the current user should be allowed
         UpdateUserDto dto = new UpdateUserDto(user.getEmail(), "Johnny", "Doe");
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.findAccessibleById(1L, currentUser.getId(), false)).thenReturn(Optional.of(user));
         Mockito.when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
         Mockito.when(userRepository.save(Mockito.any())).thenAnswer(i -> i.getArgument(0));
 
-        Assertions.assertDoesNotThrow(() -> userService.update(1L, dto));
+        Assertions.assertDoesNotThrow(() -> userService.update(currentUser, 1L, dto));
         Mockito.verify(userRepository).save(Mockito.any());
     }
 
+    @Test
+    public void testUpdateSameEmailSkipsUniquenessCheck() {
+        UpdateUserDto dto = new UpdateUserDto(user.getEmail(), "Johnny", "Doe");
+        Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.save(Mockito.any())).thenAnswer(i -> i.getArgument(0));
+
+        userService.updateAuthUser(currentUser, dto);
+
+        Mockito.verify(userRepository, Mockito.never()).findByEmail(Mockito.anyString());
+        Mockito.verify(userRepository).save(user);
+    }
+
     @Test
     public void testDeleteSuccess() {
-        Mockito.when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.findAccessibleById(1L, currentUser.getId(), false)).thenReturn(Optional.of(user));
 
-        Assertions.assertDoesNotThrow(() -> userService.delete(1L));
+        Assertions.assertDoesNotThrow(() -> userService.delete(currentUser, 1L));
         Mockito.verify(userRepository).delete(user);
+        Mockito.verify(userCache).removeUserFromCache(user.getEmail());
+        Mockito.verify(tokenGenerationService).forget(user.getId());
     }
 
     @Test
     public void testDeleteNotFound() {
-        Mockito.when(userRepository.findById(99L)).thenReturn(Optional.empty());
+        Mockito.when(userRepository.findAccessibleById(99L, currentUser.getId(), false)).thenReturn(Optional.empty());
 
-        Assertions.assertThrows(ResourceNotFoundException.class, () -> userService.delete(99L));
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> userService.delete(currentUser, 99L));
         Mockito.verify(userRepository, Mockito.never()).delete(Mockito.any(User.class));
     }
 
     @Test
     public void testFindAuthUserSuccess() {
-        Mockito.when(userRepository.findAuthUser()).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
-        UserDto result = userService.findAuthUser();
+        UserDto result = userService.findAuthUser(currentUser);
 
         Assertions.assertNotNull(result);
         Assertions.assertEquals(user.getEmail(), result.email());
-        Mockito.verify(userRepository).findAuthUser();
+        Mockito.verify(userRepository).findById(user.getId());
     }
 
     @Test
     public void testFindAuthUserNotFound() {
-        Mockito.when(userRepository.findAuthUser()).thenReturn(Optional.empty());
+        Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
 
-        Assertions.assertThrows(ResourceNotFoundException.class, () -> userService.findAuthUser());
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> userService.findAuthUser(currentUser));
     }
 
     @Test
     public void testUpdateAuthUserSuccess() {
         UpdateUserDto dto = new UpdateUserDto("new@example.com", "Johnny", "Doe");
-        Mockito.when(userRepository.findAuthUser()).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
         Mockito.when(userRepository.findByEmail("new@example.com")).thenReturn(Optional.empty());
         Mockito.when(userRepository.save(Mockito.any())).thenAnswer(i -> i.getArgument(0));
 
-        UserDto result = userService.updateAuthUser(dto);
+        UserDto result = userService.updateAuthUser(currentUser, dto);
 
         Assertions.assertEquals("new@example.com", result.email());
         Mockito.verify(userRepository).save(Mockito.any());
+        Mockito.verify(userCache).removeUserFromCache("johndoe@example.com");
     }
 
     @Test
     public void testUpdateAuthUserNotFound() {
-        Mockito.when(userRepository.findAuthUser()).thenReturn(Optional.empty());
+        Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
 
         Assertions.assertThrows(ResourceNotFoundException.class,
-                () -> userService.updateAuthUser(new UpdateUserDto(null, "Johnny", "Doe")));
+                () -> userService.updateAuthUser(currentUser, new UpdateUserDto(null, "Johnny", "Doe")));
         Mockito.verify(userRepository, Mockito.never()).save(Mockito.any());
     }
 
     @Test
     public void testDeleteAuthUserSuccess() {
-        Mockito.when(userRepository.findAuthUser()).thenReturn(Optional.of(user));
+        Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
-        Assertions.assertDoesNotThrow(() -> userService.deleteAuthUser());
+        Assertions.assertDoesNotThrow(() -> userService.deleteAuthUser(currentUser));
         Mockito.verify(userRepository).delete(user);
+        Mockito.verify(userCache).removeUserFromCache(user.getEmail());
+        Mockito.verify(tokenGenerationService).forget(user.getId());
     }
 
     @Test
     public void testDeleteAuthUserNotFound() {
-        Mockito.when(userRepository.findAuthUser()).thenReturn(Optional.empty());
+        Mockito.when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
 
-        Assertions.assertThrows(ResourceNotFoundException.class, () -> userService.deleteAuthUser());
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> userService.deleteAuthUser(currentUser));
         Mockito.verify(userRepository, Mockito.never()).delete(Mockito.any(User.class));
     }
 }
\ No newline at end of file
@@ -0,0 +1,177 @@
+package com.github.togrul2.booklet.services;
+
+import com.github.togrul2.booklet.dtos.waitlist.WaitlistEntryDto;
+import com.github.togrul2.booklet.dtos.waitlist.WaitlistRequestDto;
+import com.github.togrul2.booklet.entities.Book;
+import com.github.togrul2.booklet.entities.Reservation;
+import com.github.togrul2.booklet.entities.User;
+import com.github.togrul2.booklet.entities.WaitlistEntry;
+import com.github.togrul2.booklet.events.WaitlistPromotedEvent;
+import com.github.togrul2.booklet.repositories.BookRepository;
+import com.github.togrul2.booklet.repositories.ReservationRepository;
+import com.github.togrul2.booklet.repositories.UserRepository;
+import com.github.togrul2.booklet.repositories.WaitlistEntryRepository;
+import com.github.togrul2.booklet.security.AuthenticatedUser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(SpringExtension.class)
+public class WaitlistServiceTests {
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1);
+    @InjectMocks
+    private WaitlistService waitlistService;
+    @Mock
+    private WaitlistEntryRepository waitlistEntryRepository;
+    @Mock
+    private ReservationRepository reservationRepository;
+    @Mock
+    private BookRepository bookRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private ReservationLockService reservationLockService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private AuthenticatedUser currentUser;
+    private Book book;
+
+    @BeforeEach
+    public void setUp() {
+        currentUser = new AuthenticatedUser(1L, "johndoe@example.com", List.of());
+        book = Book.builder().id(1L).title("Title").build();
+    }
+
+    private WaitlistEntry createEntry(long id, long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        User user = new User();
+        user.setId(userId);
+        return WaitlistEntry.builder()
+                .id(id)
+                .user(user)
+                .book(book)
+                .startDate(startDate)
+                .endDate(endDate)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    public void testJoin() {
+        WaitlistRequestDto requestDto = new WaitlistRequestDto(start, start.plusDays(2));
+        Mockito.when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        Mockito.when(reservationRepository.hasOverlappingSession(book, start, start.plusDays(2))).thenReturn(true);
+        Mockito.when(waitlistEntryRepository.save(Mockito.any())).thenAnswer(invocation -> {
+            WaitlistEntry entry = invocation.getArgument(0);
+            entry.setId(5L);
+            return entry;
+        });
+        Mockito.when(waitlistEntryRepository.countAhead(Mockito.eq(1L), Mockito.any(), Mockito.eq(5L))).thenReturn(2L);
+
+        WaitlistEntryDto entry = waitlistService.join(currentUser, 1L, requestDto);
+
+        Assertions.assertEquals(5L, entry.id());
+        Assertions.assertEquals(3L, entry.position());
+        Mockito.verify(waitlistEntryRepository).save(Mockito.any());
+    }
+
+    @Test
+    public void testJoinAvailableBookRejected() {
+        WaitlistRequestDto requestDto = new WaitlistRequestDto(start, start.plusDays(2));
+        Mockito.when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        Mockito.when(reservationRepository.hasOverlappingSession(book, start, start.plusDays(2))).thenReturn(false);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> waitlistService.join(currentUser, 1L, requestDto));
+        Mockito.verify(waitlistEntryRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    public void testJoinTwiceRejected() {
+        WaitlistRequestDto requestDto = new WaitlistRequestDto(start, start.plusDays(2));
+        Mockito.when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        Mockito.when(waitlistEntryRepository.existsByUserIdAndBookId(1L, 1L)).thenReturn(true);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> waitlistService.join(currentUser, 1L, requestDto));
+        Mockito.verify(waitlistEntryRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    public void testJoinInvalidDatesRejected() {
+        WaitlistRequestDto requestDto = new WaitlistRequestDto(start, start.plusHours(1));
+        Mockito.when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> waitlistService.join(currentUser, 1L, requestDto));
+    }
+
+    @Test
+    public void testJoinPastPeriodRejected() {
+        WaitlistRequestDto requestDto = new WaitlistRequestDto(start.minusDays(4), start.minusDays(2));
+        Mockito.when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        IllegalArgumentException exception = Assertions.assertThrows(
+                IllegalArgumentException.class, () -> waitlistService.join(currentUser, 1L, requestDto)
+        );
+        Assertions.assertEquals("Invalid reservation dates.", exception.getMessage());
+        Mockito.verify(waitlistEntryRepository, Mockito.never()).save(Mockito.any());
+    }
+
+    @Test
+    public void testJoinBookNotFound() {
+        WaitlistRequestDto requestDto = new WaitlistRequestDto(start, start.plusDays(2));
+        Mockito.when(bookRepository.findById(1L)).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(
+                ResourceNotFoundException.class, () -> waitlistService.join(currentUser, 1L, requestDto)
+        );
+    }
+
+    @Test
+    public void testLeaveNotFound() {
+        Mockito.when(waitlistEntryRepository.deleteByUserIdAndBookId(1L, 1L)).thenReturn(0);
+
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> waitlistService.leave(currentUser, 1L));
+    }
+
+    @Test
+    public void testPromoteInOrderSkippingBlockedEntries() {
+        WaitlistEntry first = createEntry(1L, 2L, start, start.plusDays(2));
+        // Overlaps the first entry, still blocked once it is promoted.
+        WaitlistEntry second = createEntry(2L, 3L, start.plusDays(1), start.plusDays(3));
+        WaitlistEntry third = createEntry(3L, 4L, start.plusDays(2), start.plusDays(4));
+        Mockito.when(waitlistEntryRepository.findWaiting(
+                Mockito.eq(1L), Mockito.eq(start), Mockito.eq(start.plusDays(4)), Mockito.any()
+        )).thenReturn(List.of(first, second, third));
+        Mockito.when(reservationRepository.hasOverlappingSession(book, second.getStartDate(), second.getEndDate()))
+                .thenReturn(true);
+        Mockito.when(reservationRepository.saveAndFlush(Mockito.any())).thenAnswer(invocation -> {
+            Reservation reservation = invocation.getArgument(0);
+            reservation.setId(reservation.getUser().getId() * 10);
+            return reservation;
+        });
+
+        int promoted = waitlistService.promote(book, start, start.plusDays(4));
+
+        Assertions.assertEquals(2, promoted);
+        Mockito.verify(reservationLockService).lockBook(1L);
+        Mockito.verify(waitlistEntryRepository).delete(first);
+        Mockito.verify(waitlistEntryRepository, Mockito.never()).delete(second);
+        Mockito.verify(waitlistEntryRepository).delete(third);
+        ArgumentCaptor<WaitlistPromotedEvent> events = ArgumentCaptor.forClass(WaitlistPromotedEvent.class);
+        Mockito.verify(eventPublisher, Mockito.times(2)).publishEvent(events.capture());
+        Assertions.assertEquals(
+                List.of(2L, 4L),
+                events.getAllValues().stream().map(event -> event.reservation().userId()).toList()
+        );
+    }
+}
@@ -0,0 +1,34 @@
+-- Executed by Hibernate after schema creation in tests, mirrors database objects that are not mapped by entities.
+-- Every statement must be on a single line.
+CREATE INDEX idx_token_expires_at ON token (expires_at);
+CREATE INDEX idx_token_inactive ON token (id) WHERE NOT active;
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+ALTER TABLE reservation ADD period TSRANGE GENERATED ALWAYS AS (tsrange(start_date, end_date, '[)')) STORED;
+ALTER TABLE reservation ADD CONSTRAINT ex_reservation_book_period EXCLUDE USING gist (book_id WITH =, period WITH &&) WHERE (status <> 2);
+CREATE INDEX ix_reservation_book_end_date ON reservation (book_id, end_date) WHERE status <> 2;
+CREATE INDEX ix_reservation_book_start_date ON reservation (book_id, start_date);
+CREATE INDEX ix_reservation_user_start_date ON reservation (user_id, start_date);
+CREATE INDEX ix_reservation_status_start_date ON reservation (status, start_date);
+CREATE INDEX ix_reservation_end_date_start_date ON reservation (end_date, start_date);
+CREATE INDEX ix_book_genre_id ON book (genre_id);
+CREATE INDEX ix_waitlist_entry_book_created_at ON waitlist_entry (book_id, created_at, id);
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX ix_book_title_trgm ON book USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX ix_author_name_trgm ON author USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX ix_author_surname_trgm ON author USING gin (lower(surname) gin_trgm_ops);
+CREATE INDEX ix_accounts_email_trgm ON accounts USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX ix_accounts_first_name_trgm ON accounts USING gin (lower(first_name) gin_trgm_ops);
+CREATE INDEX ix_accounts_last_name_trgm ON accounts USING gin (lower(last_name) gin_trgm_ops);
+CREATE INDEX ix_book_title_fts ON book USING gin (to_tsvector('simple', title));
+CREATE INDEX ix_author_full_name_fts ON author USING gin (to_tsvector('simple', (coalesce(name, '') || ' ' || coalesce(surname, ''))));
+CREATE INDEX ix_accounts_full_name_fts ON accounts USING gin (to_tsvector('simple', (coalesce(first_name, '') || ' ' || coalesce(last_name, ''))));
+CREATE INDEX ix_book_title_fuzzy ON book USING gin (title gin_trgm_ops);
+CREATE INDEX ix_author_full_name_fuzzy ON author USING gin ((coalesce(name, '') || ' ' || coalesce(surname, '')) gin_trgm_ops);
+CREATE INDEX ix_accounts_full_name_fuzzy ON accounts USING gin ((coalesce(first_name, '') || ' ' || coalesce(last_name, '')) gin_trgm_ops);
+CREATE INDEX ix_book_title_id ON book (title, id);
+CREATE INDEX ix_book_year_id ON book (year, id);
+CREATE INDEX ix_author_name_id ON author (name, id);
+CREATE INDEX ix_author_surname_id ON author (surname, id);
+CREATE INDEX ix_accounts_email_id ON accounts (email, id);
+CREATE INDEX ix_reservation_start_date_id ON reservation (start_date, id);
+CREATE INDEX ix_reservation_end_date_id ON reservation (end_date, id);